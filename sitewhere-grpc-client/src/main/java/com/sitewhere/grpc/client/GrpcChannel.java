@@ -16,9 +16,11 @@
 package com.sitewhere.grpc.client;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -52,6 +54,9 @@ public abstract class GrpcChannel<B, A> extends TenantEngineLifecycleComponent i
     /** Numer of retries for DNS checks */
     protected static final int DNS_CHECK_RETRIES = 8;
 
+    /** Tenant label used for metrics not tied to a tenant */
+    protected static final String GLOBAL_TENANT = "_global_";
+
     /** Instance settings */
     protected IInstanceSettings instanceSettings;
 
@@ -85,6 +90,9 @@ public abstract class GrpcChannel<B, A> extends TenantEngineLifecycleComponent i
     /** Client interceptor for adding JWT from Spring Security context */
     protected JwtClientInterceptor jwtInterceptor;
 
+    /** Client interceptor for call metrics */
+    protected GrpcMetricsClientInterceptor metricsInterceptor;
+
     /** Thread for DNS resolution */
     protected ExecutorService dnsExecutor = Executors.newSingleThreadExecutor();
 
@@ -119,10 +127,9 @@ public abstract class GrpcChannel<B, A> extends TenantEngineLifecycleComponent i
     @Override
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	try {
-	    NettyChannelBuilder builder = NettyChannelBuilder.forAddress(getHostname(), getPort());
-	    builder.defaultServiceConfig(buildServiceConfiguration()).enableRetry().disableServiceConfigLookUp();
-	    builder.usePlaintext().intercept(getJwtInterceptor());
-	    this.channel = builder.build();
+	    this.metricsInterceptor = new GrpcMetricsClientInterceptor(getMicroservice().getIdentifier().getPath(),
+		    getMicroservice().getInstanceSettings().getKubernetesPodAddress());
+	    this.channel = buildManagedChannel();
 	    this.blockingStub = createBlockingStub();
 	    this.asyncStub = createAsyncStub();
 	    getLogger().info(
@@ -132,6 +139,43 @@ public abstract class GrpcChannel<B, A> extends TenantEngineLifecycleComponent i
 	}
     }
 
+    /**
+     * Build the channel used by stubs. If more than one connection is configured,
+     * calls are spread over a {@link ManagedChannelPool}.
+     * 
+     * @return
+     */
+    protected ManagedChannel buildManagedChannel() {
+	GrpcConfiguration grpc = getMicroservice().getInstanceConfiguration().getInfrastructure().getGrpc();
+	Map<String, Object> serviceConfig = buildServiceConfiguration();
+	int poolSize = Math.max(1, grpc.getChannelPoolSize());
+	if (poolSize == 1) {
+	    return buildPooledChannel(serviceConfig);
+	}
+	List<ManagedChannel> channels = new ArrayList<>();
+	for (int i = 0; i < poolSize; i++) {
+	    channels.add(buildPooledChannel(serviceConfig));
+	}
+	getLogger().info(String.format("Using pool of %d connections to %s:%d with %s selection.", poolSize,
+		getHostname(), getPort(), grpc.getChannelSelection()));
+	return new ManagedChannelPool(channels, grpc.getChannelSelection(), getHostname(),
+		getMicroservice().getIdentifier().getPath(),
+		getMicroservice().getInstanceSettings().getKubernetesPodAddress(), GLOBAL_TENANT);
+    }
+
+    /**
+     * Build a single channel to the target service.
+     * 
+     * @param serviceConfig
+     * @return
+     */
+    protected ManagedChannel buildPooledChannel(Map<String, Object> serviceConfig) {
+	NettyChannelBuilder builder = NettyChannelBuilder.forAddress(getHostname(), getPort());
+	builder.defaultServiceConfig(serviceConfig).enableRetry().disableServiceConfigLookUp();
+	builder.usePlaintext().intercept(getJwtInterceptor()).intercept(getMetricsInterceptor());
+	return builder.build();
+    }
+
     /**
      * Build service configuration that enables retry support.
      * 
@@ -160,7 +204,9 @@ public abstract class GrpcChannel<B, A> extends TenantEngineLifecycleComponent i
     }
 
     /**
-     * Configure retry policy.
+     * Configure retry policy. Calls rejected by server concurrency limits are
+     * retried after exponential backoff, or after the delay the server requests
+     * in its retry pushback trailer.
      * 
      * @return
      */
@@ -171,7 +217,7 @@ public abstract class GrpcChannel<B, A> extends TenantEngineLifecycleComponent i
 	retryPolicy.put("initialBackoff", String.format("%ds", grpc.getInitialBackoffSeconds()));
 	retryPolicy.put("maxBackoff", String.format("%ds", grpc.getMaxBackoffSeconds()));
 	retryPolicy.put("backoffMultiplier", grpc.getBackoffMultiplier());
-	retryPolicy.put("retryableStatusCodes", Arrays.<Object>asList("UNAVAILABLE"));
+	retryPolicy.put("retryableStatusCodes", Arrays.<Object>asList("UNAVAILABLE", "RESOURCE_EXHAUSTED"));
 	return retryPolicy;
     }
 
@@ -315,6 +361,10 @@ public abstract class GrpcChannel<B, A> extends TenantEngineLifecycleComponent i
 	return jwtInterceptor;
     }
 
+    public GrpcMetricsClientInterceptor getMetricsInterceptor() {
+	return metricsInterceptor;
+    }
+
     public IInstanceSettings getInstanceSettings() {
 	return instanceSettings;
     }
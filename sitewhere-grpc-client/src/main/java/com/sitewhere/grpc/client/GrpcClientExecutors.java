@@ -0,0 +1,162 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.grpc.client;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.ClientExecutorType;
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.GrpcConfiguration;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+
+import io.prometheus.client.Gauge;
+
+/**
+ * Executors shared by gRPC client channels. Sharing one pool across channels
+ * keeps the thread count of a microservice independent of how many API
+ * channels it opens. The shared pool has a fixed number of threads but does
+ * not bound its queue, since rejecting a client callback would lose the
+ * response of a call that already completed.
+ */
+public class GrpcClientExecutors {
+
+    /** Label for executor type */
+    private static final String LABEL_EXECUTOR = "executor";
+
+    /** Seconds before idle shared pool threads exit */
+    private static final long IDLE_THREAD_TIMEOUT_SECS = 60;
+
+    /** Gauge for tasks waiting on a thread */
+    private static final Gauge QUEUE_DEPTH = TenantEngineLifecycleComponent.createGaugeMetric(
+	    "grpc_client_executor_queue_depth", "Tasks waiting for a gRPC client executor thread", LABEL_EXECUTOR);
+
+    /** Gauge for threads running tasks */
+    private static final Gauge ACTIVE_THREADS = TenantEngineLifecycleComponent.createGaugeMetric(
+	    "grpc_client_executor_active_threads", "Threads running gRPC client tasks", LABEL_EXECUTOR);
+
+    /** Fixed-size pool shared by all channels */
+    private static ThreadPoolExecutor shared;
+
+    /** Work-stealing pool shared by all channels */
+    private static ForkJoinPool workStealing;
+
+    /**
+     * Get executor for client callbacks based on configuration. Returns null when
+     * callbacks should run directly on the transport thread.
+     * 
+     * @param grpc
+     * @param metricLabels
+     * @return
+     */
+    public static synchronized ExecutorService getExecutor(GrpcConfiguration grpc, String... metricLabels) {
+	int threads = Math.max(1, grpc.getClientExecutorThreads());
+	ClientExecutorType type = grpc.getClientExecutor() != null ? grpc.getClientExecutor()
+		: ClientExecutorType.Shared;
+	switch (type) {
+	case Direct: {
+	    return null;
+	}
+	case WorkStealing: {
+	    if (workStealing == null) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		QUEUE_DEPTH.setChild(new Gauge.Child() {
+
+		    /*
+		     * @see io.prometheus.client.Gauge.Child#get()
+		     */
+		    @Override
+		    public double get() {
+			return pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+		    }
+		}, labels(metricLabels, type));
+		ACTIVE_THREADS.setChild(new Gauge.Child() {
+
+		    /*
+		     * @see io.prometheus.client.Gauge.Child#get()
+		     */
+		    @Override
+		    public double get() {
+			return pool.getActiveThreadCount();
+		    }
+		}, labels(metricLabels, type));
+		workStealing = pool;
+	    }
+	    return workStealing;
+	}
+	default: {
+	    if (shared == null) {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_TIMEOUT_SECS,
+			TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ClientThreadFactory());
+		pool.allowCoreThreadTimeOut(true);
+		QUEUE_DEPTH.setChild(new Gauge.Child() {
+
+		    /*
+		     * @see io.prometheus.client.Gauge.Child#get()
+		     */
+		    @Override
+		    public double get() {
+			return pool.getQueue().size();
+		    }
+		}, labels(metricLabels, type));
+		ACTIVE_THREADS.setChild(new Gauge.Child() {
+
+		    /*
+		     * @see io.prometheus.client.Gauge.Child#get()
+		     */
+		    @Override
+		    public double get() {
+			return pool.getActiveCount();
+		    }
+		}, labels(metricLabels, type));
+		shared = pool;
+	    }
+	    return shared;
+	}
+	}
+    }
+
+    /**
+     * Append executor type to metric labels.
+     * 
+     * @param metricLabels
+     * @param type
+     * @return
+     */
+    protected static String[] labels(String[] metricLabels, ClientExecutorType type) {
+	String[] all = new String[metricLabels.length + 1];
+	System.arraycopy(metricLabels, 0, all, 0, metricLabels.length);
+	all[metricLabels.length] = type.name();
+	return all;
+    }
+
+    /** Used for naming gRPC client threads */
+    private static class ClientThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    Thread thread = new Thread(r, "gRPC Client " + counter.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
+}
\ No newline at end of file
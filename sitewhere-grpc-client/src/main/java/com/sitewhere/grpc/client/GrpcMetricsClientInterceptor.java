@@ -0,0 +1,125 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.grpc.client;
+
+import com.sitewhere.microservice.grpc.GrpcCallMetrics;
+import com.sitewhere.microservice.security.SiteWhereAuthentication;
+import com.sitewhere.microservice.security.UserContext;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * Records per-method request counts, status codes, latency, in-flight calls
+ * and message sizes for calls issued on a gRPC channel. Tenant is taken from
+ * the user context of the calling thread.
+ */
+public class GrpcMetricsClientInterceptor implements ClientInterceptor {
+
+    /** Tenant label used for calls without a tenant token */
+    private static final String GLOBAL_TENANT = "_global_";
+
+    /** Microservice label */
+    private String microservice;
+
+    /** Pod label */
+    private String pod;
+
+    public GrpcMetricsClientInterceptor(String microservice, String pod) {
+	this.microservice = microservice;
+	this.pod = pod;
+    }
+
+    /*
+     * @see io.grpc.ClientInterceptor#interceptCall(io.grpc.MethodDescriptor,
+     * io.grpc.CallOptions, io.grpc.Channel)
+     */
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+	    CallOptions callOptions, Channel next) {
+	SiteWhereAuthentication authentication = UserContext.getCurrentUser();
+	String tenant = (authentication != null) && (authentication.getTenantToken() != null)
+		? authentication.getTenantToken()
+		: GLOBAL_TENANT;
+	return new SimpleForwardingClientCall<ReqT, RespT>(next.newCall(method, callOptions)) {
+
+	    /** Metrics for the call */
+	    private GrpcCallMetrics.Call metrics;
+
+	    /*
+	     * @see io.grpc.ForwardingClientCall#start(io.grpc.ClientCall.Listener,
+	     * io.grpc.Metadata)
+	     */
+	    @Override
+	    public void start(Listener<RespT> responseListener, Metadata headers) {
+		metrics = GrpcCallMetrics.CLIENT.start(getMicroservice(), getPod(), tenant,
+			method.getFullMethodName());
+		try {
+		    super.start(new SimpleForwardingClientCallListener<RespT>(responseListener) {
+
+			/*
+			 * @see io.grpc.ForwardingClientCallListener#onMessage(java.lang.Object)
+			 */
+			@Override
+			public void onMessage(RespT message) {
+			    metrics.messageReceived(message);
+			    super.onMessage(message);
+			}
+
+			/*
+			 * @see io.grpc.ForwardingClientCallListener#onClose(io.grpc.Status,
+			 * io.grpc.Metadata)
+			 */
+			@Override
+			public void onClose(Status status, Metadata trailers) {
+			    metrics.complete(status.getCode());
+			    super.onClose(status, trailers);
+			}
+		    }, headers);
+		} catch (RuntimeException e) {
+		    metrics.complete(Status.Code.UNKNOWN);
+		    throw e;
+		}
+	    }
+
+	    /*
+	     * @see io.grpc.ForwardingClientCall#sendMessage(java.lang.Object)
+	     */
+	    @Override
+	    public void sendMessage(ReqT message) {
+		if (metrics != null) {
+		    metrics.messageSent(message);
+		}
+		super.sendMessage(message);
+	    }
+	};
+    }
+
+    protected String getMicroservice() {
+	return microservice;
+    }
+
+    protected String getPod() {
+	return pod;
+    }
+}
\ No newline at end of file
@@ -15,8 +15,7 @@
  */
 package com.sitewhere.grpc.client;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,8 +25,9 @@ import com.sitewhere.grpc.client.common.security.NotAuthorizedException;
 import com.sitewhere.grpc.client.common.security.UnauthenticatedException;
 import com.sitewhere.grpc.client.common.tracing.DebugParameter;
 import com.sitewhere.grpc.client.spi.IApiChannel;
+import com.sitewhere.grpc.client.spi.IAsyncInvocation;
+import com.sitewhere.grpc.client.spi.IResponseConverter;
 import com.sitewhere.grpc.client.spi.server.IGrpcApiImplementation;
-import com.sitewhere.grpc.common.CommonModelConverter;
 import com.sitewhere.microservice.security.UserContext;
 import com.sitewhere.microservice.util.MarshalUtils;
 import com.sitewhere.spi.SiteWhereException;
@@ -162,6 +162,63 @@ public class GrpcUtils {
 	return new SiteWhereException("Client exception in call to " + method.getFullMethodName() + ".", t);
     }
 
+    /**
+     * Issue a unary call on an asynchronous stub. The returned future completes
+     * with the converted response or, on failure, with the exception produced by
+     * {@link #handleClientMethodException(MethodDescriptor, Throwable)}. The call
+     * is started on the calling thread so that tenant and JWT headers are taken
+     * from the current user context. Completion happens on a gRPC executor thread,
+     * so dependent stages should not block.
+     * 
+     * @param channel
+     * @param method
+     * @param invocation
+     * @param converter
+     * @return
+     */
+    public static <Q, S, R> CompletableFuture<R> asyncUnaryCall(IApiChannel<?> channel, MethodDescriptor<Q, S> method,
+	    IAsyncInvocation<S> invocation, IResponseConverter<S, R> converter) {
+	CompletableFuture<R> future = new CompletableFuture<>();
+	try {
+	    handleClientMethodEntry(channel, method);
+	    invocation.invoke(new StreamObserver<S>() {
+
+		/*
+		 * @see io.grpc.stub.StreamObserver#onNext(java.lang.Object)
+		 */
+		@Override
+		public void onNext(S gresponse) {
+		    try {
+			R response = converter.convert(gresponse);
+			logClientMethodResponse(method, response);
+			future.complete(response);
+		    } catch (Throwable t) {
+			future.completeExceptionally(handleClientMethodException(method, t));
+		    }
+		}
+
+		/*
+		 * @see io.grpc.stub.StreamObserver#onError(java.lang.Throwable)
+		 */
+		@Override
+		public void onError(Throwable t) {
+		    future.completeExceptionally(handleClientMethodException(method, t));
+		}
+
+		/*
+		 * @see io.grpc.stub.StreamObserver#onCompleted()
+		 */
+		@Override
+		public void onCompleted() {
+		    future.complete(null);
+		}
+	    });
+	} catch (Throwable t) {
+	    future.completeExceptionally(handleClientMethodException(method, t));
+	}
+	return future;
+    }
+
     /**
      * Handle server exception by logging it, then converting to a format that can
      * be passed back across the wire to a client.
@@ -206,21 +263,18 @@ public class GrpcUtils {
     }
 
     /**
-     * Marshal a gRPC message to a byte[].
+     * Marshal a gRPC message to a byte[]. The message is written directly into an
+     * array of its serialized size, so no intermediate buffer is grown or copied.
      * 
      * @param message
      * @return
      * @throws SiteWhereException
      */
     public static byte[] marshal(AbstractMessageLite<?, ?> message) throws SiteWhereException {
-	ByteArrayOutputStream output = new ByteArrayOutputStream();
 	try {
-	    message.writeTo(output);
-	    return output.toByteArray();
-	} catch (IOException e) {
+	    return message.toByteArray();
+	} catch (RuntimeException e) {
 	    throw new SiteWhereException("Unable to marshal gRPC message.", e);
-	} finally {
-	    CommonModelConverter.closeQuietly(output);
 	}
     }
 }
\ No newline at end of file
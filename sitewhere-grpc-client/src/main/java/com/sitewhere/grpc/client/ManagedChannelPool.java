@@ -0,0 +1,281 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.grpc.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.ChannelSelection;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+
+/**
+ * {@link ManagedChannel} that spreads calls over several underlying channels to
+ * the same target. Each underlying channel holds its own HTTP/2 connection, so
+ * a pool is not limited by the max concurrent streams of a single connection
+ * and its traffic is handled by more than one event loop.
+ */
+public class ManagedChannelPool extends ManagedChannel {
+
+    /** Label for target host */
+    private static final String LABEL_TARGET = "target";
+
+    /** Label for index of channel in pool */
+    private static final String LABEL_SUBCHANNEL = "subchannel";
+
+    /** Gauge for calls in progress on each pooled channel */
+    private static final Gauge OUTSTANDING_CALLS = TenantEngineLifecycleComponent.createGaugeMetric(
+	    "grpc_channel_outstanding_calls", "Calls in progress on pooled gRPC channel", LABEL_TARGET,
+	    LABEL_SUBCHANNEL);
+
+    /** Counter for calls started on each pooled channel */
+    private static final Counter CALLS_STARTED = TenantEngineLifecycleComponent
+	    .createCounterMetric("grpc_channel_calls", "Calls started on pooled gRPC channel", LABEL_TARGET,
+		    LABEL_SUBCHANNEL);
+
+    /** Pooled channels */
+    private List<Subchannel> subchannels = new ArrayList<>();
+
+    /** Strategy for choosing a channel */
+    private ChannelSelection selection;
+
+    /** Counter used to rotate through channels */
+    private AtomicInteger next = new AtomicInteger();
+
+    public ManagedChannelPool(List<ManagedChannel> channels, ChannelSelection selection, String target,
+	    String... metricLabels) {
+	if (channels.isEmpty()) {
+	    throw new IllegalArgumentException("Channel pool requires at least one channel.");
+	}
+	this.selection = selection;
+	for (int i = 0; i < channels.size(); i++) {
+	    List<String> labels = new ArrayList<>(Arrays.asList(metricLabels));
+	    labels.add(target);
+	    labels.add(String.valueOf(i));
+	    getSubchannels().add(new Subchannel(channels.get(i), labels.toArray(new String[labels.size()])));
+	}
+    }
+
+    /*
+     * @see io.grpc.Channel#newCall(io.grpc.MethodDescriptor, io.grpc.CallOptions)
+     */
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method,
+	    CallOptions callOptions) {
+	Subchannel subchannel = choose();
+	return new SimpleForwardingClientCall<ReqT, RespT>(subchannel.getChannel().newCall(method, callOptions)) {
+
+	    /*
+	     * @see io.grpc.ForwardingClientCall#start(io.grpc.ClientCall.Listener,
+	     * io.grpc.Metadata)
+	     */
+	    @Override
+	    public void start(Listener<RespT> responseListener, Metadata headers) {
+		subchannel.callStarted();
+		try {
+		    super.start(new SimpleForwardingClientCallListener<RespT>(responseListener) {
+
+			/*
+			 * @see io.grpc.ForwardingClientCallListener#onClose(io.grpc.Status,
+			 * io.grpc.Metadata)
+			 */
+			@Override
+			public void onClose(Status status, Metadata trailers) {
+			    subchannel.callFinished();
+			    super.onClose(status, trailers);
+			}
+		    }, headers);
+		} catch (RuntimeException e) {
+		    subchannel.callFinished();
+		    throw e;
+		}
+	    }
+	};
+    }
+
+    /**
+     * Choose the channel for a new call.
+     * 
+     * @return
+     */
+    protected Subchannel choose() {
+	int size = getSubchannels().size();
+	int offset = Math.floorMod(getNext().getAndIncrement(), size);
+	if (getSelection() != ChannelSelection.LeastOutstanding) {
+	    return getSubchannels().get(offset);
+	}
+	Subchannel best = null;
+	for (int i = 0; i < size; i++) {
+	    Subchannel current = getSubchannels().get((offset + i) % size);
+	    if ((best == null) || (current.getOutstanding() < best.getOutstanding())) {
+		best = current;
+	    }
+	}
+	return best;
+    }
+
+    /*
+     * @see io.grpc.Channel#authority()
+     */
+    @Override
+    public String authority() {
+	return getSubchannels().get(0).getChannel().authority();
+    }
+
+    /*
+     * @see io.grpc.ManagedChannel#shutdown()
+     */
+    @Override
+    public ManagedChannel shutdown() {
+	for (Subchannel subchannel : getSubchannels()) {
+	    subchannel.getChannel().shutdown();
+	}
+	return this;
+    }
+
+    /*
+     * @see io.grpc.ManagedChannel#shutdownNow()
+     */
+    @Override
+    public ManagedChannel shutdownNow() {
+	for (Subchannel subchannel : getSubchannels()) {
+	    subchannel.getChannel().shutdownNow();
+	}
+	return this;
+    }
+
+    /*
+     * @see io.grpc.ManagedChannel#isShutdown()
+     */
+    @Override
+    public boolean isShutdown() {
+	for (Subchannel subchannel : getSubchannels()) {
+	    if (!subchannel.getChannel().isShutdown()) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /*
+     * @see io.grpc.ManagedChannel#isTerminated()
+     */
+    @Override
+    public boolean isTerminated() {
+	for (Subchannel subchannel : getSubchannels()) {
+	    if (!subchannel.getChannel().isTerminated()) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /*
+     * @see io.grpc.ManagedChannel#awaitTermination(long,
+     * java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+	long deadline = System.nanoTime() + unit.toNanos(timeout);
+	for (Subchannel subchannel : getSubchannels()) {
+	    long remaining = deadline - System.nanoTime();
+	    if (!subchannel.getChannel().awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Channel in the pool along with its call tracking.
+     */
+    protected static class Subchannel {
+
+	/** Underlying channel */
+	private ManagedChannel channel;
+
+	/** Calls in progress */
+	private AtomicInteger outstanding = new AtomicInteger();
+
+	/** Gauge child for calls in progress */
+	private Gauge.Child outstandingGauge;
+
+	/** Counter child for calls started */
+	private Counter.Child callsCounter;
+
+	public Subchannel(ManagedChannel channel, String[] labels) {
+	    this.channel = channel;
+	    this.outstandingGauge = OUTSTANDING_CALLS.labels(labels);
+	    this.callsCounter = CALLS_STARTED.labels(labels);
+	}
+
+	/**
+	 * Record that a call started.
+	 */
+	public void callStarted() {
+	    getOutstandingGauge().set(outstanding.incrementAndGet());
+	    getCallsCounter().inc();
+	}
+
+	/**
+	 * Record that a call finished.
+	 */
+	public void callFinished() {
+	    getOutstandingGauge().set(outstanding.decrementAndGet());
+	}
+
+	public int getOutstanding() {
+	    return outstanding.get();
+	}
+
+	public ManagedChannel getChannel() {
+	    return channel;
+	}
+
+	protected Gauge.Child getOutstandingGauge() {
+	    return outstandingGauge;
+	}
+
+	protected Counter.Child getCallsCounter() {
+	    return callsCounter;
+	}
+    }
+
+    protected List<Subchannel> getSubchannels() {
+	return subchannels;
+    }
+
+    protected ChannelSelection getSelection() {
+	return selection;
+    }
+
+    protected AtomicInteger getNext() {
+	return next;
+    }
+}
\ No newline at end of file
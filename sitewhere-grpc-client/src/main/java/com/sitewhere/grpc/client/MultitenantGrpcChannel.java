@@ -15,16 +15,16 @@
  */
 package com.sitewhere.grpc.client;
 
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import com.sitewhere.grpc.client.spi.multitenant.IMultitenantGrpcChannel;
-import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.GrpcConfiguration;
 import com.sitewhere.spi.microservice.IFunctionIdentifier;
 import com.sitewhere.spi.microservice.grpc.IGrpcServiceIdentifier;
 import com.sitewhere.spi.microservice.instance.IInstanceSettings;
-import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
 
+import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 
 /**
@@ -36,14 +36,11 @@ import io.grpc.ManagedChannelBuilder;
  */
 public abstract class MultitenantGrpcChannel<B, A> extends GrpcChannel<B, A> implements IMultitenantGrpcChannel<B, A> {
 
-    /** Max threads used for executing GPRC requests */
-    private static final int THREAD_POOL_SIZE = 25;
-
     /** Client interceptor for adding tenant token */
     private TenantTokenClientInterceptor tenantTokenInterceptor = new TenantTokenClientInterceptor();
 
-    /** Executor service used to handle GRPC requests */
-    private ExecutorService serverExecutor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+    /** Executor service used to handle GRPC requests. Chosen from configuration if not set */
+    private ExecutorService serverExecutor;
 
     public MultitenantGrpcChannel(IInstanceSettings settings, IFunctionIdentifier identifier,
 	    IGrpcServiceIdentifier grpcServiceIdentifier, int port) {
@@ -51,23 +48,26 @@ public abstract class MultitenantGrpcChannel<B, A> extends GrpcChannel<B, A> imp
     }
 
     /*
-     * (non-Javadoc)
-     * 
      * @see
-     * com.sitewhere.server.lifecycle.LifecycleComponent#start(com.sitewhere.spi
-     * .server.lifecycle.ILifecycleProgressMonitor)
+     * com.sitewhere.grpc.client.GrpcChannel#buildPooledChannel(java.util.Map)
      */
     @Override
-    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+    protected ManagedChannel buildPooledChannel(Map<String, Object> serviceConfig) {
 	ManagedChannelBuilder<?> builder = ManagedChannelBuilder.forAddress(getHostname(), getPort());
-	builder.defaultServiceConfig(buildServiceConfiguration()).enableRetry();
-	builder.executor(getServerExecutor());
-	builder.usePlaintext().intercept(getTenantTokenInterceptor()).intercept(getJwtInterceptor());
-	this.channel = builder.build();
-	this.blockingStub = createBlockingStub();
-	this.asyncStub = createAsyncStub();
-	getLogger()
-		.info(String.format("Creating gRPC client channel connected to %s:%d ...", getHostname(), getPort()));
+	builder.defaultServiceConfig(serviceConfig).enableRetry();
+	if (getServerExecutor() == null) {
+	    GrpcConfiguration grpc = getMicroservice().getInstanceConfiguration().getInfrastructure().getGrpc();
+	    setServerExecutor(GrpcClientExecutors.getExecutor(grpc, getMicroservice().getIdentifier().getPath(),
+		    getMicroservice().getInstanceSettings().getKubernetesPodAddress(), GLOBAL_TENANT));
+	}
+	if (getServerExecutor() != null) {
+	    builder.executor(getServerExecutor());
+	} else {
+	    builder.directExecutor();
+	}
+	builder.usePlaintext().intercept(getTenantTokenInterceptor()).intercept(getJwtInterceptor())
+		.intercept(getMetricsInterceptor());
+	return builder.build();
     }
 
     protected TenantTokenClientInterceptor getTenantTokenInterceptor() {
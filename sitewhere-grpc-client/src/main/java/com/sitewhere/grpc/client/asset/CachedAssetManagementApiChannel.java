@@ -147,12 +147,7 @@ public class CachedAssetManagementApiChannel extends TenantEngineLifecycleCompon
     @Override
     public IAsset getAsset(UUID assetId) throws SiteWhereException {
 	String tenantId = UserContext.getCurrentTenantId();
-	IAsset asset = getAssetByIdCache().getCacheEntry(tenantId, assetId);
-	if (asset == null) {
-	    asset = getWrapped().getAsset(assetId);
-	    getAssetByIdCache().setCacheEntry(tenantId, assetId, asset);
-	}
-	return asset;
+	return getAssetByIdCache().getCacheEntry(tenantId, assetId, getWrapped()::getAsset);
     }
 
     /*
@@ -162,12 +157,7 @@ public class CachedAssetManagementApiChannel extends TenantEngineLifecycleCompon
     @Override
     public IAsset getAssetByToken(String token) throws SiteWhereException {
 	String tenantId = UserContext.getCurrentTenantId();
-	IAsset asset = getAssetCache().getCacheEntry(tenantId, token);
-	if (asset == null) {
-	    asset = getWrapped().getAssetByToken(token);
-	    getAssetCache().setCacheEntry(tenantId, token, asset);
-	}
-	return asset;
+	return getAssetCache().getCacheEntry(tenantId, token, getWrapped()::getAssetByToken);
     }
 
     /*
@@ -217,12 +207,7 @@ public class CachedAssetManagementApiChannel extends TenantEngineLifecycleCompon
     @Override
     public IAssetType getAssetType(UUID assetTypeId) throws SiteWhereException {
 	String tenantId = UserContext.getCurrentTenantId();
-	IAssetType assetType = getAssetTypeByIdCache().getCacheEntry(tenantId, assetTypeId);
-	if (assetType == null) {
-	    assetType = getWrapped().getAssetType(assetTypeId);
-	    getAssetTypeByIdCache().setCacheEntry(tenantId, assetTypeId, assetType);
-	}
-	return assetType;
+	return getAssetTypeByIdCache().getCacheEntry(tenantId, assetTypeId, getWrapped()::getAssetType);
     }
 
     /*
@@ -233,12 +218,7 @@ public class CachedAssetManagementApiChannel extends TenantEngineLifecycleCompon
     @Override
     public IAssetType getAssetTypeByToken(String token) throws SiteWhereException {
 	String tenantId = UserContext.getCurrentTenantId();
-	IAssetType assetType = getAssetTypeCache().getCacheEntry(tenantId, token);
-	if (assetType == null) {
-	    assetType = getWrapped().getAssetTypeByToken(token);
-	    getAssetTypeCache().setCacheEntry(tenantId, token, assetType);
-	}
-	return assetType;
+	return getAssetTypeCache().getCacheEntry(tenantId, token, getWrapped()::getAssetTypeByToken);
     }
 
     /*
@@ -16,6 +16,7 @@
 package com.sitewhere.grpc.client.batch;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import com.sitewhere.grpc.batch.BatchModelConverter;
 import com.sitewhere.grpc.client.GrpcUtils;
@@ -320,4 +321,71 @@ public class BatchManagementApiChannel extends MultitenantApiChannel<BatchManage
 	    throw GrpcUtils.handleClientMethodException(BatchManagementGrpc.getUpdateBatchElementMethod(), t);
 	}
     }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncBatchManagement#
+     * updateBatchOperationAsync(java.util.UUID,
+     * com.sitewhere.spi.batch.request.IBatchOperationUpdateRequest)
+     */
+    @Override
+    public CompletableFuture<IBatchOperation> updateBatchOperationAsync(UUID batchOperationId,
+	    IBatchOperationUpdateRequest request) {
+	return GrpcUtils.asyncUnaryCall(this, BatchManagementGrpc.getUpdateBatchOperationMethod(), (observer) -> {
+	    GUpdateBatchOperationRequest.Builder grequest = GUpdateBatchOperationRequest.newBuilder();
+	    grequest.setBatchOperationId(CommonModelConverter.asGrpcUuid(batchOperationId));
+	    grequest.setRequest(BatchModelConverter.asGrpcBatchOperationUpdateRequest(request));
+	    getGrpcChannel().getAsyncStub().updateBatchOperation(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasBatchOperation())
+		? BatchModelConverter.asApiBatchOperation(gresponse.getBatchOperation())
+		: null);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncBatchManagement#
+     * getBatchOperationAsync(java.util.UUID)
+     */
+    @Override
+    public CompletableFuture<IBatchOperation> getBatchOperationAsync(UUID batchOperationId) {
+	return GrpcUtils.asyncUnaryCall(this, BatchManagementGrpc.getGetBatchOperationMethod(), (observer) -> {
+	    GGetBatchOperationRequest.Builder grequest = GGetBatchOperationRequest.newBuilder();
+	    grequest.setBatchOperationId(CommonModelConverter.asGrpcUuid(batchOperationId));
+	    getGrpcChannel().getAsyncStub().getBatchOperation(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasBatchOperation())
+		? BatchModelConverter.asApiBatchOperation(gresponse.getBatchOperation())
+		: null);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncBatchManagement#
+     * createBatchElementAsync(java.util.UUID,
+     * com.sitewhere.spi.batch.request.IBatchElementCreateRequest)
+     */
+    @Override
+    public CompletableFuture<IBatchElement> createBatchElementAsync(UUID batchOperationId,
+	    IBatchElementCreateRequest request) {
+	return GrpcUtils.asyncUnaryCall(this, BatchManagementGrpc.getCreateBatchElementMethod(), (observer) -> {
+	    GCreateBatchElementRequest.Builder grequest = GCreateBatchElementRequest.newBuilder();
+	    grequest.setBatchOperationId(CommonModelConverter.asGrpcUuid(batchOperationId));
+	    grequest.setRequest(BatchModelConverter.asGrpcBatchElementUpdateRequest(request));
+	    getGrpcChannel().getAsyncStub().createBatchElement(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasElement()) ? BatchModelConverter.asApiBatchElement(gresponse.getElement())
+		: null);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncBatchManagement#
+     * updateBatchElementAsync(java.util.UUID,
+     * com.sitewhere.spi.batch.request.IBatchElementCreateRequest)
+     */
+    @Override
+    public CompletableFuture<IBatchElement> updateBatchElementAsync(UUID elementId,
+	    IBatchElementCreateRequest request) {
+	return GrpcUtils.asyncUnaryCall(this, BatchManagementGrpc.getUpdateBatchElementMethod(), (observer) -> {
+	    GUpdateBatchElementRequest.Builder grequest = GUpdateBatchElementRequest.newBuilder();
+	    grequest.setElementId(CommonModelConverter.asGrpcUuid(elementId));
+	    grequest.setRequest(BatchModelConverter.asGrpcBatchElementUpdateRequest(request));
+	    getGrpcChannel().getAsyncStub().updateBatchElement(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasElement()) ? BatchModelConverter.asApiBatchElement(gresponse.getElement())
+		: null);
+    }
 }
\ No newline at end of file
@@ -15,13 +15,6 @@
  */
 package com.sitewhere.grpc.client.common.kafka;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GMicroserviceLogMessage;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GStateUpdate;
@@ -32,9 +25,6 @@ import com.sitewhere.spi.SiteWhereException;
  */
 public class KafkaModelMarshaler {
 
-    /** Static logger instance */
-    private static Logger LOGGER = LoggerFactory.getLogger(KafkaModelMarshaler.class);
-
     /**
      * Build binary message for GRPC state update.
      * 
@@ -43,14 +33,10 @@ public class KafkaModelMarshaler {
      * @throws SiteWhereException
      */
     public static byte[] buildStateUpdateMessage(GStateUpdate grpc) throws SiteWhereException {
-	ByteArrayOutputStream output = new ByteArrayOutputStream();
 	try {
-	    grpc.writeTo(output);
-	    return output.toByteArray();
-	} catch (IOException e) {
+	    return grpc.toByteArray();
+	} catch (RuntimeException e) {
 	    throw new SiteWhereException("Unable to build state update message.", e);
-	} finally {
-	    closeQuietly(output);
 	}
     }
 
@@ -77,14 +63,10 @@ public class KafkaModelMarshaler {
      * @throws SiteWhereException
      */
     public static byte[] buildMicroserviceLogMessage(GMicroserviceLogMessage grpc) throws SiteWhereException {
-	ByteArrayOutputStream output = new ByteArrayOutputStream();
 	try {
-	    grpc.writeTo(output);
-	    return output.toByteArray();
-	} catch (IOException e) {
+	    return grpc.toByteArray();
+	} catch (RuntimeException e) {
 	    throw new SiteWhereException("Unable to build microservice log message.", e);
-	} finally {
-	    closeQuietly(output);
 	}
     }
 
@@ -102,14 +84,4 @@ public class KafkaModelMarshaler {
 	    throw new SiteWhereException("Unable to parse microservice log message.", e);
 	}
     }
-
-    protected static void closeQuietly(OutputStream output) {
-	if (output != null) {
-	    try {
-		output.close();
-	    } catch (IOException e) {
-		LOGGER.error("Unable to close output stream.", e);
-	    }
-	}
-    }
 }
\ No newline at end of file
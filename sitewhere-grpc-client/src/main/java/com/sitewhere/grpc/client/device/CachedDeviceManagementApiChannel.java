@@ -15,7 +15,10 @@
  */
 package com.sitewhere.grpc.client.device;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 import org.slf4j.Logger;
@@ -183,12 +186,7 @@ public class CachedDeviceManagementApiChannel extends TenantEngineLifecycleCompo
     @Override
     public IArea getAreaByToken(String token) throws SiteWhereException {
 	String tenantId = UserContext.getCurrentTenantId();
-	IArea area = getAreaCache().getCacheEntry(tenantId, token);
-	if (area == null) {
-	    area = getWrapped().getAreaByToken(token);
-	    getAreaCache().setCacheEntry(tenantId, token, area);
-	}
-	return area;
+	return getAreaCache().getCacheEntry(tenantId, token, getWrapped()::getAreaByToken);
     }
 
     /*
@@ -199,12 +197,7 @@ public class CachedDeviceManagementApiChannel extends TenantEngineLifecycleCompo
     @Override
     public IArea getArea(UUID id) throws SiteWhereException {
 	String tenantId = UserContext.getCurrentTenantId();
-	IArea area = getAreaByIdCache().getCacheEntry(tenantId, id);
-	if (area == null) {
-	    area = getWrapped().getArea(id);
-	    getAreaByIdCache().setCacheEntry(tenantId, id, area);
-	}
-	return area;
+	return getAreaByIdCache().getCacheEntry(tenantId, id, getWrapped()::getArea);
     }
 
     /*
@@ -267,12 +260,7 @@ public class CachedDeviceManagementApiChannel extends TenantEngineLifecycleCompo
     @Override
     public IDeviceType getDeviceTypeByToken(String token) throws SiteWhereException {
 	String tenantId = UserContext.getCurrentTenantId();
-	IDeviceType deviceType = getDeviceTypeCache().getCacheEntry(tenantId, token);
-	if (deviceType == null) {
-	    deviceType = getWrapped().getDeviceTypeByToken(token);
-	    getDeviceTypeCache().setCacheEntry(tenantId, token, deviceType);
-	}
-	return deviceType;
+	return getDeviceTypeCache().getCacheEntry(tenantId, token, getWrapped()::getDeviceTypeByToken);
     }
 
     /*
@@ -283,12 +271,7 @@ public class CachedDeviceManagementApiChannel extends TenantEngineLifecycleCompo
     @Override
     public IDeviceType getDeviceType(UUID id) throws SiteWhereException {
 	String tenantId = UserContext.getCurrentTenantId();
-	IDeviceType deviceType = getDeviceTypeByIdCache().getCacheEntry(tenantId, id);
-	if (deviceType == null) {
-	    deviceType = getWrapped().getDeviceType(id);
-	    getDeviceTypeByIdCache().setCacheEntry(tenantId, id, deviceType);
-	}
-	return deviceType;
+	return getDeviceTypeByIdCache().getCacheEntry(tenantId, id, getWrapped()::getDeviceType);
     }
 
     /*
@@ -312,12 +295,31 @@ public class CachedDeviceManagementApiChannel extends TenantEngineLifecycleCompo
     @Override
     public IDevice getDeviceByToken(String token) throws SiteWhereException {
 	String tenantId = UserContext.getCurrentTenantId();
-	IDevice device = getDeviceCache().getCacheEntry(tenantId, token);
-	if (device == null) {
-	    device = getWrapped().getDeviceByToken(token);
-	    getDeviceCache().setCacheEntry(tenantId, token, device);
+	return getDeviceCache().getCacheEntry(tenantId, token, getWrapped()::getDeviceByToken);
+    }
+
+    /**
+     * Get devices for a list of tokens. Cached entries are resolved in a single
+     * batch and only tokens that miss the cache are looked up via the wrapped API.
+     * Tokens with no matching device are not included in the result.
+     * 
+     * @param tokens
+     * @return
+     * @throws SiteWhereException
+     */
+    public Map<String, IDevice> getDevicesByToken(List<String> tokens) throws SiteWhereException {
+	String tenantId = UserContext.getCurrentTenantId();
+	Map<String, IDevice> devices = new HashMap<>(getDeviceCache().getCacheEntries(tenantId, tokens));
+	Map<String, IDevice> loaded = new HashMap<>();
+	for (String token : tokens) {
+	    if (!devices.containsKey(token) && !loaded.containsKey(token)) {
+		loaded.put(token, getWrapped().getDeviceByToken(token));
+	    }
 	}
-	return device;
+	getDeviceCache().setCacheEntries(tenantId, loaded);
+	devices.putAll(loaded);
+	devices.values().removeIf(Objects::isNull);
+	return devices;
     }
 
     /*
@@ -342,12 +344,7 @@ public class CachedDeviceManagementApiChannel extends TenantEngineLifecycleCompo
     @Override
     public IDevice getDevice(UUID deviceId) throws SiteWhereException {
 	String tenantId = UserContext.getCurrentTenantId();
-	IDevice device = getDeviceByIdCache().getCacheEntry(tenantId, deviceId);
-	if (device == null) {
-	    device = getWrapped().getDevice(deviceId);
-	    getDeviceByIdCache().setCacheEntry(tenantId, deviceId, device);
-	}
-	return device;
+	return getDeviceByIdCache().getCacheEntry(tenantId, deviceId, getWrapped()::getDevice);
     }
 
     /*
@@ -382,12 +379,7 @@ public class CachedDeviceManagementApiChannel extends TenantEngineLifecycleCompo
     @Override
     public IDeviceAssignment getDeviceAssignmentByToken(String token) throws SiteWhereException {
 	String tenantId = UserContext.getCurrentTenantId();
-	IDeviceAssignment assignment = getDeviceAssignmentCache().getCacheEntry(tenantId, token);
-	if (assignment == null) {
-	    assignment = getWrapped().getDeviceAssignmentByToken(token);
-	    getDeviceAssignmentCache().setCacheEntry(tenantId, token, assignment);
-	}
-	return assignment;
+	return getDeviceAssignmentCache().getCacheEntry(tenantId, token, getWrapped()::getDeviceAssignmentByToken);
     }
 
     /*
@@ -397,12 +389,32 @@ public class CachedDeviceManagementApiChannel extends TenantEngineLifecycleCompo
     @Override
     public IDeviceAssignment getDeviceAssignment(UUID id) throws SiteWhereException {
 	String tenantId = UserContext.getCurrentTenantId();
-	IDeviceAssignment assignment = getDeviceAssignmentByIdCache().getCacheEntry(tenantId, id);
-	if (assignment == null) {
-	    assignment = getWrapped().getDeviceAssignment(id);
-	    getDeviceAssignmentByIdCache().setCacheEntry(tenantId, id, assignment);
+	return getDeviceAssignmentByIdCache().getCacheEntry(tenantId, id, getWrapped()::getDeviceAssignment);
+    }
+
+    /**
+     * Get device assignments for a list of ids. Cached entries are resolved in a
+     * single batch and only ids that miss the cache are looked up via the wrapped
+     * API. Ids with no matching assignment are not included in the result.
+     * 
+     * @param ids
+     * @return
+     * @throws SiteWhereException
+     */
+    public Map<UUID, IDeviceAssignment> getDeviceAssignments(List<UUID> ids) throws SiteWhereException {
+	String tenantId = UserContext.getCurrentTenantId();
+	Map<UUID, IDeviceAssignment> assignments = new HashMap<>(
+		getDeviceAssignmentByIdCache().getCacheEntries(tenantId, ids));
+	Map<UUID, IDeviceAssignment> loaded = new HashMap<>();
+	for (UUID id : ids) {
+	    if (!assignments.containsKey(id) && !loaded.containsKey(id)) {
+		loaded.put(id, getWrapped().getDeviceAssignment(id));
+	    }
 	}
-	return assignment;
+	getDeviceAssignmentByIdCache().setCacheEntries(tenantId, loaded);
+	assignments.putAll(loaded);
+	assignments.values().removeIf(Objects::isNull);
+	return assignments;
     }
 
     /*
@@ -624,7 +636,11 @@ public class CachedDeviceManagementApiChannel extends TenantEngineLifecycleCompo
      */
     @Override
     public IDeviceAssignment createDeviceAssignment(IDeviceAssignmentCreateRequest request) throws SiteWhereException {
-	return getWrapped().createDeviceAssignment(request);
+	String tenantId = UserContext.getCurrentTenantId();
+	IDeviceAssignment created = getWrapped().createDeviceAssignment(request);
+	getDeviceAssignmentCache().setCacheEntry(tenantId, created.getToken(), created);
+	getDeviceAssignmentByIdCache().setCacheEntry(tenantId, created.getId(), created);
+	return created;
     }
 
     /*
@@ -1109,13 +1125,13 @@ public class CachedDeviceManagementApiChannel extends TenantEngineLifecycleCompo
 	private ICacheConfiguration areaConfiguration = new CacheConfiguration(60);
 
 	/** Cache configuration for device types */
-	private ICacheConfiguration deviceTypeConfiguration = new CacheConfiguration(60);
+	private ICacheConfiguration deviceTypeConfiguration = new CacheConfiguration(60, 1000, 30);
 
 	/** Cache configuration for devices */
-	private ICacheConfiguration deviceConfiguration = new CacheConfiguration(60);
+	private ICacheConfiguration deviceConfiguration = new CacheConfiguration(60, 10000, 10, 5);
 
 	/** Cache configuration for device assignments */
-	private ICacheConfiguration deviceAssignmentConfiguration = new CacheConfiguration(60);
+	private ICacheConfiguration deviceAssignmentConfiguration = new CacheConfiguration(60, 10000, 10, 5);
 
 	public ICacheConfiguration getAreaConfiguration() {
 	    return areaConfiguration;
@@ -17,6 +17,7 @@ package com.sitewhere.grpc.client.device;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import com.sitewhere.grpc.client.GrpcUtils;
 import com.sitewhere.grpc.client.MultitenantApiChannel;
@@ -1956,4 +1957,108 @@ public class DeviceManagementApiChannel extends MultitenantApiChannel<DeviceMana
 	    throw GrpcUtils.handleClientMethodException(DeviceManagementGrpc.getListDeviceGroupElementsMethod(), t);
 	}
     }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.client.spi.client.IAsyncDeviceManagement#getDeviceTypeAsync
+     * (java.util.UUID)
+     */
+    @Override
+    public CompletableFuture<IDeviceType> getDeviceTypeAsync(UUID id) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceManagementGrpc.getGetDeviceTypeMethod(), (observer) -> {
+	    GGetDeviceTypeRequest.Builder grequest = GGetDeviceTypeRequest.newBuilder();
+	    grequest.setId(CommonModelConverter.asGrpcUuid(id));
+	    getGrpcChannel().getAsyncStub().getDeviceType(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasDeviceType()) ? DeviceModelConverter.asApiDeviceType(gresponse.getDeviceType())
+		: null);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceManagement#
+     * getDeviceTypeByTokenAsync(java.lang.String)
+     */
+    @Override
+    public CompletableFuture<IDeviceType> getDeviceTypeByTokenAsync(String token) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceManagementGrpc.getGetDeviceTypeByTokenMethod(), (observer) -> {
+	    GGetDeviceTypeByTokenRequest.Builder grequest = GGetDeviceTypeByTokenRequest.newBuilder();
+	    grequest.setToken(token);
+	    getGrpcChannel().getAsyncStub().getDeviceTypeByToken(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasDeviceType()) ? DeviceModelConverter.asApiDeviceType(gresponse.getDeviceType())
+		: null);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.client.spi.client.IAsyncDeviceManagement#getDeviceAsync(
+     * java.util.UUID)
+     */
+    @Override
+    public CompletableFuture<IDevice> getDeviceAsync(UUID deviceId) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceManagementGrpc.getGetDeviceMethod(), (observer) -> {
+	    GGetDeviceRequest.Builder grequest = GGetDeviceRequest.newBuilder();
+	    grequest.setId(CommonModelConverter.asGrpcUuid(deviceId));
+	    getGrpcChannel().getAsyncStub().getDevice(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasDevice()) ? DeviceModelConverter.asApiDevice(gresponse.getDevice()) : null);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.client.spi.client.IAsyncDeviceManagement#getDeviceByTokenAsync
+     * (java.lang.String)
+     */
+    @Override
+    public CompletableFuture<IDevice> getDeviceByTokenAsync(String token) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceManagementGrpc.getGetDeviceByTokenMethod(), (observer) -> {
+	    GGetDeviceByTokenRequest.Builder grequest = GGetDeviceByTokenRequest.newBuilder();
+	    grequest.setToken(token);
+	    getGrpcChannel().getAsyncStub().getDeviceByToken(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasDevice()) ? DeviceModelConverter.asApiDevice(gresponse.getDevice()) : null);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceManagement#
+     * getDeviceAssignmentAsync(java.util.UUID)
+     */
+    @Override
+    public CompletableFuture<IDeviceAssignment> getDeviceAssignmentAsync(UUID id) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceManagementGrpc.getGetDeviceAssignmentMethod(), (observer) -> {
+	    GGetDeviceAssignmentRequest.Builder grequest = GGetDeviceAssignmentRequest.newBuilder();
+	    grequest.setId(CommonModelConverter.asGrpcUuid(id));
+	    getGrpcChannel().getAsyncStub().getDeviceAssignment(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasAssignment())
+		? DeviceModelConverter.asApiDeviceAssignment(gresponse.getAssignment())
+		: null);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceManagement#
+     * getDeviceAssignmentByTokenAsync(java.lang.String)
+     */
+    @Override
+    public CompletableFuture<IDeviceAssignment> getDeviceAssignmentByTokenAsync(String token) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceManagementGrpc.getGetDeviceAssignmentByTokenMethod(),
+		(observer) -> {
+		    GGetDeviceAssignmentByTokenRequest.Builder grequest = GGetDeviceAssignmentByTokenRequest
+			    .newBuilder();
+		    grequest.setToken(token);
+		    getGrpcChannel().getAsyncStub().getDeviceAssignmentByToken(grequest.build(), observer);
+		}, (gresponse) -> (gresponse.hasAssignment())
+			? DeviceModelConverter.asApiDeviceAssignment(gresponse.getAssignment())
+			: null);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceManagement#
+     * getActiveDeviceAssignmentsAsync(java.util.UUID)
+     */
+    @Override
+    public CompletableFuture<List<IDeviceAssignment>> getActiveDeviceAssignmentsAsync(UUID deviceId) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceManagementGrpc.getGetActiveAssignmentsForDeviceMethod(),
+		(observer) -> {
+		    GGetActiveAssignmentsForDeviceRequest.Builder grequest = GGetActiveAssignmentsForDeviceRequest
+			    .newBuilder();
+		    grequest.setId(CommonModelConverter.asGrpcUuid(deviceId));
+		    getGrpcChannel().getAsyncStub().getActiveAssignmentsForDevice(grequest.build(), observer);
+		}, (gresponse) -> DeviceModelConverter.asApiDeviceAssignments(gresponse.getAssignmentList()));
+    }
 }
\ No newline at end of file
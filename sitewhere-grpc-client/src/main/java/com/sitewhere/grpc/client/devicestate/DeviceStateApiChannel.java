@@ -17,6 +17,7 @@ package com.sitewhere.grpc.client.devicestate;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import com.sitewhere.grpc.client.GrpcUtils;
 import com.sitewhere.grpc.client.MultitenantApiChannel;
@@ -258,4 +259,98 @@ public class DeviceStateApiChannel extends MultitenantApiChannel<DeviceStateGrpc
 	    throw GrpcUtils.handleClientMethodException(DeviceStateGrpc.getDeleteDeviceStateMethod(), t);
 	}
     }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceStateManagement#
+     * createDeviceStateAsync(com.sitewhere.spi.device.state.request.
+     * IDeviceStateCreateRequest)
+     */
+    @Override
+    public CompletableFuture<IDeviceState> createDeviceStateAsync(IDeviceStateCreateRequest request) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceStateGrpc.getCreateDeviceStateMethod(), (observer) -> {
+	    GCreateDeviceStateRequest.Builder grequest = GCreateDeviceStateRequest.newBuilder();
+	    grequest.setRequest(DeviceStateModelConverter.asGrpcDeviceStateCreateRequest(request));
+	    getGrpcChannel().getAsyncStub().createDeviceState(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasDeviceState())
+		? DeviceStateModelConverter.asApiDeviceState(gresponse.getDeviceState())
+		: null);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceStateManagement#
+     * getDeviceStateAsync(java.util.UUID)
+     */
+    @Override
+    public CompletableFuture<IDeviceState> getDeviceStateAsync(UUID id) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceStateGrpc.getGetDeviceStateMethod(), (observer) -> {
+	    GGetDeviceStateRequest.Builder grequest = GGetDeviceStateRequest.newBuilder();
+	    grequest.setId(CommonModelConverter.asGrpcUuid(id));
+	    getGrpcChannel().getAsyncStub().getDeviceState(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasDeviceState())
+		? DeviceStateModelConverter.asApiDeviceState(gresponse.getDeviceState())
+		: null);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceStateManagement#
+     * getDeviceStateByDeviceAssignmentAsync(java.util.UUID)
+     */
+    @Override
+    public CompletableFuture<IDeviceState> getDeviceStateByDeviceAssignmentAsync(UUID assignmentId) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceStateGrpc.getGetDeviceStateByAssignmentMethod(), (observer) -> {
+	    GGetDeviceStateByAssignmentRequest.Builder grequest = GGetDeviceStateByAssignmentRequest.newBuilder();
+	    grequest.setDeviceAssignmentId(CommonModelConverter.asGrpcUuid(assignmentId));
+	    getGrpcChannel().getAsyncStub().getDeviceStateByAssignment(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasDeviceState())
+		? DeviceStateModelConverter.asApiDeviceState(gresponse.getDeviceState())
+		: null);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceStateManagement#
+     * getDeviceStatesForDeviceAsync(java.util.UUID)
+     */
+    @Override
+    public CompletableFuture<List<? extends IDeviceState>> getDeviceStatesForDeviceAsync(UUID deviceId) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceStateGrpc.getGetDeviceStatesByDeviceMethod(), (observer) -> {
+	    GGetDeviceStatesByDeviceRequest.Builder grequest = GGetDeviceStatesByDeviceRequest.newBuilder();
+	    grequest.setDeviceId(CommonModelConverter.asGrpcUuid(deviceId));
+	    getGrpcChannel().getAsyncStub().getDeviceStatesByDevice(grequest.build(), observer);
+	}, (gresponse) -> DeviceStateModelConverter.asApiDeviceStates(gresponse.getDeviceStatesList()));
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceStateManagement#
+     * updateDeviceStateAsync(java.util.UUID,
+     * com.sitewhere.spi.device.state.request.IDeviceStateCreateRequest)
+     */
+    @Override
+    public CompletableFuture<IDeviceState> updateDeviceStateAsync(UUID id, IDeviceStateCreateRequest request) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceStateGrpc.getUpdateDeviceStateMethod(), (observer) -> {
+	    GUpdateDeviceStateRequest.Builder grequest = GUpdateDeviceStateRequest.newBuilder();
+	    grequest.setId(CommonModelConverter.asGrpcUuid(id));
+	    grequest.setRequest(DeviceStateModelConverter.asGrpcDeviceStateCreateRequest(request));
+	    getGrpcChannel().getAsyncStub().updateDeviceState(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasDeviceState())
+		? DeviceStateModelConverter.asApiDeviceState(gresponse.getDeviceState())
+		: null);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.client.spi.client.IAsyncDeviceStateManagement#mergeAsync(
+     * java.util.UUID,
+     * com.sitewhere.spi.device.state.request.IDeviceStateEventMergeRequest)
+     */
+    @Override
+    public CompletableFuture<IDeviceState> mergeAsync(UUID id, IDeviceStateEventMergeRequest events) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceStateGrpc.getMergeDeviceStateMethod(), (observer) -> {
+	    GMergeDeviceStateRequest.Builder grequest = GMergeDeviceStateRequest.newBuilder();
+	    grequest.setId(CommonModelConverter.asGrpcUuid(id));
+	    grequest.setRequest(DeviceStateModelConverter.asGrpcDeviceStateEventMergeRequest(events));
+	    getGrpcChannel().getAsyncStub().mergeDeviceState(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasDeviceState())
+		? DeviceStateModelConverter.asApiDeviceState(gresponse.getDeviceState())
+		: null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,491 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.grpc.client.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.sitewhere.grpc.client.spi.client.IDeviceEventManagementApiChannel;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.microservice.security.SiteWhereAuthentication;
+import com.sitewhere.microservice.security.UserContext;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.IDeviceAlert;
+import com.sitewhere.spi.device.event.IDeviceEventBatch;
+import com.sitewhere.spi.device.event.IDeviceEventBatchResponse;
+import com.sitewhere.spi.device.event.IDeviceEventContext;
+import com.sitewhere.spi.device.event.IDeviceLocation;
+import com.sitewhere.spi.device.event.IDeviceMeasurement;
+import com.sitewhere.spi.device.event.request.IDeviceAlertCreateRequest;
+import com.sitewhere.spi.device.event.request.IDeviceLocationCreateRequest;
+import com.sitewhere.spi.device.event.request.IDeviceMeasurementCreateRequest;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
+
+import io.prometheus.client.Histogram;
+
+/**
+ * Collects measurement, location and alert create requests and sends them to
+ * event management through
+ * {@link IDeviceEventManagementApiChannel#addDeviceEventBatchAsync(IDeviceEventContext, IDeviceEventBatch)}
+ * rather than as one call per request. Requests are collected per tenant, so
+ * size and linger thresholds apply to all traffic for a tenant rather than to
+ * each device assignment. A batch is sent once it holds the configured number
+ * of events or once the linger time has passed since its first request,
+ * whichever comes first. Each caller gets a future that completes with the
+ * events created for its own requests.
+ * 
+ * The event management API only accepts batches for a single event context,
+ * so sending a tenant batch still makes one call per device assignment it
+ * contains. Batching only reduces the number of calls when the same device
+ * assignment sends several requests within the linger time. Traffic spread
+ * over many devices with one request each gains nothing, and only waits for
+ * the linger time.
+ * 
+ * Requests made without a tenant, or while the batcher is not running, are
+ * sent right away as a batch of their own.
+ */
+public class DeviceEventBatcher extends TenantEngineLifecycleComponent {
+
+    /** Tenant label used when no tenant is set */
+    private static final String GLOBAL_TENANT = "_global_";
+
+    /** Histogram of events sent per batch */
+    private static final Histogram BATCH_SIZE = TenantEngineLifecycleComponent
+	    .createHistogramMetric("event_batch_size", "Number of events sent in each batched call");
+
+    /** Wrapped API channel */
+    private IDeviceEventManagementApiChannel<?> wrapped;
+
+    /** Batch settings */
+    private BatchSettings batchSettings;
+
+    /** Batches being collected indexed by tenant id */
+    private ConcurrentMap<String, TenantBatch> pending = new ConcurrentHashMap<>();
+
+    /** Sends batches once linger time expires */
+    private volatile ScheduledExecutorService scheduler;
+
+    public DeviceEventBatcher(IDeviceEventManagementApiChannel<?> wrapped, BatchSettings batchSettings) {
+	this.wrapped = wrapped;
+	this.batchSettings = batchSettings;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#start(com.sitewhere.spi.
+     * server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	this.scheduler = Executors.newSingleThreadScheduledExecutor(new BatcherThreadFactory());
+    }
+
+    /*
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#stop(com.sitewhere.spi.
+     * server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	// Shut down first so new requests are sent right away.
+	if (getScheduler() != null) {
+	    getScheduler().shutdown();
+	}
+	for (String tenantId : new ArrayList<>(getPending().keySet())) {
+	    TenantBatch batch = getPending().remove(tenantId);
+	    if (batch != null) {
+		send(batch);
+	    }
+	}
+    }
+
+    /**
+     * Queue measurements to be added in a batch.
+     * 
+     * @param context
+     * @param measurements
+     * @return
+     */
+    public CompletableFuture<List<? extends IDeviceMeasurement>> addDeviceMeasurements(IDeviceEventContext context,
+	    IDeviceMeasurementCreateRequest... measurements) {
+	CompletableFuture<List<? extends IDeviceMeasurement>> future = new CompletableFuture<>();
+	enqueue(context, (batch) -> {
+	    int start = batch.getMeasurements().size();
+	    batch.getMeasurements().addAll(Arrays.asList(measurements));
+	    batch.getWaiters().add(new Waiter<IDeviceMeasurement>(IDeviceEventBatchResponse::getCreatedMeasurements,
+		    start, measurements.length, future));
+	    return measurements.length;
+	});
+	return future;
+    }
+
+    /**
+     * Queue locations to be added in a batch.
+     * 
+     * @param context
+     * @param locations
+     * @return
+     */
+    public CompletableFuture<List<? extends IDeviceLocation>> addDeviceLocations(IDeviceEventContext context,
+	    IDeviceLocationCreateRequest... locations) {
+	CompletableFuture<List<? extends IDeviceLocation>> future = new CompletableFuture<>();
+	enqueue(context, (batch) -> {
+	    int start = batch.getLocations().size();
+	    batch.getLocations().addAll(Arrays.asList(locations));
+	    batch.getWaiters().add(new Waiter<IDeviceLocation>(IDeviceEventBatchResponse::getCreatedLocations, start,
+		    locations.length, future));
+	    return locations.length;
+	});
+	return future;
+    }
+
+    /**
+     * Queue alerts to be added in a batch.
+     * 
+     * @param context
+     * @param alerts
+     * @return
+     */
+    public CompletableFuture<List<? extends IDeviceAlert>> addDeviceAlerts(IDeviceEventContext context,
+	    IDeviceAlertCreateRequest... alerts) {
+	CompletableFuture<List<? extends IDeviceAlert>> future = new CompletableFuture<>();
+	enqueue(context, (batch) -> {
+	    int start = batch.getAlerts().size();
+	    batch.getAlerts().addAll(Arrays.asList(alerts));
+	    batch.getWaiters().add(new Waiter<IDeviceAlert>(IDeviceEventBatchResponse::getCreatedAlerts, start,
+		    alerts.length, future));
+	    return alerts.length;
+	});
+	return future;
+    }
+
+    /**
+     * Add requests to the batch for the current tenant. The first request for a
+     * batch schedules it to be sent after the linger time. A batch that reaches
+     * the maximum size is sent immediately.
+     * 
+     * @param context
+     * @param adder
+     */
+    protected void enqueue(IDeviceEventContext context, Function<PendingBatch, Integer> adder) {
+	String tenantId = UserContext.getCurrentTenantId();
+	ScheduledExecutorService scheduler = getScheduler();
+	if ((tenantId == null) || (scheduler == null) || scheduler.isShutdown()) {
+	    TenantBatch single = new TenantBatch(tenantId, UserContext.getCurrentUser());
+	    single.add(context, adder);
+	    send(single);
+	    return;
+	}
+	TenantBatch[] ready = new TenantBatch[1];
+	getPending().compute(tenantId, (k, batch) -> {
+	    boolean rejected = false;
+	    if (batch == null) {
+		batch = new TenantBatch(k, UserContext.getCurrentUser());
+		TenantBatch created = batch;
+		try {
+		    scheduler.schedule(() -> {
+			if (getPending().remove(k, created)) {
+			    send(created);
+			}
+		    }, getBatchSettings().getLingerMillis(), TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+		    rejected = true;
+		}
+	    }
+	    batch.add(context, adder);
+	    if (rejected || (batch.getEventCount() >= getBatchSettings().getMaxBatchSize())) {
+		ready[0] = batch;
+		return null;
+	    }
+	    return batch;
+	});
+	if (ready[0] != null) {
+	    send(ready[0]);
+	}
+    }
+
+    /**
+     * Send each device assignment batch using the user context captured when
+     * the tenant batch was started and complete waiting callers once a response
+     * arrives.
+     * 
+     * @param batch
+     */
+    protected void send(TenantBatch batch) {
+	String tenant = (batch.getTenantId() != null) ? batch.getTenantId() : GLOBAL_TENANT;
+	SiteWhereAuthentication previous = UserContext.getCurrentUser();
+	UserContext.setContext(batch.getAuthentication());
+	try {
+	    for (PendingBatch assignment : batch.getAssignments().values()) {
+		BATCH_SIZE.labels(getMicroservice().getIdentifier().getPath(),
+			getMicroservice().getInstanceSettings().getKubernetesPodAddress(), tenant)
+			.observe(assignment.getEventCount());
+		getWrapped().addDeviceEventBatchAsync(assignment.getContext(), assignment)
+			.whenComplete((response, t) -> {
+			    for (Waiter<?> waiter : assignment.getWaiters()) {
+				if (t != null) {
+				    waiter.getFuture().completeExceptionally(t);
+				} else {
+				    waiter.complete(response);
+				}
+			    }
+			});
+	    }
+	} finally {
+	    if (previous != null) {
+		UserContext.setContext(previous);
+	    } else {
+		UserContext.clearContext();
+	    }
+	}
+    }
+
+    /**
+     * Requests collected for a tenant, grouped by device assignment.
+     */
+    protected static class TenantBatch {
+
+	/** Tenant id */
+	private String tenantId;
+
+	/** User context of the first caller */
+	private SiteWhereAuthentication authentication;
+
+	/** Batches indexed by device assignment id */
+	private Map<UUID, PendingBatch> assignments = new LinkedHashMap<>();
+
+	/** Number of events in batch */
+	private int eventCount;
+
+	public TenantBatch(String tenantId, SiteWhereAuthentication authentication) {
+	    this.tenantId = tenantId;
+	    this.authentication = authentication;
+	}
+
+	/**
+	 * Add requests to the batch for the context assignment.
+	 * 
+	 * @param context
+	 * @param adder
+	 */
+	public void add(IDeviceEventContext context, Function<PendingBatch, Integer> adder) {
+	    PendingBatch batch = getAssignments().computeIfAbsent(context.getDeviceAssignmentId(),
+		    (id) -> new PendingBatch(context));
+	    this.eventCount += adder.apply(batch);
+	}
+
+	public String getTenantId() {
+	    return tenantId;
+	}
+
+	public SiteWhereAuthentication getAuthentication() {
+	    return authentication;
+	}
+
+	public Map<UUID, PendingBatch> getAssignments() {
+	    return assignments;
+	}
+
+	public int getEventCount() {
+	    return eventCount;
+	}
+    }
+
+    /**
+     * Batch of requests being collected for a single event context.
+     */
+    protected static class PendingBatch implements IDeviceEventBatch {
+
+	/** Event context shared by all requests */
+	private IDeviceEventContext context;
+
+	/** Measurements to add */
+	private List<IDeviceMeasurementCreateRequest> measurements = new ArrayList<>();
+
+	/** Locations to add */
+	private List<IDeviceLocationCreateRequest> locations = new ArrayList<>();
+
+	/** Alerts to add */
+	private List<IDeviceAlertCreateRequest> alerts = new ArrayList<>();
+
+	/** Callers waiting on the response */
+	private List<Waiter<?>> waiters = new ArrayList<>();
+
+	public PendingBatch(IDeviceEventContext context) {
+	    this.context = context;
+	}
+
+	/*
+	 * @see com.sitewhere.spi.device.event.IDeviceEventBatch#getDeviceToken()
+	 */
+	@Override
+	public String getDeviceToken() {
+	    return getContext().getDeviceToken();
+	}
+
+	/*
+	 * @see com.sitewhere.spi.device.event.IDeviceEventBatch#getMeasurements()
+	 */
+	@Override
+	public List<IDeviceMeasurementCreateRequest> getMeasurements() {
+	    return measurements;
+	}
+
+	/*
+	 * @see com.sitewhere.spi.device.event.IDeviceEventBatch#getLocations()
+	 */
+	@Override
+	public List<IDeviceLocationCreateRequest> getLocations() {
+	    return locations;
+	}
+
+	/*
+	 * @see com.sitewhere.spi.device.event.IDeviceEventBatch#getAlerts()
+	 */
+	@Override
+	public List<IDeviceAlertCreateRequest> getAlerts() {
+	    return alerts;
+	}
+
+	public IDeviceEventContext getContext() {
+	    return context;
+	}
+
+	public List<Waiter<?>> getWaiters() {
+	    return waiters;
+	}
+
+	public int getEventCount() {
+	    return getMeasurements().size() + getLocations().size() + getAlerts().size();
+	}
+    }
+
+    /**
+     * Caller waiting on a range of the events created by a batch.
+     * 
+     * @param <T>
+     */
+    protected static class Waiter<T> {
+
+	/** Extracts created events of the requested type */
+	private Function<IDeviceEventBatchResponse, List<? extends T>> created;
+
+	/** Index of first event for caller */
+	private int start;
+
+	/** Number of events for caller */
+	private int count;
+
+	/** Future completed with created events */
+	private CompletableFuture<List<? extends T>> future;
+
+	public Waiter(Function<IDeviceEventBatchResponse, List<? extends T>> created, int start, int count,
+		CompletableFuture<List<? extends T>> future) {
+	    this.created = created;
+	    this.start = start;
+	    this.count = count;
+	    this.future = future;
+	}
+
+	/**
+	 * Complete the future with the events created for this caller.
+	 * 
+	 * @param response
+	 */
+	public void complete(IDeviceEventBatchResponse response) {
+	    if (response == null) {
+		getFuture().completeExceptionally(new SiteWhereException("No response received for batch."));
+		return;
+	    }
+	    List<? extends T> all = created.apply(response);
+	    if ((all == null) || (all.size() < start + count)) {
+		getFuture().completeExceptionally(
+			new SiteWhereException("Batch response did not include all requested events."));
+		return;
+	    }
+	    getFuture().complete(new ArrayList<T>(all.subList(start, start + count)));
+	}
+
+	public CompletableFuture<List<? extends T>> getFuture() {
+	    return future;
+	}
+    }
+
+    /**
+     * Settings that control when batches are sent.
+     */
+    public static class BatchSettings {
+
+	/** Maximum number of events in a batch */
+	private int maxBatchSize = 100;
+
+	/** Maximum time a request waits for a batch to fill */
+	private long lingerMillis = 10;
+
+	public int getMaxBatchSize() {
+	    return maxBatchSize;
+	}
+
+	public void setMaxBatchSize(int maxBatchSize) {
+	    this.maxBatchSize = maxBatchSize;
+	}
+
+	public long getLingerMillis() {
+	    return lingerMillis;
+	}
+
+	public void setLingerMillis(long lingerMillis) {
+	    this.lingerMillis = lingerMillis;
+	}
+    }
+
+    public IDeviceEventManagementApiChannel<?> getWrapped() {
+	return wrapped;
+    }
+
+    public BatchSettings getBatchSettings() {
+	return batchSettings;
+    }
+
+    protected ConcurrentMap<String, TenantBatch> getPending() {
+	return pending;
+    }
+
+    protected ScheduledExecutorService getScheduler() {
+	return scheduler;
+    }
+
+    /** Used for naming batcher thread */
+    private class BatcherThreadFactory implements ThreadFactory {
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Event Batcher");
+	}
+    }
+}
\ No newline at end of file
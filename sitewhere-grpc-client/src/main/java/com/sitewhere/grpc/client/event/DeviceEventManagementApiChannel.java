@@ -17,6 +17,7 @@ package com.sitewhere.grpc.client.event;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import com.sitewhere.grpc.client.GrpcUtils;
 import com.sitewhere.grpc.client.MultitenantApiChannel;
@@ -81,19 +82,75 @@ import com.sitewhere.spi.microservice.grpc.GrpcServiceIdentifier;
 import com.sitewhere.spi.microservice.grpc.IGrpcServiceIdentifier;
 import com.sitewhere.spi.microservice.grpc.IGrpcSettings;
 import com.sitewhere.spi.microservice.instance.IInstanceSettings;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.search.IDateRangeSearchCriteria;
 import com.sitewhere.spi.search.ISearchResults;
 
 /**
  * Supports SiteWhere device event management APIs on top of a
- * {@link DeviceEventManagementGrpcChannel}.
+ * {@link DeviceEventManagementGrpcChannel}. If batch settings are passed, the
+ * non-blocking measurement, location and alert create calls are collected by a
+ * {@link DeviceEventBatcher} and sent as event batches.
  */
 public class DeviceEventManagementApiChannel extends MultitenantApiChannel<DeviceEventManagementGrpcChannel>
 	implements IDeviceEventManagementApiChannel<DeviceEventManagementGrpcChannel> {
 
+    /** Batch settings or null if batching is disabled */
+    private DeviceEventBatcher.BatchSettings batchSettings;
+
+    /** Batches event creates if enabled */
+    private DeviceEventBatcher batcher;
+
     public DeviceEventManagementApiChannel(IInstanceSettings settings) {
+	this(settings, null);
+    }
+
+    public DeviceEventManagementApiChannel(IInstanceSettings settings,
+	    DeviceEventBatcher.BatchSettings batchSettings) {
 	super(settings, MicroserviceIdentifier.EventManagement, GrpcServiceIdentifier.EventManagement,
 		IGrpcSettings.DEFAULT_API_PORT);
+	this.batchSettings = batchSettings;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.client.ApiChannel#initialize(com.sitewhere.spi.microservice
+     * .lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.initialize(monitor);
+	if (getBatchSettings() != null) {
+	    this.batcher = new DeviceEventBatcher(this, getBatchSettings());
+	    initializeNestedComponent(getBatcher(), monitor, true);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.client.ApiChannel#start(com.sitewhere.spi.microservice.
+     * lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.start(monitor);
+	if (getBatcher() != null) {
+	    startNestedComponent(getBatcher(), monitor, true);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.client.ApiChannel#stop(com.sitewhere.spi.microservice.
+     * lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	// Flush pending batches before the channel goes away.
+	if (getBatcher() != null) {
+	    stopNestedComponent(getBatcher(), monitor);
+	}
+	super.stop(monitor);
     }
 
     /*
@@ -521,4 +578,166 @@ public class DeviceEventManagementApiChannel extends MultitenantApiChannel<Devic
 		    t);
 	}
     }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceEventManagement#
+     * addDeviceEventBatchAsync(com.sitewhere.spi.device.event.IDeviceEventContext,
+     * com.sitewhere.spi.device.event.IDeviceEventBatch)
+     */
+    @Override
+    public CompletableFuture<IDeviceEventBatchResponse> addDeviceEventBatchAsync(IDeviceEventContext context,
+	    IDeviceEventBatch batch) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceEventManagementGrpc.getAddDeviceEventBatchMethod(), (observer) -> {
+	    GAddDeviceEventBatchRequest.Builder grequest = GAddDeviceEventBatchRequest.newBuilder();
+	    grequest.setContext(EventModelConverter.asGrpcDeviceEventContext(context));
+	    grequest.setRequest(EventModelConverter.asGrpcDeviceEventBatch(batch));
+	    getGrpcChannel().getAsyncStub().addDeviceEventBatch(grequest.build(), observer);
+	}, (gresponse) -> EventModelConverter.asApiDeviceEventBatchResponse(gresponse.getResponse()));
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceEventManagement#
+     * getDeviceEventByIdAsync(java.util.UUID)
+     */
+    @Override
+    public CompletableFuture<IDeviceEvent> getDeviceEventByIdAsync(UUID eventId) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceEventManagementGrpc.getGetDeviceEventByIdMethod(), (observer) -> {
+	    GGetDeviceEventByIdRequest.Builder grequest = GGetDeviceEventByIdRequest.newBuilder();
+	    grequest.setEventId(CommonModelConverter.asGrpcUuid(eventId));
+	    getGrpcChannel().getAsyncStub().getDeviceEventById(grequest.build(), observer);
+	}, (gresponse) -> (gresponse.hasEvent()) ? EventModelConverter.asApiGenericDeviceEvent(gresponse.getEvent())
+		: null);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceEventManagement#
+     * addDeviceMeasurementsAsync(com.sitewhere.spi.device.event.
+     * IDeviceEventContext,
+     * com.sitewhere.spi.device.event.request.IDeviceMeasurementCreateRequest[])
+     */
+    @Override
+    public CompletableFuture<List<? extends IDeviceMeasurement>> addDeviceMeasurementsAsync(
+	    IDeviceEventContext context, IDeviceMeasurementCreateRequest... measurement) {
+	if (getBatcher() != null) {
+	    return getBatcher().addDeviceMeasurements(context, measurement);
+	}
+	return GrpcUtils.asyncUnaryCall(this, DeviceEventManagementGrpc.getAddMeasurementsMethod(), (observer) -> {
+	    GAddMeasurementsRequest.Builder grequest = GAddMeasurementsRequest.newBuilder();
+	    grequest.setContext(EventModelConverter.asGrpcDeviceEventContext(context));
+	    for (IDeviceMeasurementCreateRequest request : measurement) {
+		grequest.addRequests(EventModelConverter.asGrpcDeviceMeasurementCreateRequest(request));
+	    }
+	    getGrpcChannel().getAsyncStub().addMeasurements(grequest.build(), observer);
+	}, (gresponse) -> EventModelConverter.asApiDeviceMeasurements(gresponse.getMeasurementsList()));
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceEventManagement#
+     * addDeviceLocationsAsync(com.sitewhere.spi.device.event.IDeviceEventContext,
+     * com.sitewhere.spi.device.event.request.IDeviceLocationCreateRequest[])
+     */
+    @Override
+    public CompletableFuture<List<? extends IDeviceLocation>> addDeviceLocationsAsync(IDeviceEventContext context,
+	    IDeviceLocationCreateRequest... location) {
+	if (getBatcher() != null) {
+	    return getBatcher().addDeviceLocations(context, location);
+	}
+	return GrpcUtils.asyncUnaryCall(this, DeviceEventManagementGrpc.getAddLocationsMethod(), (observer) -> {
+	    GAddLocationsRequest.Builder grequest = GAddLocationsRequest.newBuilder();
+	    grequest.setContext(EventModelConverter.asGrpcDeviceEventContext(context));
+	    for (IDeviceLocationCreateRequest request : location) {
+		grequest.addRequests(EventModelConverter.asGrpcDeviceLocationCreateRequest(request));
+	    }
+	    getGrpcChannel().getAsyncStub().addLocations(grequest.build(), observer);
+	}, (gresponse) -> EventModelConverter.asApiDeviceLocations(gresponse.getLocationsList()));
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceEventManagement#
+     * addDeviceAlertsAsync(com.sitewhere.spi.device.event.IDeviceEventContext,
+     * com.sitewhere.spi.device.event.request.IDeviceAlertCreateRequest[])
+     */
+    @Override
+    public CompletableFuture<List<? extends IDeviceAlert>> addDeviceAlertsAsync(IDeviceEventContext context,
+	    IDeviceAlertCreateRequest... alert) {
+	if (getBatcher() != null) {
+	    return getBatcher().addDeviceAlerts(context, alert);
+	}
+	return GrpcUtils.asyncUnaryCall(this, DeviceEventManagementGrpc.getAddAlertsMethod(), (observer) -> {
+	    GAddAlertsRequest.Builder grequest = GAddAlertsRequest.newBuilder();
+	    grequest.setContext(EventModelConverter.asGrpcDeviceEventContext(context));
+	    for (IDeviceAlertCreateRequest request : alert) {
+		grequest.addRequests(EventModelConverter.asGrpcDeviceAlertCreateRequest(request));
+	    }
+	    getGrpcChannel().getAsyncStub().addAlerts(grequest.build(), observer);
+	}, (gresponse) -> EventModelConverter.asApiDeviceAlerts(gresponse.getAlertsList()));
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceEventManagement#
+     * addDeviceCommandInvocationsAsync(com.sitewhere.spi.device.event.
+     * IDeviceEventContext,
+     * com.sitewhere.spi.device.event.request.IDeviceCommandInvocationCreateRequest
+     * [])
+     */
+    @Override
+    public CompletableFuture<List<? extends IDeviceCommandInvocation>> addDeviceCommandInvocationsAsync(
+	    IDeviceEventContext context, IDeviceCommandInvocationCreateRequest... invocation) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceEventManagementGrpc.getAddCommandInvocationsMethod(),
+		(observer) -> {
+		    GAddCommandInvocationsRequest.Builder grequest = GAddCommandInvocationsRequest.newBuilder();
+		    grequest.setContext(EventModelConverter.asGrpcDeviceEventContext(context));
+		    for (IDeviceCommandInvocationCreateRequest request : invocation) {
+			grequest.addRequests(EventModelConverter.asGrpcDeviceCommandInvocationCreateRequest(request));
+		    }
+		    getGrpcChannel().getAsyncStub().addCommandInvocations(grequest.build(), observer);
+		}, (gresponse) -> EventModelConverter.asApiDeviceCommandInvocations(gresponse.getInvocationsList()));
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceEventManagement#
+     * addDeviceCommandResponsesAsync(com.sitewhere.spi.device.event.
+     * IDeviceEventContext,
+     * com.sitewhere.spi.device.event.request.IDeviceCommandResponseCreateRequest[])
+     */
+    @Override
+    public CompletableFuture<List<? extends IDeviceCommandResponse>> addDeviceCommandResponsesAsync(
+	    IDeviceEventContext context, IDeviceCommandResponseCreateRequest... cresponse) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceEventManagementGrpc.getAddCommandResponsesMethod(),
+		(observer) -> {
+		    GAddCommandResponsesRequest.Builder grequest = GAddCommandResponsesRequest.newBuilder();
+		    grequest.setContext(EventModelConverter.asGrpcDeviceEventContext(context));
+		    for (IDeviceCommandResponseCreateRequest request : cresponse) {
+			grequest.addRequests(EventModelConverter.asGrpcDeviceCommandResponseCreateRequest(request));
+		    }
+		    getGrpcChannel().getAsyncStub().addCommandResponses(grequest.build(), observer);
+		}, (gresponse) -> EventModelConverter.asApiDeviceCommandResponses(gresponse.getResponsesList()));
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.spi.client.IAsyncDeviceEventManagement#
+     * addDeviceStateChangesAsync(com.sitewhere.spi.device.event.
+     * IDeviceEventContext,
+     * com.sitewhere.spi.device.event.request.IDeviceStateChangeCreateRequest[])
+     */
+    @Override
+    public CompletableFuture<List<? extends IDeviceStateChange>> addDeviceStateChangesAsync(
+	    IDeviceEventContext context, IDeviceStateChangeCreateRequest... state) {
+	return GrpcUtils.asyncUnaryCall(this, DeviceEventManagementGrpc.getAddStateChangesMethod(), (observer) -> {
+	    GAddStateChangesRequest.Builder grequest = GAddStateChangesRequest.newBuilder();
+	    grequest.setContext(EventModelConverter.asGrpcDeviceEventContext(context));
+	    for (IDeviceStateChangeCreateRequest request : state) {
+		grequest.addRequests(EventModelConverter.asGrpcDeviceStateChangeCreateRequest(request));
+	    }
+	    getGrpcChannel().getAsyncStub().addStateChanges(grequest.build(), observer);
+	}, (gresponse) -> EventModelConverter.asApiDeviceStateChanges(gresponse.getStateChangesList()));
+    }
+
+    public DeviceEventBatcher.BatchSettings getBatchSettings() {
+	return batchSettings;
+    }
+
+    protected DeviceEventBatcher getBatcher() {
+	return batcher;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.grpc.client.spi.client;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.sitewhere.spi.batch.IBatchElement;
+import com.sitewhere.spi.batch.IBatchOperation;
+import com.sitewhere.spi.batch.request.IBatchElementCreateRequest;
+import com.sitewhere.spi.batch.request.IBatchOperationUpdateRequest;
+
+/**
+ * Non-blocking variants of the batch management operations called for each
+ * element while a batch operation is processed. Futures complete exceptionally
+ * with the same exceptions thrown by the blocking API.
+ */
+public interface IAsyncBatchManagement {
+
+    /**
+     * Update an existing batch operation.
+     * 
+     * @param batchOperationId
+     * @param request
+     * @return
+     */
+    public CompletableFuture<IBatchOperation> updateBatchOperationAsync(UUID batchOperationId,
+	    IBatchOperationUpdateRequest request);
+
+    /**
+     * Get batch operation by unique id.
+     * 
+     * @param batchOperationId
+     * @return
+     */
+    public CompletableFuture<IBatchOperation> getBatchOperationAsync(UUID batchOperationId);
+
+    /**
+     * Create a batch element for a batch operation.
+     * 
+     * @param batchOperationId
+     * @param request
+     * @return
+     */
+    public CompletableFuture<IBatchElement> createBatchElementAsync(UUID batchOperationId,
+	    IBatchElementCreateRequest request);
+
+    /**
+     * Update an existing batch element.
+     * 
+     * @param elementId
+     * @param request
+     * @return
+     */
+    public CompletableFuture<IBatchElement> updateBatchElementAsync(UUID elementId,
+	    IBatchElementCreateRequest request);
+}
\ No newline at end of file
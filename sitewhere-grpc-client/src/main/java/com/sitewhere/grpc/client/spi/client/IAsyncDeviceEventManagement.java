@@ -0,0 +1,123 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.grpc.client.spi.client;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.sitewhere.spi.device.event.IDeviceAlert;
+import com.sitewhere.spi.device.event.IDeviceCommandInvocation;
+import com.sitewhere.spi.device.event.IDeviceCommandResponse;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+import com.sitewhere.spi.device.event.IDeviceEventBatch;
+import com.sitewhere.spi.device.event.IDeviceEventBatchResponse;
+import com.sitewhere.spi.device.event.IDeviceEventContext;
+import com.sitewhere.spi.device.event.IDeviceLocation;
+import com.sitewhere.spi.device.event.IDeviceMeasurement;
+import com.sitewhere.spi.device.event.IDeviceStateChange;
+import com.sitewhere.spi.device.event.request.IDeviceAlertCreateRequest;
+import com.sitewhere.spi.device.event.request.IDeviceCommandInvocationCreateRequest;
+import com.sitewhere.spi.device.event.request.IDeviceCommandResponseCreateRequest;
+import com.sitewhere.spi.device.event.request.IDeviceLocationCreateRequest;
+import com.sitewhere.spi.device.event.request.IDeviceMeasurementCreateRequest;
+import com.sitewhere.spi.device.event.request.IDeviceStateChangeCreateRequest;
+
+/**
+ * Non-blocking variants of the device event management operations used on
+ * hot paths. Futures complete exceptionally with the same exceptions thrown by
+ * the blocking API.
+ */
+public interface IAsyncDeviceEventManagement {
+
+    /**
+     * Add a batch of events for a device.
+     * 
+     * @param context
+     * @param batch
+     * @return
+     */
+    public CompletableFuture<IDeviceEventBatchResponse> addDeviceEventBatchAsync(IDeviceEventContext context,
+	    IDeviceEventBatch batch);
+
+    /**
+     * Get a device event by unique id.
+     * 
+     * @param eventId
+     * @return
+     */
+    public CompletableFuture<IDeviceEvent> getDeviceEventByIdAsync(UUID eventId);
+
+    /**
+     * Add measurements for a device.
+     * 
+     * @param context
+     * @param measurement
+     * @return
+     */
+    public CompletableFuture<List<? extends IDeviceMeasurement>> addDeviceMeasurementsAsync(
+	    IDeviceEventContext context, IDeviceMeasurementCreateRequest... measurement);
+
+    /**
+     * Add locations for a device.
+     * 
+     * @param context
+     * @param location
+     * @return
+     */
+    public CompletableFuture<List<? extends IDeviceLocation>> addDeviceLocationsAsync(IDeviceEventContext context,
+	    IDeviceLocationCreateRequest... location);
+
+    /**
+     * Add alerts for a device.
+     * 
+     * @param context
+     * @param alert
+     * @return
+     */
+    public CompletableFuture<List<? extends IDeviceAlert>> addDeviceAlertsAsync(IDeviceEventContext context,
+	    IDeviceAlertCreateRequest... alert);
+
+    /**
+     * Add command invocations for a device.
+     * 
+     * @param context
+     * @param invocation
+     * @return
+     */
+    public CompletableFuture<List<? extends IDeviceCommandInvocation>> addDeviceCommandInvocationsAsync(
+	    IDeviceEventContext context, IDeviceCommandInvocationCreateRequest... invocation);
+
+    /**
+     * Add command responses for a device.
+     * 
+     * @param context
+     * @param response
+     * @return
+     */
+    public CompletableFuture<List<? extends IDeviceCommandResponse>> addDeviceCommandResponsesAsync(
+	    IDeviceEventContext context, IDeviceCommandResponseCreateRequest... response);
+
+    /**
+     * Add state changes for a device.
+     * 
+     * @param context
+     * @param state
+     * @return
+     */
+    public CompletableFuture<List<? extends IDeviceStateChange>> addDeviceStateChangesAsync(
+	    IDeviceEventContext context, IDeviceStateChangeCreateRequest... state);
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.grpc.client.spi.client;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.sitewhere.spi.device.IDevice;
+import com.sitewhere.spi.device.IDeviceAssignment;
+import com.sitewhere.spi.device.IDeviceType;
+
+/**
+ * Non-blocking variants of the device management lookups used on hot paths.
+ * Futures complete exceptionally with the same exceptions thrown by the
+ * blocking API.
+ */
+public interface IAsyncDeviceManagement {
+
+    /**
+     * Get device type by unique id.
+     * 
+     * @param id
+     * @return
+     */
+    public CompletableFuture<IDeviceType> getDeviceTypeAsync(UUID id);
+
+    /**
+     * Get device type by token.
+     * 
+     * @param token
+     * @return
+     */
+    public CompletableFuture<IDeviceType> getDeviceTypeByTokenAsync(String token);
+
+    /**
+     * Get device by unique id.
+     * 
+     * @param deviceId
+     * @return
+     */
+    public CompletableFuture<IDevice> getDeviceAsync(UUID deviceId);
+
+    /**
+     * Get device by token.
+     * 
+     * @param token
+     * @return
+     */
+    public CompletableFuture<IDevice> getDeviceByTokenAsync(String token);
+
+    /**
+     * Get device assignment by unique id.
+     * 
+     * @param id
+     * @return
+     */
+    public CompletableFuture<IDeviceAssignment> getDeviceAssignmentAsync(UUID id);
+
+    /**
+     * Get device assignment by token.
+     * 
+     * @param token
+     * @return
+     */
+    public CompletableFuture<IDeviceAssignment> getDeviceAssignmentByTokenAsync(String token);
+
+    /**
+     * Get active assignments for a device.
+     * 
+     * @param deviceId
+     * @return
+     */
+    public CompletableFuture<List<IDeviceAssignment>> getActiveDeviceAssignmentsAsync(UUID deviceId);
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.grpc.client.spi.client;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.sitewhere.spi.device.state.IDeviceState;
+import com.sitewhere.spi.device.state.request.IDeviceStateCreateRequest;
+import com.sitewhere.spi.device.state.request.IDeviceStateEventMergeRequest;
+
+/**
+ * Non-blocking variants of the device state management operations. Futures
+ * complete exceptionally with the same exceptions thrown by the blocking API.
+ */
+public interface IAsyncDeviceStateManagement {
+
+    /**
+     * Create device state.
+     * 
+     * @param request
+     * @return
+     */
+    public CompletableFuture<IDeviceState> createDeviceStateAsync(IDeviceStateCreateRequest request);
+
+    /**
+     * Get device state by unique id.
+     * 
+     * @param id
+     * @return
+     */
+    public CompletableFuture<IDeviceState> getDeviceStateAsync(UUID id);
+
+    /**
+     * Get device state for a device assignment.
+     * 
+     * @param assignmentId
+     * @return
+     */
+    public CompletableFuture<IDeviceState> getDeviceStateByDeviceAssignmentAsync(UUID assignmentId);
+
+    /**
+     * Get all device states for a device.
+     * 
+     * @param deviceId
+     * @return
+     */
+    public CompletableFuture<List<? extends IDeviceState>> getDeviceStatesForDeviceAsync(UUID deviceId);
+
+    /**
+     * Update device state.
+     * 
+     * @param id
+     * @param request
+     * @return
+     */
+    public CompletableFuture<IDeviceState> updateDeviceStateAsync(UUID id, IDeviceStateCreateRequest request);
+
+    /**
+     * Merge events into device state.
+     * 
+     * @param id
+     * @param events
+     * @return
+     */
+    public CompletableFuture<IDeviceState> mergeAsync(UUID id, IDeviceStateEventMergeRequest events);
+}
\ No newline at end of file
@@ -24,5 +24,5 @@ import com.sitewhere.microservice.api.batch.IBatchManagement;
  * {@link IBatchManagement}. API.
  */
 public interface IBatchManagementApiChannel<T extends MultitenantGrpcChannel<?, ?>>
-	extends IBatchManagement, IMultitenantApiChannel<T> {
+	extends IBatchManagement, IAsyncBatchManagement, IMultitenantApiChannel<T> {
 }
\ No newline at end of file
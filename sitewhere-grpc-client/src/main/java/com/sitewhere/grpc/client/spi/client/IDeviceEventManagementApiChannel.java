@@ -24,5 +24,5 @@ import com.sitewhere.microservice.api.event.IDeviceEventManagement;
  * {@link IDeviceEventManagement}. API.
  */
 public interface IDeviceEventManagementApiChannel<T extends MultitenantGrpcChannel<?, ?>>
-	extends IDeviceEventManagement, IMultitenantApiChannel<T> {
+	extends IDeviceEventManagement, IAsyncDeviceEventManagement, IMultitenantApiChannel<T> {
 }
\ No newline at end of file
@@ -24,5 +24,5 @@ import com.sitewhere.microservice.api.device.IDeviceManagement;
  * {@link IDeviceManagement}. API.
  */
 public interface IDeviceManagementApiChannel<T extends MultitenantGrpcChannel<?, ?>>
-	extends IDeviceManagement, IMultitenantApiChannel<T> {
+	extends IDeviceManagement, IAsyncDeviceManagement, IMultitenantApiChannel<T> {
 }
\ No newline at end of file
@@ -24,5 +24,5 @@ import com.sitewhere.microservice.api.state.IDeviceStateManagement;
  * {@link IDeviceStateManagement}. API.
  */
 public interface IDeviceStateApiChannel<T extends MultitenantGrpcChannel<?, ?>>
-	extends IDeviceStateManagement, IMultitenantApiChannel<T> {
+	extends IDeviceStateManagement, IAsyncDeviceStateManagement, IMultitenantApiChannel<T> {
 }
\ No newline at end of file
@@ -93,12 +93,7 @@ public class CachedUserManagementApiChannel extends TenantEngineLifecycleCompone
      */
     @Override
     public IUser getUserByUsername(String username) throws SiteWhereException {
-	IUser user = getUserCache().getCacheEntry(null, username);
-	if (user == null) {
-	    user = getWrapped().getUserByUsername(username);
-	    getUserCache().setCacheEntry(null, username, user);
-	}
-	return user;
+	return getUserCache().getCacheEntry(null, username, getWrapped()::getUserByUsername);
     }
 
     /*
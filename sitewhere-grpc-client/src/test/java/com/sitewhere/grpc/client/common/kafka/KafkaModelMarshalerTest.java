@@ -0,0 +1,57 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.grpc.client.common.kafka;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.sitewhere.grpc.kafka.model.KafkaModel.GMicroserviceLogMessage;
+import com.sitewhere.grpc.kafka.model.KafkaModel.GStateUpdate;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Tests for {@link KafkaModelMarshaler}.
+ */
+public class KafkaModelMarshalerTest {
+
+    /** Payload that is not a valid protobuf message */
+    private static final byte[] INVALID_PAYLOAD = new byte[] { (byte) 0xff };
+
+    @Test
+    public void testStateUpdateRoundTrip() throws SiteWhereException {
+	GStateUpdate original = GStateUpdate.getDefaultInstance();
+	byte[] payload = KafkaModelMarshaler.buildStateUpdateMessage(original);
+	assertEquals(original, KafkaModelMarshaler.parseStateUpdateMessage(payload));
+    }
+
+    @Test
+    public void testMicroserviceLogMessageRoundTrip() throws SiteWhereException {
+	GMicroserviceLogMessage original = GMicroserviceLogMessage.getDefaultInstance();
+	byte[] payload = KafkaModelMarshaler.buildMicroserviceLogMessage(original);
+	assertEquals(original, KafkaModelMarshaler.parseMicroserviceLogMessage(payload));
+    }
+
+    @Test(expected = SiteWhereException.class)
+    public void testInvalidStateUpdate() throws SiteWhereException {
+	KafkaModelMarshaler.parseStateUpdateMessage(INVALID_PAYLOAD);
+    }
+
+    @Test(expected = SiteWhereException.class)
+    public void testInvalidMicroserviceLogMessage() throws SiteWhereException {
+	KafkaModelMarshaler.parseMicroserviceLogMessage(INVALID_PAYLOAD);
+    }
+}
\ No newline at end of file
@@ -24,11 +24,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Inject;
 
 import com.sitewhere.microservice.cache.StringByteArrayCodec;
+import com.sitewhere.microservice.kafka.KafkaTopicRegistry;
 import com.sitewhere.microservice.lifecycle.CompositeLifecycleStep;
 import com.sitewhere.microservice.lifecycle.LifecycleComponent;
 import com.sitewhere.microservice.metrics.MetricsServer;
 import com.sitewhere.microservice.scripting.ScriptManager;
 import com.sitewhere.microservice.scripting.ScriptTemplateManager;
+import com.sitewhere.microservice.tenant.TenantResourceCache;
 import com.sitewhere.microservice.tenant.persistence.KubernetesTenantManagement;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.IFunctionIdentifier;
@@ -38,6 +40,7 @@ import com.sitewhere.spi.microservice.instance.IInstanceSettings;
 import com.sitewhere.spi.microservice.instance.IInstanceSpecUpdateOperation;
 import com.sitewhere.spi.microservice.instance.IInstanceStatusUpdateOperation;
 import com.sitewhere.spi.microservice.kafka.IKafkaTopicNaming;
+import com.sitewhere.spi.microservice.kafka.IKafkaTopicRegistry;
 import com.sitewhere.spi.microservice.lifecycle.ICompositeLifecycleStep;
 import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.microservice.metrics.IMetricsServer;
@@ -46,6 +49,7 @@ import com.sitewhere.spi.microservice.scripting.IScriptTemplateManager;
 import com.sitewhere.spi.microservice.security.ISystemUser;
 import com.sitewhere.spi.microservice.security.ITokenManagement;
 import com.sitewhere.spi.microservice.tenant.ITenantManagement;
+import com.sitewhere.spi.microservice.tenant.ITenantResourceCache;
 import com.sitewhere.spi.microservice.user.IUserManagement;
 import com.sitewhere.spi.system.IVersion;
 
@@ -54,6 +58,8 @@ import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.informers.SharedInformerFactory;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
 import io.sitewhere.k8s.SiteWhereKubernetesClient;
 import io.sitewhere.k8s.api.ISiteWhereKubernetesClient;
 import io.sitewhere.k8s.crd.instance.SiteWhereInstance;
@@ -77,6 +83,9 @@ public abstract class Microservice<F extends IFunctionIdentifier, C extends IMic
     @Inject
     private IKafkaTopicNaming kafkaTopicNaming;
 
+    /** Kafka topic registry */
+    private IKafkaTopicRegistry kafkaTopicRegistry = new KafkaTopicRegistry(this);
+
     /** System superuser */
     @Inject
     private ISystemUser systemUser;
@@ -96,14 +105,20 @@ public abstract class Microservice<F extends IFunctionIdentifier, C extends IMic
     private RedisClient redisClient;
 
     /** Current Redis cache connection */
-    private StatefulRedisConnection<String, byte[]> redisCacheConnection;
+    private StatefulRedisConnection<byte[], byte[]> redisCacheConnection;
 
     /** Current Redis cache connection */
     private StatefulRedisConnection<String, byte[]> redisStreamConnection;
 
+    /** Current Redis pub/sub connection */
+    private StatefulRedisPubSubConnection<String, byte[]> redisPubSubConnection;
+
     /** Shared informer factory for k8s resources */
     private SharedInformerFactory sharedInformerFactory;
 
+    /** Cache of tenant resources */
+    private ITenantResourceCache tenantResourceCache;
+
     /** Metrics server */
     private IMetricsServer metricsServer = new MetricsServer();
 
@@ -247,8 +262,9 @@ public abstract class Microservice<F extends IFunctionIdentifier, C extends IMic
 			String.valueOf(settings.getRedisPort()));
 		getLogger().info(String.format("Connecting to Redis server using address: %s", redisAddress));
 		this.redisClient = RedisClient.create(redisAddress);
-		this.redisCacheConnection = getRedisClient().connect(StringByteArrayCodec.INSTANCE);
+		this.redisCacheConnection = getRedisClient().connect(ByteArrayCodec.INSTANCE);
 		this.redisStreamConnection = getRedisClient().connect(StringByteArrayCodec.INSTANCE);
+		this.redisPubSubConnection = getRedisClient().connectPubSub(StringByteArrayCodec.INSTANCE);
 		break;
 	    } catch (Throwable t) {
 		getLogger().warn("Unable to establish Redis connection.", t);
@@ -277,6 +293,17 @@ public abstract class Microservice<F extends IFunctionIdentifier, C extends IMic
      */
     @Override
     public void createKubernetesResourceControllers(SharedInformerFactory informers) throws SiteWhereException {
+	// Add shared informer for tenant resource cache.
+	this.tenantResourceCache = new TenantResourceCache(this, getKubernetesClient(), informers);
+	getTenantResourceCache().start();
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.IMicroservice#getTenantResourceCache()
+     */
+    @Override
+    public ITenantResourceCache getTenantResourceCache() {
+	return tenantResourceCache;
     }
 
     /*
@@ -311,6 +338,11 @@ public abstract class Microservice<F extends IFunctionIdentifier, C extends IMic
 
 	// Execute shutdown steps.
 	stop.execute(monitor);
+
+	// Release Kafka admin connection. A closed registry can not be reused, so a
+	// new one is used if the microservice is restarted.
+	getKafkaTopicRegistry().close();
+	this.kafkaTopicRegistry = new KafkaTopicRegistry(this);
     }
 
     /*
@@ -368,7 +400,7 @@ public abstract class Microservice<F extends IFunctionIdentifier, C extends IMic
      * @see com.sitewhere.spi.microservice.IMicroservice#getRedisCacheConnection()
      */
     @Override
-    public StatefulRedisConnection<String, byte[]> getRedisCacheConnection() {
+    public StatefulRedisConnection<byte[], byte[]> getRedisCacheConnection() {
 	return redisCacheConnection;
     }
 
@@ -380,6 +412,14 @@ public abstract class Microservice<F extends IFunctionIdentifier, C extends IMic
 	return redisStreamConnection;
     }
 
+    /*
+     * @see com.sitewhere.spi.microservice.IMicroservice#getRedisPubSubConnection()
+     */
+    @Override
+    public StatefulRedisPubSubConnection<String, byte[]> getRedisPubSubConnection() {
+	return redisPubSubConnection;
+    }
+
     /*
      * @see com.sitewhere.spi.microservice.IMicroservice#loadInstanceResource()
      */
@@ -518,6 +558,14 @@ public abstract class Microservice<F extends IFunctionIdentifier, C extends IMic
 	return kafkaTopicNaming;
     }
 
+    /*
+     * @see com.sitewhere.spi.microservice.IMicroservice#getKafkaTopicRegistry()
+     */
+    @Override
+    public IKafkaTopicRegistry getKafkaTopicRegistry() {
+	return kafkaTopicRegistry;
+    }
+
     /*
      * @see com.sitewhere.spi.microservice.IMicroservice#getScriptManager()
      */
@@ -25,12 +25,44 @@ public class CacheConfiguration implements ICacheConfiguration {
     /** Max life of cache entries in seconds */
     private int ttlInSeconds;
 
+    /** Max life of not found entries in seconds (zero to disable) */
+    private int negativeTtlInSeconds;
+
     /** Indicates if cache is enabled */
     private boolean enabled;
 
+    /** Indicates if local cache is used in front of Redis */
+    private boolean localCacheEnabled;
+
+    /** Max number of entries in local cache */
+    private int localCacheMaxEntries;
+
+    /** Max life of local cache entries in seconds */
+    private int localCacheTtlInSeconds;
+
+    /** Indicates if writes are issued without waiting for acknowledgement */
+    private boolean writeBehind;
+
+    /** Factor for probabilistic early refresh (zero to disable) */
+    private double earlyRefreshBeta;
+
     public CacheConfiguration(int ttlInSeconds) {
 	this.ttlInSeconds = ttlInSeconds;
 	this.enabled = true;
+	this.localCacheEnabled = false;
+    }
+
+    public CacheConfiguration(int ttlInSeconds, int localCacheMaxEntries, int localCacheTtlInSeconds) {
+	this(ttlInSeconds);
+	this.localCacheEnabled = true;
+	this.localCacheMaxEntries = localCacheMaxEntries;
+	this.localCacheTtlInSeconds = localCacheTtlInSeconds;
+    }
+
+    public CacheConfiguration(int ttlInSeconds, int localCacheMaxEntries, int localCacheTtlInSeconds,
+	    int negativeTtlInSeconds) {
+	this(ttlInSeconds, localCacheMaxEntries, localCacheTtlInSeconds);
+	this.negativeTtlInSeconds = negativeTtlInSeconds;
     }
 
     /*
@@ -51,6 +83,24 @@ public class CacheConfiguration implements ICacheConfiguration {
 	this.ttlInSeconds = ttlInSeconds;
     }
 
+    /*
+     * @see com.sitewhere.spi.microservice.cache.ICacheConfiguration#
+     * getNegativeTtlInSeconds()
+     */
+    @Override
+    public int getNegativeTtlInSeconds() {
+	return negativeTtlInSeconds;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.cache.ICacheConfiguration#
+     * setNegativeTtlInSeconds(int)
+     */
+    @Override
+    public void setNegativeTtlInSeconds(int negativeTtlInSeconds) {
+	this.negativeTtlInSeconds = negativeTtlInSeconds;
+    }
+
     /*
      * @see com.sitewhere.grpc.client.spi.cache.ICacheConfiguration#isEnabled()
      */
@@ -67,4 +117,98 @@ public class CacheConfiguration implements ICacheConfiguration {
     public void setEnabled(boolean enabled) {
 	this.enabled = enabled;
     }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.cache.ICacheConfiguration#isLocalCacheEnabled(
+     * )
+     */
+    @Override
+    public boolean isLocalCacheEnabled() {
+	return localCacheEnabled;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.cache.ICacheConfiguration#setLocalCacheEnabled
+     * (boolean)
+     */
+    @Override
+    public void setLocalCacheEnabled(boolean localCacheEnabled) {
+	this.localCacheEnabled = localCacheEnabled;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.cache.ICacheConfiguration#
+     * getLocalCacheMaxEntries()
+     */
+    @Override
+    public int getLocalCacheMaxEntries() {
+	return localCacheMaxEntries;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.cache.ICacheConfiguration#
+     * setLocalCacheMaxEntries(int)
+     */
+    @Override
+    public void setLocalCacheMaxEntries(int localCacheMaxEntries) {
+	this.localCacheMaxEntries = localCacheMaxEntries;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.cache.ICacheConfiguration#
+     * getLocalCacheTtlInSeconds()
+     */
+    @Override
+    public int getLocalCacheTtlInSeconds() {
+	return localCacheTtlInSeconds;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.cache.ICacheConfiguration#
+     * setLocalCacheTtlInSeconds(int)
+     */
+    @Override
+    public void setLocalCacheTtlInSeconds(int localCacheTtlInSeconds) {
+	this.localCacheTtlInSeconds = localCacheTtlInSeconds;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.cache.ICacheConfiguration#isWriteBehind()
+     */
+    @Override
+    public boolean isWriteBehind() {
+	return writeBehind;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.cache.ICacheConfiguration#setWriteBehind(
+     * boolean)
+     */
+    @Override
+    public void setWriteBehind(boolean writeBehind) {
+	this.writeBehind = writeBehind;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.cache.ICacheConfiguration#getEarlyRefreshBeta(
+     * )
+     */
+    @Override
+    public double getEarlyRefreshBeta() {
+	return earlyRefreshBeta;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.cache.ICacheConfiguration#setEarlyRefreshBeta(
+     * double)
+     */
+    @Override
+    public void setEarlyRefreshBeta(double earlyRefreshBeta) {
+	this.earlyRefreshBeta = earlyRefreshBeta;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+import com.sitewhere.microservice.util.DataUtils;
+
+/**
+ * Binary key used for Redis cache entries. Keys are made up of a precomputed
+ * prefix (instance, tenant and cache identifier) followed by the encoded entry
+ * key. UUID keys are stored as 16 raw bytes rather than their string form.
+ */
+public class CacheKey {
+
+    /** Encoded key */
+    private final byte[] bytes;
+
+    /** Number of bytes used by the prefix */
+    private final int prefixLength;
+
+    /** Indicates entry key is binary rather than UTF-8 */
+    private final boolean binary;
+
+    /** Cached hash code */
+    private final int hash;
+
+    public CacheKey(byte[] bytes) {
+	this(bytes, bytes.length, false);
+    }
+
+    protected CacheKey(byte[] bytes, int prefixLength, boolean binary) {
+	this.bytes = bytes;
+	this.prefixLength = prefixLength;
+	this.binary = binary;
+	this.hash = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * Create key for a UUID.
+     * 
+     * @param prefix
+     * @param key
+     * @return
+     */
+    public static CacheKey forUuid(byte[] prefix, UUID key) {
+	byte[] bytes = Arrays.copyOf(prefix, prefix.length + 16);
+	writeLong(bytes, prefix.length, key.getMostSignificantBits());
+	writeLong(bytes, prefix.length + 8, key.getLeastSignificantBits());
+	return new CacheKey(bytes, prefix.length, true);
+    }
+
+    /**
+     * Create key for a string.
+     * 
+     * @param prefix
+     * @param key
+     * @return
+     */
+    public static CacheKey forString(byte[] prefix, String key) {
+	byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+	byte[] bytes = Arrays.copyOf(prefix, prefix.length + encoded.length);
+	System.arraycopy(encoded, 0, bytes, prefix.length, encoded.length);
+	return new CacheKey(bytes, prefix.length, false);
+    }
+
+    /**
+     * Write a long in big-endian order.
+     * 
+     * @param target
+     * @param offset
+     * @param value
+     */
+    private static void writeLong(byte[] target, int offset, long value) {
+	for (int i = 7; i >= 0; i--) {
+	    target[offset + i] = (byte) value;
+	    value >>>= 8;
+	}
+    }
+
+    /*
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+	return hash;
+    }
+
+    /*
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+	if (this == obj) {
+	    return true;
+	}
+	if (!(obj instanceof CacheKey)) {
+	    return false;
+	}
+	CacheKey other = (CacheKey) obj;
+	return (hash == other.hash) && Arrays.equals(bytes, other.bytes);
+    }
+
+    /*
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+	String prefix = new String(bytes, 0, prefixLength, StandardCharsets.UTF_8);
+	byte[] key = Arrays.copyOfRange(bytes, prefixLength, bytes.length);
+	return prefix + (binary ? DataUtils.bytesToHex(key) : new String(key, StandardCharsets.UTF_8));
+    }
+
+    public byte[] getBytes() {
+	return bytes;
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.cache;
+
+import org.apache.commons.collections4.map.LRUMap;
+
+/**
+ * Bounded in-process cache with per-entry expiration. Used as a near cache in
+ * front of Redis so that hot entries do not require a network round trip or
+ * deserialization. Entries are evicted in least-recently-used order once the
+ * maximum size is reached.
+ * 
+ * @param <V>
+ */
+public class LocalCache<V> {
+
+    /** Map of entries in access order */
+    private LRUMap<CacheKey, LocalCacheEntry<V>> entries;
+
+    /** Max life of entries in milliseconds */
+    private long ttlInMillis;
+
+    /** Listener notified when entries are evicted due to size */
+    private IEvictionListener evictionListener;
+
+    public LocalCache(int maxEntries, int ttlInSeconds, IEvictionListener evictionListener) {
+	this.ttlInMillis = ttlInSeconds * 1000L;
+	this.evictionListener = evictionListener;
+	this.entries = new LRUMap<CacheKey, LocalCacheEntry<V>>(maxEntries) {
+
+	    /** Serialization version */
+	    private static final long serialVersionUID = -2318034591027650375L;
+
+	    /*
+	     * @see org.apache.commons.collections4.map.LRUMap#removeLRU(org.apache.
+	     * commons.collections4.map.AbstractLinkedMap.LinkEntry)
+	     */
+	    @Override
+	    protected boolean removeLRU(LinkEntry<CacheKey, LocalCacheEntry<V>> entry) {
+		if (getEvictionListener() != null) {
+		    getEvictionListener().onEvicted(entry.getValue().getTenantId());
+		}
+		return true;
+	    }
+	};
+    }
+
+    /**
+     * Get an entry. Returns null if not present or expired. Entries recording
+     * that no value exists are returned with {@link LocalCacheEntry#isNegative()}
+     * set.
+     * 
+     * @param key
+     * @return
+     */
+    public synchronized LocalCacheEntry<V> get(CacheKey key) {
+	LocalCacheEntry<V> entry = getEntries().get(key);
+	if (entry == null) {
+	    return null;
+	}
+	if (entry.getExpires() < System.currentTimeMillis()) {
+	    getEntries().remove(key);
+	    return null;
+	}
+	return entry;
+    }
+
+    /**
+     * Add or replace an entry.
+     * 
+     * @param tenantId
+     * @param key
+     * @param value
+     */
+    public synchronized void put(String tenantId, CacheKey key, V value) {
+	getEntries().put(key,
+		new LocalCacheEntry<V>(tenantId, value, false, System.currentTimeMillis() + getTtlInMillis()));
+    }
+
+    /**
+     * Record that no value exists for a key. The entry lives for the lesser of
+     * the given time and the local cache time to live.
+     * 
+     * @param tenantId
+     * @param key
+     * @param ttlInSeconds
+     */
+    public synchronized void putNegative(String tenantId, CacheKey key, int ttlInSeconds) {
+	long ttl = Math.min(ttlInSeconds * 1000L, getTtlInMillis());
+	getEntries().put(key, new LocalCacheEntry<V>(tenantId, null, true, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Remove an entry.
+     * 
+     * @param key
+     */
+    public synchronized void remove(CacheKey key) {
+	getEntries().remove(key);
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear() {
+	getEntries().clear();
+    }
+
+    /**
+     * Get number of entries currently held.
+     * 
+     * @return
+     */
+    public synchronized int size() {
+	return getEntries().size();
+    }
+
+    protected LRUMap<CacheKey, LocalCacheEntry<V>> getEntries() {
+	return entries;
+    }
+
+    protected long getTtlInMillis() {
+	return ttlInMillis;
+    }
+
+    protected IEvictionListener getEvictionListener() {
+	return evictionListener;
+    }
+
+    /**
+     * Receives notification when an entry is evicted to make room for another.
+     */
+    public static interface IEvictionListener {
+
+	/**
+	 * Called when an entry for the given tenant is evicted.
+	 * 
+	 * @param tenantId
+	 */
+	void onEvicted(String tenantId);
+    }
+
+    /**
+     * Value held in the local cache along with its expiration.
+     * 
+     * @param <V>
+     */
+    public static class LocalCacheEntry<V> {
+
+	/** Tenant that owns the entry */
+	private String tenantId;
+
+	/** Cached value */
+	private V value;
+
+	/** Indicates entry records that no value exists */
+	private boolean negative;
+
+	/** Expiration time in milliseconds */
+	private long expires;
+
+	public LocalCacheEntry(String tenantId, V value, boolean negative, long expires) {
+	    this.tenantId = tenantId;
+	    this.value = value;
+	    this.negative = negative;
+	    this.expires = expires;
+	}
+
+	public String getTenantId() {
+	    return tenantId;
+	}
+
+	public V getValue() {
+	    return value;
+	}
+
+	public boolean isNegative() {
+	    return negative;
+	}
+
+	public long getExpires() {
+	    return expires;
+	}
+    }
+}
@@ -15,17 +15,46 @@
  */
 package com.sitewhere.microservice.cache;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sitewhere.microservice.cache.LocalCache.LocalCacheEntry;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.IMicroservice;
 import com.sitewhere.spi.microservice.cache.ICacheConfiguration;
+import com.sitewhere.spi.microservice.cache.ICacheLoader;
 import com.sitewhere.spi.microservice.cache.ICacheProvider;
 
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+
 /**
- * Base class for cache providers using Redission local cache for backing
- * storage.
+ * Base class for cache providers using Redis for backing storage. If enabled
+ * in the cache configuration, a bounded in-process cache is used in front of
+ * Redis and is invalidated across pods via Redis pub/sub when entries change.
  *
  * @param <K>
  * @param <V>
@@ -35,6 +64,68 @@ public abstract class RedisCacheProvider<K, V> implements ICacheProvider<K, V> {
     /** Static logger instance */
     private static Logger LOGGER = LoggerFactory.getLogger(RedisCacheProvider.class);
 
+    /** Tenant id used in keys for global entries */
+    private static final String GLOBAL_TENANT = "_global_";
+
+    /**
+     * Value stored in Redis to record that no value exists for a key. A single
+     * zero byte can never be a valid protobuf encoding since field number zero is
+     * reserved.
+     */
+    private static final byte[] NEGATIVE_MARKER = new byte[] { 0 };
+
+    /** Max time to wait for batched commands to complete */
+    private static final long BATCH_TIMEOUT_SECONDS = 10;
+
+    /** Metric label for cache identifier */
+    private static final String LABEL_CACHE = "cache";
+
+    /** Metric label for cache operation */
+    private static final String LABEL_OPERATION = "operation";
+
+    /** Operation label value for single get */
+    private static final String OPERATION_GET = "get";
+
+    /** Operation label value for single set */
+    private static final String OPERATION_SET = "set";
+
+    /** Operation label value for remove */
+    private static final String OPERATION_REMOVE = "remove";
+
+    /** Operation label value for batch get */
+    private static final String OPERATION_MULTI_GET = "multi_get";
+
+    /** Operation label value for batch set */
+    private static final String OPERATION_MULTI_SET = "multi_set";
+
+    /** Counter for local cache hits */
+    private static final Counter LOCAL_CACHE_HITS = TenantEngineLifecycleComponent
+	    .createCounterMetric("cache_local_hits", "Count of local cache hits", LABEL_CACHE);
+
+    /** Counter for local cache misses */
+    private static final Counter LOCAL_CACHE_MISSES = TenantEngineLifecycleComponent
+	    .createCounterMetric("cache_local_misses", "Count of local cache misses", LABEL_CACHE);
+
+    /** Counter for local cache evictions */
+    private static final Counter LOCAL_CACHE_EVICTIONS = TenantEngineLifecycleComponent
+	    .createCounterMetric("cache_local_evictions", "Count of local cache evictions", LABEL_CACHE);
+
+    /** Counter for lookups answered by a not found entry */
+    private static final Counter NEGATIVE_HITS = TenantEngineLifecycleComponent
+	    .createCounterMetric("cache_negative_hits", "Count of lookups answered by a not found entry", LABEL_CACHE);
+
+    /** Counter for loads that joined a load already in progress */
+    private static final Counter COALESCED_LOADS = TenantEngineLifecycleComponent.createCounterMetric(
+	    "cache_coalesced_loads", "Count of cache misses served by an in-flight load", LABEL_CACHE);
+
+    /** Counter for entries reloaded before expiration */
+    private static final Counter EARLY_REFRESHES = TenantEngineLifecycleComponent
+	    .createCounterMetric("cache_early_refreshes", "Count of entries refreshed before expiration", LABEL_CACHE);
+
+    /** Histogram for cache operation latency */
+    private static final Histogram CACHE_OPERATION_LATENCY = TenantEngineLifecycleComponent.createHistogramMetric(
+	    "cache_operation_latency", "Latency of cache operations in seconds", LABEL_CACHE, LABEL_OPERATION);
+
     /** Owning microservice */
     private IMicroservice<?, ?> microservice;
 
@@ -44,15 +135,47 @@ public abstract class RedisCacheProvider<K, V> implements ICacheProvider<K, V> {
     /** Cache configuration */
     private ICacheConfiguration cacheConfiguration;
 
+    /** Unique id used to ignore invalidations sent by this provider */
+    private byte[] providerId = CacheKey.forUuid(new byte[0], UUID.randomUUID()).getBytes();
+
+    /** Encoded key prefixes indexed by tenant id */
+    private ConcurrentMap<String, byte[]> keyPrefixes = new ConcurrentHashMap<>();
+
+    /** Pub/sub channel used for local cache invalidation messages */
+    private String invalidationChannel;
+
+    /** Encoded pub/sub channel used for local cache invalidation messages */
+    private CacheKey invalidationChannelKey;
+
+    /** Local cache used in front of Redis (null if disabled) */
+    private LocalCache<V> localCache;
+
+    /** Loads currently in progress indexed by cache key */
+    private ConcurrentMap<CacheKey, CompletableFuture<V>> inFlightLoads = new ConcurrentHashMap<>();
+
+    /** Moving average of load time in milliseconds */
+    private volatile double averageLoadMillis;
+
     public RedisCacheProvider(IMicroservice<?, ?> microservice, String cacheIdentifier,
 	    ICacheConfiguration cacheConfiguration) {
 	this.microservice = microservice;
 	this.cacheIdentifier = cacheIdentifier;
 	this.cacheConfiguration = cacheConfiguration;
+	this.invalidationChannel = String.format("%s:cache-invalidation:%s",
+		microservice.getInstanceSettings().getKubernetesNamespace(), cacheIdentifier);
+	this.invalidationChannelKey = new CacheKey(invalidationChannel.getBytes(StandardCharsets.UTF_8));
+	if (cacheConfiguration.isEnabled() && cacheConfiguration.isLocalCacheEnabled()) {
+	    this.localCache = new LocalCache<V>(cacheConfiguration.getLocalCacheMaxEntries(),
+		    cacheConfiguration.getLocalCacheTtlInSeconds(),
+		    tenantId -> LOCAL_CACHE_EVICTIONS.labels(buildLabels(tenantId)).inc());
+	    microservice.getRedisPubSubConnection().addListener(new InvalidationListener());
+	    microservice.getRedisPubSubConnection().async().subscribe(getInvalidationChannel());
+	}
     }
 
     /**
-     * Convert key to string.
+     * Convert key to string. Not used for UUID keys, which are encoded as raw
+     * bytes.
      * 
      * @param key
      * @return
@@ -85,14 +208,37 @@ public abstract class RedisCacheProvider<K, V> implements ICacheProvider<K, V> {
      */
     @Override
     public void setCacheEntry(String tenantId, K key, V value) throws SiteWhereException {
-	String cacheKey = getCacheKey(tenantId, convertKey(key));
-	LOGGER.debug("Caching value for '" + cacheKey + "'.");
-	if ((value != null) && (getCacheConfiguration().isEnabled())) {
-	    getMicroservice().getRedisCacheConnection().sync().set(cacheKey, serialize(value));
-	    getMicroservice().getRedisCacheConnection().sync().expire(cacheKey,
-		    getCacheConfiguration().getTtlInSeconds());
-	} else {
-	    getMicroservice().getRedisCacheConnection().sync().del(cacheKey);
+	CacheKey cacheKey = getCacheKey(tenantId, key);
+	if (LOGGER.isDebugEnabled()) {
+	    LOGGER.debug("Caching value for '" + cacheKey + "'.");
+	}
+	Histogram.Timer timer = CACHE_OPERATION_LATENCY.labels(buildLabels(tenantId, OPERATION_SET)).startTimer();
+	try {
+	    if ((value != null) && (getCacheConfiguration().isEnabled())) {
+		SetArgs args = SetArgs.Builder.ex(getCacheConfiguration().getTtlInSeconds());
+		if (getLocalCache() != null) {
+		    getLocalCache().put(tenantId, cacheKey, value);
+		}
+		if (getCacheConfiguration().isWriteBehind()) {
+		    getMicroservice().getRedisCacheConnection().async()
+			    .set(cacheKey.getBytes(), serialize(value), args)
+			    .whenComplete((result, t) -> onWriteBehindComplete(cacheKey, t));
+		} else {
+		    getMicroservice().getRedisCacheConnection().sync().set(cacheKey.getBytes(), serialize(value),
+			    args);
+		    if (getLocalCache() != null) {
+			publishInvalidation(cacheKey);
+		    }
+		}
+	    } else {
+		getMicroservice().getRedisCacheConnection().sync().del(cacheKey.getBytes());
+		if (getLocalCache() != null) {
+		    getLocalCache().remove(cacheKey);
+		    publishInvalidation(cacheKey);
+		}
+	    }
+	} finally {
+	    timer.observeDuration();
 	}
     }
 
@@ -103,14 +249,325 @@ public abstract class RedisCacheProvider<K, V> implements ICacheProvider<K, V> {
      */
     @Override
     public V getCacheEntry(String tenantId, K key) throws SiteWhereException {
-	String cacheKey = getCacheKey(tenantId, convertKey(key));
-	byte[] result = getMicroservice().getRedisCacheConnection().sync().get(cacheKey);
-	if (result != null) {
-	    V converted = deserialize(result);
+	CacheKey cacheKey = getCacheKey(tenantId, key);
+	if (getLocalCache() != null) {
+	    LocalCacheEntry<V> local = getLocalCache().get(cacheKey);
+	    if (local != null) {
+		LOCAL_CACHE_HITS.labels(buildLabels(tenantId)).inc();
+		return local.getValue();
+	    }
+	    LOCAL_CACHE_MISSES.labels(buildLabels(tenantId)).inc();
+	}
+	Histogram.Timer timer = CACHE_OPERATION_LATENCY.labels(buildLabels(tenantId, OPERATION_GET)).startTimer();
+	try {
+	    byte[] result = getMicroservice().getRedisCacheConnection().sync().get(cacheKey.getBytes());
+	    if (result != null) {
+		return acceptRemoteValue(tenantId, cacheKey, result);
+	    }
+	    return null;
+	} finally {
+	    timer.observeDuration();
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.cache.ICacheProvider#getCacheEntry(java.lang.
+     * String, java.lang.Object,
+     * com.sitewhere.spi.microservice.cache.ICacheLoader)
+     */
+    @Override
+    public V getCacheEntry(String tenantId, K key, ICacheLoader<K, V> loader) throws SiteWhereException {
+	CacheKey cacheKey = getCacheKey(tenantId, key);
+	if (getLocalCache() != null) {
+	    LocalCacheEntry<V> local = getLocalCache().get(cacheKey);
+	    if (local != null) {
+		LOCAL_CACHE_HITS.labels(buildLabels(tenantId)).inc();
+		return local.getValue();
+	    }
+	    LOCAL_CACHE_MISSES.labels(buildLabels(tenantId)).inc();
+	}
+	boolean earlyRefresh = getCacheConfiguration().getEarlyRefreshBeta() > 0;
+	byte[] result = null;
+	long ttlMillis = -1;
+	Histogram.Timer timer = CACHE_OPERATION_LATENCY.labels(buildLabels(tenantId, OPERATION_GET)).startTimer();
+	try {
+	    if (earlyRefresh) {
+		RedisFuture<byte[]> value = getMicroservice().getRedisCacheConnection().async()
+			.get(cacheKey.getBytes());
+		RedisFuture<Long> ttl = getMicroservice().getRedisCacheConnection().async()
+			.pttl(cacheKey.getBytes());
+		result = value.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		ttlMillis = ttl.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	    } else {
+		result = getMicroservice().getRedisCacheConnection().sync().get(cacheKey.getBytes());
+	    }
+	} catch (InterruptedException | ExecutionException | TimeoutException e) {
+	    throw new SiteWhereException("Unable to read cache entry for '" + cacheKey + "'.", e);
+	} finally {
+	    timer.observeDuration();
+	}
+	if (result == null) {
+	    return loadCacheEntry(tenantId, key, cacheKey, loader);
+	}
+	if (earlyRefresh && !isNegativeMarker(result) && isEarlyRefreshDue(ttlMillis)) {
+	    EARLY_REFRESHES.labels(buildLabels(tenantId)).inc();
+	    return loadCacheEntry(tenantId, key, cacheKey, loader);
+	}
+	return acceptRemoteValue(tenantId, cacheKey, result);
+    }
+
+    /**
+     * Convert a value read from Redis and copy it to the local cache.
+     * 
+     * @param tenantId
+     * @param cacheKey
+     * @param value
+     * @return
+     * @throws SiteWhereException
+     */
+    protected V acceptRemoteValue(String tenantId, CacheKey cacheKey, byte[] value) throws SiteWhereException {
+	if (isNegativeMarker(value)) {
+	    NEGATIVE_HITS.labels(buildLabels(tenantId)).inc();
+	    if (getLocalCache() != null) {
+		getLocalCache().putNegative(tenantId, cacheKey, getCacheConfiguration().getNegativeTtlInSeconds());
+	    }
+	    return null;
+	}
+	V converted = deserialize(value);
+	if (LOGGER.isDebugEnabled()) {
 	    LOGGER.debug("Found cached value for '" + cacheKey + "'.");
-	    return converted;
 	}
-	return null;
+	if (getLocalCache() != null) {
+	    getLocalCache().put(tenantId, cacheKey, converted);
+	}
+	return converted;
+    }
+
+    /**
+     * Record that no value exists for a key.
+     * 
+     * @param tenantId
+     * @param cacheKey
+     * @throws SiteWhereException
+     */
+    protected void setNegativeCacheEntry(String tenantId, CacheKey cacheKey) throws SiteWhereException {
+	if (LOGGER.isDebugEnabled()) {
+	    LOGGER.debug("Caching not found entry for '" + cacheKey + "'.");
+	}
+	getMicroservice().getRedisCacheConnection().sync().set(cacheKey.getBytes(), NEGATIVE_MARKER,
+		SetArgs.Builder.ex(getCacheConfiguration().getNegativeTtlInSeconds()));
+	if (getLocalCache() != null) {
+	    getLocalCache().putNegative(tenantId, cacheKey, getCacheConfiguration().getNegativeTtlInSeconds());
+	    publishInvalidation(cacheKey);
+	}
+    }
+
+    /**
+     * Indicates whether negative caching is enabled.
+     * 
+     * @return
+     */
+    protected boolean isNegativeCachingEnabled() {
+	return getCacheConfiguration().isEnabled() && getCacheConfiguration().getNegativeTtlInSeconds() > 0;
+    }
+
+    /**
+     * Indicates whether a value read from Redis records that no value exists.
+     * 
+     * @param value
+     * @return
+     */
+    protected boolean isNegativeMarker(byte[] value) {
+	return (value.length == 1) && (value[0] == NEGATIVE_MARKER[0]);
+    }
+
+    /**
+     * Load a value and store it in the cache. If a load for the same key is
+     * already in progress, wait for it to complete and share its result rather
+     * than issuing another load.
+     * 
+     * @param tenantId
+     * @param key
+     * @param cacheKey
+     * @param loader
+     * @return
+     * @throws SiteWhereException
+     */
+    protected V loadCacheEntry(String tenantId, K key, CacheKey cacheKey, ICacheLoader<K, V> loader)
+	    throws SiteWhereException {
+	CompletableFuture<V> load = new CompletableFuture<>();
+	CompletableFuture<V> existing = getInFlightLoads().putIfAbsent(cacheKey, load);
+	if (existing != null) {
+	    COALESCED_LOADS.labels(buildLabels(tenantId)).inc();
+	    return awaitLoad(cacheKey, existing);
+	}
+	try {
+	    long start = System.currentTimeMillis();
+	    V loaded = loader.load(key);
+	    this.averageLoadMillis = (getAverageLoadMillis() * 0.8) + ((System.currentTimeMillis() - start) * 0.2);
+	    if ((loaded == null) && isNegativeCachingEnabled()) {
+		setNegativeCacheEntry(tenantId, cacheKey);
+	    } else {
+		setCacheEntry(tenantId, key, loaded);
+	    }
+	    load.complete(loaded);
+	    return loaded;
+	} catch (SiteWhereException | RuntimeException e) {
+	    load.completeExceptionally(e);
+	    throw e;
+	} finally {
+	    getInFlightLoads().remove(cacheKey, load);
+	}
+    }
+
+    /**
+     * Wait for a load started by another thread.
+     * 
+     * @param cacheKey
+     * @param load
+     * @return
+     * @throws SiteWhereException
+     */
+    protected V awaitLoad(CacheKey cacheKey, CompletableFuture<V> load) throws SiteWhereException {
+	try {
+	    return load.get();
+	} catch (ExecutionException e) {
+	    if (e.getCause() instanceof SiteWhereException) {
+		throw (SiteWhereException) e.getCause();
+	    }
+	    throw new SiteWhereException("Unable to load value for '" + cacheKey + "'.", e.getCause());
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SiteWhereException("Interrupted while waiting for value for '" + cacheKey + "'.", e);
+	}
+    }
+
+    /**
+     * Decide whether an entry should be refreshed before it expires. The chance of
+     * refreshing grows as the entry nears expiration and as loads take longer,
+     * which spreads refreshes of hot keys over time rather than having all callers
+     * miss at once.
+     * 
+     * @param ttlMillis
+     * @return
+     */
+    protected boolean isEarlyRefreshDue(long ttlMillis) {
+	if (ttlMillis < 0) {
+	    return false;
+	}
+	double gap = -getAverageLoadMillis() * getCacheConfiguration().getEarlyRefreshBeta()
+		* Math.log(ThreadLocalRandom.current().nextDouble());
+	return gap >= ttlMillis;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.cache.ICacheProvider#setCacheEntries(java.lang
+     * .String, java.util.Map)
+     */
+    @Override
+    public void setCacheEntries(String tenantId, Map<K, V> values) throws SiteWhereException {
+	if (!getCacheConfiguration().isEnabled() || values.isEmpty()) {
+	    return;
+	}
+	Histogram.Timer timer = CACHE_OPERATION_LATENCY.labels(buildLabels(tenantId, OPERATION_MULTI_SET))
+		.startTimer();
+	try {
+	    SetArgs args = SetArgs.Builder.ex(getCacheConfiguration().getTtlInSeconds());
+	    Map<CacheKey, RedisFuture<String>> futures = new LinkedHashMap<>();
+	    for (Map.Entry<K, V> entry : values.entrySet()) {
+		if ((entry.getValue() == null) && !isNegativeCachingEnabled()) {
+		    continue;
+		}
+		CacheKey cacheKey = getCacheKey(tenantId, entry.getKey());
+		if (entry.getValue() == null) {
+		    futures.put(cacheKey, getMicroservice().getRedisCacheConnection().async().set(cacheKey.getBytes(),
+			    NEGATIVE_MARKER, SetArgs.Builder.ex(getCacheConfiguration().getNegativeTtlInSeconds())));
+		    if (getLocalCache() != null) {
+			getLocalCache().putNegative(tenantId, cacheKey,
+				getCacheConfiguration().getNegativeTtlInSeconds());
+		    }
+		    continue;
+		}
+		futures.put(cacheKey, getMicroservice().getRedisCacheConnection().async().set(cacheKey.getBytes(),
+			serialize(entry.getValue()), args));
+		if (getLocalCache() != null) {
+		    getLocalCache().put(tenantId, cacheKey, entry.getValue());
+		}
+	    }
+	    if (LOGGER.isDebugEnabled()) {
+		LOGGER.debug("Caching " + futures.size() + " values in batch.");
+	    }
+	    if (getCacheConfiguration().isWriteBehind()) {
+		for (Map.Entry<CacheKey, RedisFuture<String>> future : futures.entrySet()) {
+		    future.getValue().whenComplete((result, t) -> onWriteBehindComplete(future.getKey(), t));
+		}
+		return;
+	    }
+	    if (!LettuceFutures.awaitAll(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+		    futures.values().toArray(new RedisFuture[futures.size()]))) {
+		throw new SiteWhereException("Timed out waiting for batched cache update to complete.");
+	    }
+	    if (getLocalCache() != null) {
+		for (CacheKey cacheKey : futures.keySet()) {
+		    publishInvalidation(cacheKey);
+		}
+	    }
+	} finally {
+	    timer.observeDuration();
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.cache.ICacheProvider#getCacheEntries(java.lang
+     * .String, java.util.Collection)
+     */
+    @Override
+    public Map<K, V> getCacheEntries(String tenantId, Collection<K> keys) throws SiteWhereException {
+	Map<K, V> results = new HashMap<>();
+	Map<CacheKey, K> remoteKeys = new HashMap<>();
+	for (K key : keys) {
+	    CacheKey cacheKey = getCacheKey(tenantId, key);
+	    if (getLocalCache() != null) {
+		LocalCacheEntry<V> local = getLocalCache().get(cacheKey);
+		if (local != null) {
+		    LOCAL_CACHE_HITS.labels(buildLabels(tenantId)).inc();
+		    results.put(key, local.getValue());
+		    continue;
+		}
+		LOCAL_CACHE_MISSES.labels(buildLabels(tenantId)).inc();
+	    }
+	    remoteKeys.put(cacheKey, key);
+	}
+	if (remoteKeys.isEmpty()) {
+	    return results;
+	}
+	Histogram.Timer timer = CACHE_OPERATION_LATENCY.labels(buildLabels(tenantId, OPERATION_MULTI_GET))
+		.startTimer();
+	try {
+	    // Values are returned in the order keys were requested.
+	    List<CacheKey> requested = new ArrayList<>(remoteKeys.keySet());
+	    byte[][] encoded = new byte[requested.size()][];
+	    for (int i = 0; i < encoded.length; i++) {
+		encoded[i] = requested.get(i).getBytes();
+	    }
+	    List<KeyValue<byte[], byte[]>> found = getMicroservice().getRedisCacheConnection().sync().mget(encoded);
+	    for (int i = 0; i < found.size(); i++) {
+		KeyValue<byte[], byte[]> kv = found.get(i);
+		if (kv.hasValue()) {
+		    CacheKey cacheKey = requested.get(i);
+		    results.put(remoteKeys.get(cacheKey), acceptRemoteValue(tenantId, cacheKey, kv.getValue()));
+		}
+	    }
+	} finally {
+	    timer.observeDuration();
+	}
+	if (LOGGER.isDebugEnabled()) {
+	    LOGGER.debug("Found " + results.size() + " of " + keys.size() + " cached values in batch.");
+	}
+	return results;
     }
 
     /*
@@ -120,20 +577,102 @@ public abstract class RedisCacheProvider<K, V> implements ICacheProvider<K, V> {
      */
     @Override
     public void removeCacheEntry(String tenantId, K key) throws SiteWhereException {
-	String cacheKey = getCacheKey(tenantId, convertKey(key));
-	getMicroservice().getRedisCacheConnection().sync().del(cacheKey);
+	CacheKey cacheKey = getCacheKey(tenantId, key);
+	Histogram.Timer timer = CACHE_OPERATION_LATENCY.labels(buildLabels(tenantId, OPERATION_REMOVE)).startTimer();
+	try {
+	    getMicroservice().getRedisCacheConnection().sync().del(cacheKey.getBytes());
+	    if (getLocalCache() != null) {
+		getLocalCache().remove(cacheKey);
+		publishInvalidation(cacheKey);
+	    }
+	} finally {
+	    timer.observeDuration();
+	}
+    }
+
+    /**
+     * Called once a write-behind update completes. Providers in other processes
+     * are only notified after the new value is stored, so they do not reload
+     * the old one. If the update failed, the local copy is dropped so that it
+     * does not differ from the stored value.
+     * 
+     * @param cacheKey
+     * @param t
+     */
+    protected void onWriteBehindComplete(CacheKey cacheKey, Throwable t) {
+	if (t != null) {
+	    LOGGER.warn("Unable to cache value for '" + cacheKey + "'.", t);
+	    if (getLocalCache() != null) {
+		getLocalCache().remove(cacheKey);
+	    }
+	    return;
+	}
+	if (getLocalCache() != null) {
+	    publishInvalidation(cacheKey);
+	}
     }
 
     /**
-     * Get key name based on instance:tenant:cacheid:key.
+     * Notify providers in other processes that a key has changed so that local
+     * copies are dropped.
+     * 
+     * @param cacheKey
+     */
+    protected void publishInvalidation(CacheKey cacheKey) {
+	byte[] key = cacheKey.getBytes();
+	byte[] message = Arrays.copyOf(getProviderId(), getProviderId().length + key.length);
+	System.arraycopy(key, 0, message, getProviderId().length, key.length);
+	getMicroservice().getRedisCacheConnection().async().publish(getInvalidationChannelKey().getBytes(), message);
+    }
+
+    /**
+     * Build metric label values for a tenant.
+     * 
+     * @param tenantId
+     * @param extras
+     * @return
+     */
+    protected String[] buildLabels(String tenantId, String... extras) {
+	List<String> all = new ArrayList<>();
+	all.add(getMicroservice().getIdentifier().getPath());
+	all.add(getMicroservice().getInstanceSettings().getKubernetesPodAddress());
+	all.add(tenantId == null ? GLOBAL_TENANT : tenantId);
+	all.add(getCacheIdentifier());
+	all.addAll(Arrays.asList(extras));
+	return all.toArray(new String[all.size()]);
+    }
+
+    /**
+     * Get key based on instance:tenant:cacheid:key. The prefix is computed once
+     * per tenant and UUID keys are encoded as 16 raw bytes.
      * 
      * @param tenantId
      * @param key
      * @return
+     * @throws SiteWhereException
+     */
+    protected CacheKey getCacheKey(String tenantId, K key) throws SiteWhereException {
+	byte[] prefix = getKeyPrefix(tenantId == null ? GLOBAL_TENANT : tenantId);
+	if (key instanceof UUID) {
+	    return CacheKey.forUuid(prefix, (UUID) key);
+	}
+	return CacheKey.forString(prefix, convertKey(key));
+    }
+
+    /**
+     * Get encoded instance:tenant:cacheid: prefix for a tenant.
+     * 
+     * @param tenantId
+     * @return
      */
-    protected String getCacheKey(String tenantId, String key) {
-	return String.format("%s:%s:%s:%s", getMicroservice().getInstanceSettings().getKubernetesNamespace(),
-		tenantId == null ? "_global_" : tenantId, getCacheIdentifier(), key);
+    protected byte[] getKeyPrefix(String tenantId) {
+	byte[] prefix = getKeyPrefixes().get(tenantId);
+	if (prefix == null) {
+	    prefix = String.format("%s:%s:%s:", getMicroservice().getInstanceSettings().getKubernetesNamespace(),
+		    tenantId, getCacheIdentifier()).getBytes(StandardCharsets.UTF_8);
+	    getKeyPrefixes().putIfAbsent(tenantId, prefix);
+	}
+	return prefix;
     }
 
     /*
@@ -156,4 +695,57 @@ public abstract class RedisCacheProvider<K, V> implements ICacheProvider<K, V> {
     protected IMicroservice<?, ?> getMicroservice() {
 	return microservice;
     }
+
+    protected byte[] getProviderId() {
+	return providerId;
+    }
+
+    protected ConcurrentMap<String, byte[]> getKeyPrefixes() {
+	return keyPrefixes;
+    }
+
+    protected String getInvalidationChannel() {
+	return invalidationChannel;
+    }
+
+    protected CacheKey getInvalidationChannelKey() {
+	return invalidationChannelKey;
+    }
+
+    protected LocalCache<V> getLocalCache() {
+	return localCache;
+    }
+
+    protected ConcurrentMap<CacheKey, CompletableFuture<V>> getInFlightLoads() {
+	return inFlightLoads;
+    }
+
+    protected double getAverageLoadMillis() {
+	return averageLoadMillis;
+    }
+
+    /**
+     * Drops local cache entries when another provider changes them.
+     */
+    private class InvalidationListener extends RedisPubSubAdapter<String, byte[]> {
+
+	/*
+	 * @see io.lettuce.core.pubsub.RedisPubSubAdapter#message(java.lang.Object,
+	 * java.lang.Object)
+	 */
+	@Override
+	public void message(String channel, byte[] message) {
+	    if (!getInvalidationChannel().equals(channel)) {
+		return;
+	    }
+	    int originLength = getProviderId().length;
+	    if (message.length <= originLength) {
+		return;
+	    }
+	    byte[] origin = Arrays.copyOf(message, originLength);
+	    if (!Arrays.equals(getProviderId(), origin)) {
+		getLocalCache().remove(new CacheKey(Arrays.copyOfRange(message, originLength, message.length)));
+	    }
+	}
+    }
 }
\ No newline at end of file
@@ -38,6 +38,75 @@ public class GrpcConfiguration {
     /** Resolve FQDN */
     private boolean resolveFQDN;
 
+    /** Number of connections opened to each target service */
+    private int channelPoolSize = 1;
+
+    /** Strategy for choosing a pooled connection */
+    private ChannelSelection channelSelection = ChannelSelection.RoundRobin;
+
+    /** Executor used for client callbacks */
+    private ClientExecutorType clientExecutor = ClientExecutorType.Shared;
+
+    /** Number of threads in shared client executor */
+    private int clientExecutorThreads = 25;
+
+    /** Executor used for server calls */
+    private ServerExecutorType serverExecutor = ServerExecutorType.Shared;
+
+    /** Number of threads in shared server executor */
+    private int serverExecutorThreads = 64;
+
+    /** Number of calls that may wait for a shared server executor thread */
+    private int serverExecutorQueueCapacity = 1000;
+
+    /** Number of server event loop threads accepting connections */
+    private int serverBossThreads = 1;
+
+    /** Number of server event loop threads handling connections (0 for default) */
+    private int serverWorkerThreads = 0;
+
+    /** Use native epoll transport for servers when available */
+    private boolean useNativeTransport = true;
+
+    /** Max concurrent calls per server connection (0 for unlimited) */
+    private int maxConcurrentCallsPerConnection = 0;
+
+    /** Server flow control window in bytes */
+    private int flowControlWindow = 1048576;
+
+    /** Max size of inbound messages in bytes */
+    private int maxInboundMessageSize = 4194304;
+
+    /** Time between server keepalive pings in seconds (0 to disable) */
+    private int keepAliveTimeSeconds = 60;
+
+    /** Time to wait for keepalive acknowledgement in seconds */
+    private int keepAliveTimeoutSeconds = 20;
+
+    /** Most frequent client keepalive allowed by server in seconds */
+    private int permitKeepAliveTimeSeconds = 30;
+
+    /** Limit concurrent server calls per tenant */
+    private boolean tenantConcurrencyLimitEnabled = true;
+
+    /** Initial concurrent call limit for each tenant */
+    private int tenantConcurrencyInitialLimit = 20;
+
+    /** Lowest concurrent call limit for each tenant */
+    private int tenantConcurrencyMinLimit = 2;
+
+    /** Highest concurrent call limit for each tenant */
+    private int tenantConcurrencyMaxLimit = 200;
+
+    /** Call latency in milliseconds treated as overload */
+    private int tenantConcurrencyLatencyThresholdMs = 1000;
+
+    /** Ratio applied to tenant limit on overload */
+    private double tenantConcurrencyBackoffRatio = 0.9;
+
+    /** Delay in milliseconds clients should wait before retrying rejected calls */
+    private int retryPushbackMs = 500;
+
     public double getMaxRetryCount() {
 	return maxRetryCount;
     }
@@ -77,4 +146,188 @@ public class GrpcConfiguration {
     public void setResolveFQDN(boolean resolveFQDN) {
 	this.resolveFQDN = resolveFQDN;
     }
+
+    public int getChannelPoolSize() {
+	return channelPoolSize;
+    }
+
+    public void setChannelPoolSize(int channelPoolSize) {
+	this.channelPoolSize = channelPoolSize;
+    }
+
+    public ChannelSelection getChannelSelection() {
+	return channelSelection;
+    }
+
+    public void setChannelSelection(ChannelSelection channelSelection) {
+	this.channelSelection = channelSelection;
+    }
+
+    public ClientExecutorType getClientExecutor() {
+	return clientExecutor;
+    }
+
+    public void setClientExecutor(ClientExecutorType clientExecutor) {
+	this.clientExecutor = clientExecutor;
+    }
+
+    public int getClientExecutorThreads() {
+	return clientExecutorThreads;
+    }
+
+    public void setClientExecutorThreads(int clientExecutorThreads) {
+	this.clientExecutorThreads = clientExecutorThreads;
+    }
+
+    public ServerExecutorType getServerExecutor() {
+	return serverExecutor;
+    }
+
+    public void setServerExecutor(ServerExecutorType serverExecutor) {
+	this.serverExecutor = serverExecutor;
+    }
+
+    public int getServerExecutorThreads() {
+	return serverExecutorThreads;
+    }
+
+    public void setServerExecutorThreads(int serverExecutorThreads) {
+	this.serverExecutorThreads = serverExecutorThreads;
+    }
+
+    public int getServerExecutorQueueCapacity() {
+	return serverExecutorQueueCapacity;
+    }
+
+    public void setServerExecutorQueueCapacity(int serverExecutorQueueCapacity) {
+	this.serverExecutorQueueCapacity = serverExecutorQueueCapacity;
+    }
+
+    public int getServerBossThreads() {
+	return serverBossThreads;
+    }
+
+    public void setServerBossThreads(int serverBossThreads) {
+	this.serverBossThreads = serverBossThreads;
+    }
+
+    public int getServerWorkerThreads() {
+	return serverWorkerThreads;
+    }
+
+    public void setServerWorkerThreads(int serverWorkerThreads) {
+	this.serverWorkerThreads = serverWorkerThreads;
+    }
+
+    public boolean isUseNativeTransport() {
+	return useNativeTransport;
+    }
+
+    public void setUseNativeTransport(boolean useNativeTransport) {
+	this.useNativeTransport = useNativeTransport;
+    }
+
+    public int getMaxConcurrentCallsPerConnection() {
+	return maxConcurrentCallsPerConnection;
+    }
+
+    public void setMaxConcurrentCallsPerConnection(int maxConcurrentCallsPerConnection) {
+	this.maxConcurrentCallsPerConnection = maxConcurrentCallsPerConnection;
+    }
+
+    public int getFlowControlWindow() {
+	return flowControlWindow;
+    }
+
+    public void setFlowControlWindow(int flowControlWindow) {
+	this.flowControlWindow = flowControlWindow;
+    }
+
+    public int getMaxInboundMessageSize() {
+	return maxInboundMessageSize;
+    }
+
+    public void setMaxInboundMessageSize(int maxInboundMessageSize) {
+	this.maxInboundMessageSize = maxInboundMessageSize;
+    }
+
+    public int getKeepAliveTimeSeconds() {
+	return keepAliveTimeSeconds;
+    }
+
+    public void setKeepAliveTimeSeconds(int keepAliveTimeSeconds) {
+	this.keepAliveTimeSeconds = keepAliveTimeSeconds;
+    }
+
+    public int getKeepAliveTimeoutSeconds() {
+	return keepAliveTimeoutSeconds;
+    }
+
+    public void setKeepAliveTimeoutSeconds(int keepAliveTimeoutSeconds) {
+	this.keepAliveTimeoutSeconds = keepAliveTimeoutSeconds;
+    }
+
+    public int getPermitKeepAliveTimeSeconds() {
+	return permitKeepAliveTimeSeconds;
+    }
+
+    public void setPermitKeepAliveTimeSeconds(int permitKeepAliveTimeSeconds) {
+	this.permitKeepAliveTimeSeconds = permitKeepAliveTimeSeconds;
+    }
+
+    public boolean isTenantConcurrencyLimitEnabled() {
+	return tenantConcurrencyLimitEnabled;
+    }
+
+    public void setTenantConcurrencyLimitEnabled(boolean tenantConcurrencyLimitEnabled) {
+	this.tenantConcurrencyLimitEnabled = tenantConcurrencyLimitEnabled;
+    }
+
+    public int getTenantConcurrencyInitialLimit() {
+	return tenantConcurrencyInitialLimit;
+    }
+
+    public void setTenantConcurrencyInitialLimit(int tenantConcurrencyInitialLimit) {
+	this.tenantConcurrencyInitialLimit = tenantConcurrencyInitialLimit;
+    }
+
+    public int getTenantConcurrencyMinLimit() {
+	return tenantConcurrencyMinLimit;
+    }
+
+    public void setTenantConcurrencyMinLimit(int tenantConcurrencyMinLimit) {
+	this.tenantConcurrencyMinLimit = tenantConcurrencyMinLimit;
+    }
+
+    public int getTenantConcurrencyMaxLimit() {
+	return tenantConcurrencyMaxLimit;
+    }
+
+    public void setTenantConcurrencyMaxLimit(int tenantConcurrencyMaxLimit) {
+	this.tenantConcurrencyMaxLimit = tenantConcurrencyMaxLimit;
+    }
+
+    public int getTenantConcurrencyLatencyThresholdMs() {
+	return tenantConcurrencyLatencyThresholdMs;
+    }
+
+    public void setTenantConcurrencyLatencyThresholdMs(int tenantConcurrencyLatencyThresholdMs) {
+	this.tenantConcurrencyLatencyThresholdMs = tenantConcurrencyLatencyThresholdMs;
+    }
+
+    public double getTenantConcurrencyBackoffRatio() {
+	return tenantConcurrencyBackoffRatio;
+    }
+
+    public void setTenantConcurrencyBackoffRatio(double tenantConcurrencyBackoffRatio) {
+	this.tenantConcurrencyBackoffRatio = tenantConcurrencyBackoffRatio;
+    }
+
+    public int getRetryPushbackMs() {
+	return retryPushbackMs;
+    }
+
+    public void setRetryPushbackMs(int retryPushbackMs) {
+	this.retryPushbackMs = retryPushbackMs;
+    }
 }
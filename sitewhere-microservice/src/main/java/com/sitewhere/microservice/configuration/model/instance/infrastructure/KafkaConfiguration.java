@@ -35,6 +35,21 @@ public class KafkaConfiguration {
     /** Default topic replication factor */
     private int defaultTopicReplicationFactor;
 
+    /** Profile used by producers that do not choose one */
+    private ProducerProfileType defaultProducerProfile = ProducerProfileType.LowLatency;
+
+    /** Producer settings for low latency */
+    private ProducerProfile lowLatencyProducer = new ProducerProfile(16384, 0, "lz4", 33554432L, false, 5);
+
+    /** Producer settings for high throughput */
+    private ProducerProfile highThroughputProducer = new ProducerProfile(262144, 20, "lz4", 134217728L, false, 5);
+
+    /** Producer settings for durability */
+    private ProducerProfile durableProducer = new ProducerProfile(65536, 5, "zstd", 67108864L, true, 5);
+
+    /** Indicates tenant consumers share one consumer per microservice */
+    private boolean multiplexedConsumers = false;
+
     public String getHostname() {
 	return hostname;
     }
@@ -66,4 +81,44 @@ public class KafkaConfiguration {
     public void setDefaultTopicReplicationFactor(int defaultTopicReplicationFactor) {
 	this.defaultTopicReplicationFactor = defaultTopicReplicationFactor;
     }
+
+    public ProducerProfileType getDefaultProducerProfile() {
+	return defaultProducerProfile;
+    }
+
+    public void setDefaultProducerProfile(ProducerProfileType defaultProducerProfile) {
+	this.defaultProducerProfile = defaultProducerProfile;
+    }
+
+    public ProducerProfile getLowLatencyProducer() {
+	return lowLatencyProducer;
+    }
+
+    public void setLowLatencyProducer(ProducerProfile lowLatencyProducer) {
+	this.lowLatencyProducer = lowLatencyProducer;
+    }
+
+    public ProducerProfile getHighThroughputProducer() {
+	return highThroughputProducer;
+    }
+
+    public void setHighThroughputProducer(ProducerProfile highThroughputProducer) {
+	this.highThroughputProducer = highThroughputProducer;
+    }
+
+    public ProducerProfile getDurableProducer() {
+	return durableProducer;
+    }
+
+    public void setDurableProducer(ProducerProfile durableProducer) {
+	this.durableProducer = durableProducer;
+    }
+
+    public boolean isMultiplexedConsumers() {
+	return multiplexedConsumers;
+    }
+
+    public void setMultiplexedConsumers(boolean multiplexedConsumers) {
+	this.multiplexedConsumers = multiplexedConsumers;
+    }
 }
@@ -0,0 +1,105 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.configuration.model.instance.infrastructure;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Kafka producer settings applied by a {@link ProducerProfileType}. Settings
+ * left unset use the Kafka client defaults.
+ */
+@RegisterForReflection
+public class ProducerProfile {
+
+    /** Maximum bytes batched per partition */
+    private Integer batchSize;
+
+    /** Time to wait for more records before sending a batch */
+    private Integer lingerMs;
+
+    /** Compression applied to batches (none, gzip, snappy, lz4, zstd) */
+    private String compressionType;
+
+    /** Bytes available for records waiting to be sent */
+    private Long bufferMemory;
+
+    /** Indicates whether producer retries may not create duplicates */
+    private Boolean enableIdempotence;
+
+    /** Maximum unacknowledged requests per connection */
+    private Integer maxInFlightRequestsPerConnection;
+
+    public ProducerProfile() {
+    }
+
+    public ProducerProfile(Integer batchSize, Integer lingerMs, String compressionType, Long bufferMemory,
+	    Boolean enableIdempotence, Integer maxInFlightRequestsPerConnection) {
+	this.batchSize = batchSize;
+	this.lingerMs = lingerMs;
+	this.compressionType = compressionType;
+	this.bufferMemory = bufferMemory;
+	this.enableIdempotence = enableIdempotence;
+	this.maxInFlightRequestsPerConnection = maxInFlightRequestsPerConnection;
+    }
+
+    public Integer getBatchSize() {
+	return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+	this.batchSize = batchSize;
+    }
+
+    public Integer getLingerMs() {
+	return lingerMs;
+    }
+
+    public void setLingerMs(Integer lingerMs) {
+	this.lingerMs = lingerMs;
+    }
+
+    public String getCompressionType() {
+	return compressionType;
+    }
+
+    public void setCompressionType(String compressionType) {
+	this.compressionType = compressionType;
+    }
+
+    public Long getBufferMemory() {
+	return bufferMemory;
+    }
+
+    public void setBufferMemory(Long bufferMemory) {
+	this.bufferMemory = bufferMemory;
+    }
+
+    public Boolean getEnableIdempotence() {
+	return enableIdempotence;
+    }
+
+    public void setEnableIdempotence(Boolean enableIdempotence) {
+	this.enableIdempotence = enableIdempotence;
+    }
+
+    public Integer getMaxInFlightRequestsPerConnection() {
+	return maxInFlightRequestsPerConnection;
+    }
+
+    public void setMaxInFlightRequestsPerConnection(Integer maxInFlightRequestsPerConnection) {
+	this.maxInFlightRequestsPerConnection = maxInFlightRequestsPerConnection;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.configuration.model.tenant;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Runtime tuning for a Kafka Streams pipeline. Settings left unset use the
+ * Kafka Streams defaults.
+ */
+@RegisterForReflection
+public class KafkaStreamsConfiguration {
+
+    /** Number of stream threads */
+    private Integer numStreamThreads;
+
+    /** Bytes used to buffer records across all threads */
+    private Long cacheMaxBytesBuffering;
+
+    /** Interval at which processing progress is committed */
+    private Long commitIntervalMs;
+
+    /** Number of standby replicas kept for each state store */
+    private Integer numStandbyReplicas;
+
+    /** Processing guarantee (at_least_once, exactly_once_v2) */
+    private String processingGuarantee;
+
+    /** Size of RocksDB block cache shared by state stores */
+    private Long rocksDbBlockCacheBytes;
+
+    /** Size of each RocksDB write buffer */
+    private Long rocksDbWriteBufferBytes;
+
+    /** Maximum number of RocksDB write buffers */
+    private Integer rocksDbMaxWriteBuffers;
+
+    public Integer getNumStreamThreads() {
+	return numStreamThreads;
+    }
+
+    public void setNumStreamThreads(Integer numStreamThreads) {
+	this.numStreamThreads = numStreamThreads;
+    }
+
+    public Long getCacheMaxBytesBuffering() {
+	return cacheMaxBytesBuffering;
+    }
+
+    public void setCacheMaxBytesBuffering(Long cacheMaxBytesBuffering) {
+	this.cacheMaxBytesBuffering = cacheMaxBytesBuffering;
+    }
+
+    public Long getCommitIntervalMs() {
+	return commitIntervalMs;
+    }
+
+    public void setCommitIntervalMs(Long commitIntervalMs) {
+	this.commitIntervalMs = commitIntervalMs;
+    }
+
+    public Integer getNumStandbyReplicas() {
+	return numStandbyReplicas;
+    }
+
+    public void setNumStandbyReplicas(Integer numStandbyReplicas) {
+	this.numStandbyReplicas = numStandbyReplicas;
+    }
+
+    public String getProcessingGuarantee() {
+	return processingGuarantee;
+    }
+
+    public void setProcessingGuarantee(String processingGuarantee) {
+	this.processingGuarantee = processingGuarantee;
+    }
+
+    public Long getRocksDbBlockCacheBytes() {
+	return rocksDbBlockCacheBytes;
+    }
+
+    public void setRocksDbBlockCacheBytes(Long rocksDbBlockCacheBytes) {
+	this.rocksDbBlockCacheBytes = rocksDbBlockCacheBytes;
+    }
+
+    public Long getRocksDbWriteBufferBytes() {
+	return rocksDbWriteBufferBytes;
+    }
+
+    public void setRocksDbWriteBufferBytes(Long rocksDbWriteBufferBytes) {
+	this.rocksDbWriteBufferBytes = rocksDbWriteBufferBytes;
+    }
+
+    public Integer getRocksDbMaxWriteBuffers() {
+	return rocksDbMaxWriteBuffers;
+    }
+
+    public void setRocksDbMaxWriteBuffers(Integer rocksDbMaxWriteBuffers) {
+	this.rocksDbMaxWriteBuffers = rocksDbMaxWriteBuffers;
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.grpc;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.protobuf.MessageLite;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+
+import io.grpc.Status;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+
+/**
+ * Per-method gRPC call metrics. One instance exists for each side of a call so
+ * that client and server metrics are exported as separate families. Values are
+ * labeled by microservice, pod, tenant and full method name.
+ */
+public class GrpcCallMetrics {
+
+    /** Label for full method name */
+    private static final String LABEL_METHOD = "method";
+
+    /** Label for status code */
+    private static final String LABEL_CODE = "code";
+
+    /** Label for message direction */
+    private static final String LABEL_DIRECTION = "direction";
+
+    /** Direction for messages received */
+    private static final String DIRECTION_RECEIVED = "received";
+
+    /** Direction for messages sent */
+    private static final String DIRECTION_SENT = "sent";
+
+    /** Buckets for call duration in seconds */
+    private static final double[] DURATION_BUCKETS = new double[] { 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05,
+	    0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30 };
+
+    /** Buckets for message size in bytes */
+    private static final double[] SIZE_BUCKETS = new double[] { 64, 256, 1024, 4096, 16384, 65536, 262144, 1048576,
+	    4194304 };
+
+    /** Metrics for calls handled by servers */
+    public static final GrpcCallMetrics SERVER = new GrpcCallMetrics("server");
+
+    /** Metrics for calls issued by clients */
+    public static final GrpcCallMetrics CLIENT = new GrpcCallMetrics("client");
+
+    /** Counter for completed calls */
+    private Counter calls;
+
+    /** Histogram for call duration */
+    private Histogram duration;
+
+    /** Gauge for calls in progress */
+    private Gauge inFlight;
+
+    /** Histogram for message size */
+    private Histogram messageSize;
+
+    private GrpcCallMetrics(String side) {
+	this.calls = TenantEngineLifecycleComponent.createCounterMetric("grpc_" + side + "_calls",
+		"Completed gRPC " + side + " calls", LABEL_METHOD, LABEL_CODE);
+	this.duration = TenantEngineLifecycleComponent.createHistogramMetric("grpc_" + side + "_call_duration",
+		"Duration of gRPC " + side + " calls in seconds", DURATION_BUCKETS, LABEL_METHOD);
+	this.inFlight = TenantEngineLifecycleComponent.createGaugeMetric("grpc_" + side + "_calls_in_flight",
+		"gRPC " + side + " calls in progress", LABEL_METHOD);
+	this.messageSize = TenantEngineLifecycleComponent.createHistogramMetric("grpc_" + side + "_message_size",
+		"Size of gRPC " + side + " messages in bytes", SIZE_BUCKETS, LABEL_METHOD, LABEL_DIRECTION);
+    }
+
+    /**
+     * Start tracking a call.
+     * 
+     * @param microservice
+     * @param pod
+     * @param tenant
+     * @param method
+     * @return
+     */
+    public Call start(String microservice, String pod, String tenant, String method) {
+	return new Call(microservice, pod, tenant, method);
+    }
+
+    /**
+     * Tracks metrics for a single call. Completion is only recorded once, so
+     * callers may report it from more than one callback.
+     */
+    public class Call {
+
+	/** Microservice label */
+	private String microservice;
+
+	/** Pod label */
+	private String pod;
+
+	/** Tenant label */
+	private String tenant;
+
+	/** Method label */
+	private String method;
+
+	/** Time call started */
+	private long started = System.nanoTime();
+
+	/** Indicates call has completed */
+	private AtomicBoolean completed = new AtomicBoolean();
+
+	Call(String microservice, String pod, String tenant, String method) {
+	    this.microservice = microservice;
+	    this.pod = pod;
+	    this.tenant = tenant;
+	    this.method = method;
+	    inFlight.labels(microservice, pod, tenant, method).inc();
+	}
+
+	/**
+	 * Record a message received.
+	 * 
+	 * @param message
+	 */
+	public void messageReceived(Object message) {
+	    observeMessage(message, DIRECTION_RECEIVED);
+	}
+
+	/**
+	 * Record a message sent.
+	 * 
+	 * @param message
+	 */
+	public void messageSent(Object message) {
+	    observeMessage(message, DIRECTION_SENT);
+	}
+
+	/**
+	 * Record call completion with the given status code.
+	 * 
+	 * @param code
+	 */
+	public void complete(Status.Code code) {
+	    if (!completed.compareAndSet(false, true)) {
+		return;
+	    }
+	    inFlight.labels(microservice, pod, tenant, method).dec();
+	    calls.labels(microservice, pod, tenant, method, code.name()).inc();
+	    duration.labels(microservice, pod, tenant, method).observe((System.nanoTime() - started) / 1e9);
+	}
+
+	/**
+	 * Record serialized size of a protobuf message. The size is memoized by the
+	 * message, so it is not recomputed when the message is marshaled.
+	 * 
+	 * @param message
+	 * @param direction
+	 */
+	protected void observeMessage(Object message, String direction) {
+	    if (message instanceof MessageLite) {
+		messageSize.labels(microservice, pod, tenant, method, direction)
+			.observe(((MessageLite) message).getSerializedSize());
+	    }
+	}
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.grpc;
+
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.IFunctionIdentifier;
+import com.sitewhere.spi.microservice.IMicroservice;
+import com.sitewhere.spi.microservice.IMicroserviceConfiguration;
+import com.sitewhere.spi.microservice.multitenant.IMultitenantMicroservice;
+
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+/**
+ * Records per-method request counts, status codes, latency, in-flight calls
+ * and message sizes for calls handled by a gRPC server. Should be added last so
+ * that calls rejected by other interceptors are also counted. Since it runs
+ * before the tenant token is checked, calls are only labeled with their tenant
+ * if a tenant engine exists for the token. Other calls use a fixed label, so
+ * callers can not create metric series at will.
+ */
+public class GrpcMetricsServerInterceptor implements ServerInterceptor {
+
+    /** Tenant label used for calls without a tenant token */
+    private static final String GLOBAL_TENANT = "_global_";
+
+    /** Parent microservice */
+    private IMicroservice<? extends IFunctionIdentifier, ? extends IMicroserviceConfiguration> microservice;
+
+    public GrpcMetricsServerInterceptor(
+	    IMicroservice<? extends IFunctionIdentifier, ? extends IMicroserviceConfiguration> microservice) {
+	this.microservice = microservice;
+    }
+
+    /*
+     * @see io.grpc.ServerInterceptor#interceptCall(io.grpc.ServerCall,
+     * io.grpc.Metadata, io.grpc.ServerCallHandler)
+     */
+    @Override
+    public <ReqT, RespT> Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+	    ServerCallHandler<ReqT, RespT> next) {
+	String token = headers.get(GrpcKeys.TENANT_KEY);
+	String tenant = isKnownTenant(token) ? token : GLOBAL_TENANT;
+	GrpcCallMetrics.Call metrics = GrpcCallMetrics.SERVER.start(getMicroservice().getIdentifier().getPath(),
+		getMicroservice().getInstanceSettings().getKubernetesPodAddress(), tenant,
+		call.getMethodDescriptor().getFullMethodName());
+	ServerCall<ReqT, RespT> monitored = new SimpleForwardingServerCall<ReqT, RespT>(call) {
+
+	    /*
+	     * @see io.grpc.ForwardingServerCall#sendMessage(java.lang.Object)
+	     */
+	    @Override
+	    public void sendMessage(RespT message) {
+		metrics.messageSent(message);
+		super.sendMessage(message);
+	    }
+
+	    /*
+	     * @see io.grpc.ForwardingServerCall#close(io.grpc.Status,
+	     * io.grpc.Metadata)
+	     */
+	    @Override
+	    public void close(Status status, Metadata trailers) {
+		metrics.complete(status.getCode());
+		super.close(status, trailers);
+	    }
+	};
+	Listener<ReqT> listener;
+	try {
+	    listener = next.startCall(monitored, headers);
+	} catch (RuntimeException e) {
+	    metrics.complete(Status.Code.UNKNOWN);
+	    throw e;
+	}
+	return new SimpleForwardingServerCallListener<ReqT>(listener) {
+
+	    /*
+	     * @see io.grpc.ForwardingServerCallListener#onMessage(java.lang.Object)
+	     */
+	    @Override
+	    public void onMessage(ReqT message) {
+		metrics.messageReceived(message);
+		super.onMessage(message);
+	    }
+
+	    /*
+	     * @see io.grpc.ForwardingServerCallListener#onCancel()
+	     */
+	    @Override
+	    public void onCancel() {
+		metrics.complete(Status.Code.CANCELLED);
+		super.onCancel();
+	    }
+	};
+    }
+
+    /**
+     * Indicates whether a tenant engine exists for the token in this
+     * microservice.
+     * 
+     * @param tenantToken
+     * @return
+     */
+    protected boolean isKnownTenant(String tenantToken) {
+	if ((tenantToken == null) || !(getMicroservice() instanceof IMultitenantMicroservice)) {
+	    return false;
+	}
+	try {
+	    return ((IMultitenantMicroservice<?, ?, ?>) getMicroservice()).getTenantEngineManager()
+		    .getTenantEngineByToken(tenantToken) != null;
+	} catch (SiteWhereException e) {
+	    return false;
+	}
+    }
+
+    protected IMicroservice<? extends IFunctionIdentifier, ? extends IMicroserviceConfiguration> getMicroservice() {
+	return microservice;
+    }
+}
\ No newline at end of file
@@ -17,6 +17,7 @@ package com.sitewhere.microservice.grpc;
 
 import java.io.IOException;
 
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.GrpcConfiguration;
 import com.sitewhere.microservice.health.HealthServiceImpl;
 import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
@@ -32,6 +33,9 @@ import io.grpc.netty.NettyServerBuilder;
  */
 public class GrpcServer extends TenantEngineLifecycleComponent implements IGrpcServer {
 
+    /** Tenant label value for transport metrics */
+    private static final String GLOBAL_TENANT = "_global_";
+
     /** Port for gRPC server */
     private int apiPort;
 
@@ -50,6 +54,9 @@ public class GrpcServer extends TenantEngineLifecycleComponent implements IGrpcS
     /** Interceptor for JWT authentication */
     private JwtServerInterceptor jwtInterceptor;
 
+    /** Interceptor for call metrics */
+    private GrpcMetricsServerInterceptor metricsInterceptor;
+
     /** Health Service Implementation */
     private HealthServiceImpl healthService = new HealthServiceImpl();
 
@@ -66,10 +73,24 @@ public class GrpcServer extends TenantEngineLifecycleComponent implements IGrpcS
      */
     protected Server buildServer() {
 	NettyServerBuilder builder = NettyServerBuilder.forPort(getApiPort());
-	builder.addService(getServiceImplementation()).intercept(getJwtInterceptor());
+	configureTransport(builder);
+	builder.addService(getServiceImplementation()).intercept(getJwtInterceptor())
+		.intercept(getMetricsInterceptor());
 	return builder.build();
     }
 
+    /**
+     * Apply executor, event loop and flow control settings from instance
+     * configuration to an API server builder.
+     * 
+     * @param builder
+     */
+    protected void configureTransport(NettyServerBuilder builder) {
+	GrpcConfiguration grpc = getMicroservice().getInstanceConfiguration().getInfrastructure().getGrpc();
+	GrpcServerTransport.configure(builder, grpc, getMicroservice().getIdentifier().getPath(),
+		getMicroservice().getInstanceSettings().getKubernetesPodAddress(), GLOBAL_TENANT);
+    }
+
     /**
      * Build gRPC Health Server.
      * 
@@ -91,6 +112,7 @@ public class GrpcServer extends TenantEngineLifecycleComponent implements IGrpcS
     public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	try {
 	    this.jwtInterceptor = new JwtServerInterceptor(getMicroservice(), getServiceImplementation().getClass());
+	    this.metricsInterceptor = new GrpcMetricsServerInterceptor(getMicroservice());
 	    this.server = buildServer();
 	    getLogger().info("Initialized gRPC API server on port " + getApiPort() + ".");
 	    this.healthServer = buildHealthServer();
@@ -203,6 +225,14 @@ public class GrpcServer extends TenantEngineLifecycleComponent implements IGrpcS
 	this.jwtInterceptor = jwtInterceptor;
     }
 
+    public GrpcMetricsServerInterceptor getMetricsInterceptor() {
+	return metricsInterceptor;
+    }
+
+    public void setMetricsInterceptor(GrpcMetricsServerInterceptor metricsInterceptor) {
+	this.metricsInterceptor = metricsInterceptor;
+    }
+
     public HealthServiceImpl getHealthService() {
 	return healthService;
     }
@@ -0,0 +1,341 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.grpc;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.GrpcConfiguration;
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.ServerExecutorType;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+
+import io.grpc.netty.NettyServerBuilder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+
+/**
+ * Applies transport settings from configuration to gRPC servers. The call
+ * executor and event loop groups are shared by all servers in a microservice,
+ * so the thread count does not grow with the number of servers. The native
+ * epoll transport is used on Linux when available.
+ * 
+ * The shared executor queues a bounded number of calls. Calls arriving while
+ * the queue is full are rejected and fail rather than piling up in memory.
+ * Shared state is created from the first configuration applied, and a warning
+ * is logged if a later server asks for different settings.
+ */
+public class GrpcServerTransport {
+
+    /** Static logger instance */
+    private static Logger LOGGER = LoggerFactory.getLogger(GrpcServerTransport.class);
+
+    /** Label for executor type */
+    private static final String LABEL_EXECUTOR = "executor";
+
+    /** Seconds before idle shared pool threads exit */
+    private static final long IDLE_THREAD_TIMEOUT_SECS = 60;
+
+    /** Gauge for calls waiting on a thread */
+    private static final Gauge QUEUE_DEPTH = TenantEngineLifecycleComponent.createGaugeMetric(
+	    "grpc_server_executor_queue_depth", "Calls waiting for a gRPC server executor thread", LABEL_EXECUTOR);
+
+    /** Gauge for threads running calls */
+    private static final Gauge ACTIVE_THREADS = TenantEngineLifecycleComponent.createGaugeMetric(
+	    "grpc_server_executor_active_threads", "Threads running gRPC server calls", LABEL_EXECUTOR);
+
+    /** Counter for calls rejected by a full executor queue */
+    private static final Counter REJECTED_CALLS = TenantEngineLifecycleComponent.createCounterMetric(
+	    "grpc_server_executor_rejected_calls", "Calls rejected because the gRPC server executor queue was full",
+	    LABEL_EXECUTOR);
+
+    /** Bounded pool shared by all servers */
+    private static ThreadPoolExecutor shared;
+
+    /** Settings shared executor was created with */
+    private static String executorSettings;
+
+    /** Work-stealing pool shared by all servers */
+    private static ForkJoinPool workStealing;
+
+    /** Event loops accepting connections */
+    private static EventLoopGroup bossGroup;
+
+    /** Event loops handling connections */
+    private static EventLoopGroup workerGroup;
+
+    /** Indicates event loops use native epoll transport */
+    private static boolean nativeTransport;
+
+    /** Settings event loops were created with */
+    private static String eventLoopSettings;
+
+    /**
+     * Apply transport settings to a server builder.
+     * 
+     * @param builder
+     * @param grpc
+     * @param metricLabels
+     */
+    public static synchronized void configure(NettyServerBuilder builder, GrpcConfiguration grpc,
+	    String... metricLabels) {
+	Executor executor = getExecutor(grpc, metricLabels);
+	if (executor != null) {
+	    builder.executor(executor);
+	} else {
+	    builder.directExecutor();
+	}
+
+	createEventLoops(grpc);
+	builder.bossEventLoopGroup(bossGroup).workerEventLoopGroup(workerGroup)
+		.channelType(nativeTransport ? EpollServerSocketChannel.class : NioServerSocketChannel.class);
+
+	if (grpc.getMaxConcurrentCallsPerConnection() > 0) {
+	    builder.maxConcurrentCallsPerConnection(grpc.getMaxConcurrentCallsPerConnection());
+	}
+	if (grpc.getFlowControlWindow() > 0) {
+	    builder.flowControlWindow(grpc.getFlowControlWindow());
+	}
+	if (grpc.getMaxInboundMessageSize() > 0) {
+	    builder.maxInboundMessageSize(grpc.getMaxInboundMessageSize());
+	}
+	if (grpc.getKeepAliveTimeSeconds() > 0) {
+	    builder.keepAliveTime(grpc.getKeepAliveTimeSeconds(), TimeUnit.SECONDS);
+	    builder.keepAliveTimeout(grpc.getKeepAliveTimeoutSeconds(), TimeUnit.SECONDS);
+	}
+	if (grpc.getPermitKeepAliveTimeSeconds() > 0) {
+	    builder.permitKeepAliveTime(grpc.getPermitKeepAliveTimeSeconds(), TimeUnit.SECONDS);
+	}
+    }
+
+    /**
+     * Get executor for server calls based on configuration. Returns null when
+     * calls should run directly on the transport thread.
+     * 
+     * @param grpc
+     * @param metricLabels
+     * @return
+     */
+    protected static Executor getExecutor(GrpcConfiguration grpc, String... metricLabels) {
+	int threads = Math.max(1, grpc.getServerExecutorThreads());
+	ServerExecutorType type = grpc.getServerExecutor() != null ? grpc.getServerExecutor()
+		: ServerExecutorType.Shared;
+	if (type != ServerExecutorType.Direct) {
+	    String settings = describeExecutor(grpc);
+	    if (executorSettings == null) {
+		executorSettings = settings;
+	    } else if (!executorSettings.equals(settings)) {
+		LOGGER.warn(String.format("gRPC server executor already created with %s. Ignoring %s.",
+			executorSettings, settings));
+	    }
+	}
+	switch (type) {
+	case Direct: {
+	    return null;
+	}
+	case WorkStealing: {
+	    if (workStealing == null) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		QUEUE_DEPTH.setChild(new Gauge.Child() {
+
+		    /*
+		     * @see io.prometheus.client.Gauge.Child#get()
+		     */
+		    @Override
+		    public double get() {
+			return pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+		    }
+		}, labels(metricLabels, type));
+		ACTIVE_THREADS.setChild(new Gauge.Child() {
+
+		    /*
+		     * @see io.prometheus.client.Gauge.Child#get()
+		     */
+		    @Override
+		    public double get() {
+			return pool.getActiveThreadCount();
+		    }
+		}, labels(metricLabels, type));
+		workStealing = pool;
+	    }
+	    return workStealing;
+	}
+	default: {
+	    if (shared == null) {
+		ThreadPoolExecutor pool = createSharedExecutor(threads, grpc.getServerExecutorQueueCapacity(),
+			new RejectedCallHandler(labels(metricLabels, type)));
+		QUEUE_DEPTH.setChild(new Gauge.Child() {
+
+		    /*
+		     * @see io.prometheus.client.Gauge.Child#get()
+		     */
+		    @Override
+		    public double get() {
+			return pool.getQueue().size();
+		    }
+		}, labels(metricLabels, type));
+		ACTIVE_THREADS.setChild(new Gauge.Child() {
+
+		    /*
+		     * @see io.prometheus.client.Gauge.Child#get()
+		     */
+		    @Override
+		    public double get() {
+			return pool.getActiveCount();
+		    }
+		}, labels(metricLabels, type));
+		shared = pool;
+	    }
+	    return shared;
+	}
+	}
+    }
+
+    /**
+     * Create pool with a bounded queue for server calls.
+     * 
+     * @param threads
+     * @param queueCapacity
+     * @param rejected
+     * @return
+     */
+    protected static ThreadPoolExecutor createSharedExecutor(int threads, int queueCapacity,
+	    RejectedExecutionHandler rejected) {
+	ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_TIMEOUT_SECS, TimeUnit.SECONDS,
+		new ArrayBlockingQueue<Runnable>(Math.max(1, queueCapacity)), new ServerThreadFactory(), rejected);
+	pool.allowCoreThreadTimeOut(true);
+	return pool;
+    }
+
+    /**
+     * Describe settings used to create the shared executor.
+     * 
+     * @param grpc
+     * @return
+     */
+    protected static String describeExecutor(GrpcConfiguration grpc) {
+	return String.format("executor=%s, threads=%d, queueCapacity=%d", grpc.getServerExecutor(),
+		grpc.getServerExecutorThreads(), grpc.getServerExecutorQueueCapacity());
+    }
+
+    /**
+     * Describe settings used to create the shared event loops.
+     * 
+     * @param grpc
+     * @return
+     */
+    protected static String describeEventLoops(GrpcConfiguration grpc) {
+	return String.format("bossThreads=%d, workerThreads=%d, nativeTransport=%s", grpc.getServerBossThreads(),
+		grpc.getServerWorkerThreads(), grpc.isUseNativeTransport());
+    }
+
+    /**
+     * Create shared event loop groups if not already created.
+     * 
+     * @param grpc
+     */
+    protected static void createEventLoops(GrpcConfiguration grpc) {
+	String settings = describeEventLoops(grpc);
+	if (bossGroup != null) {
+	    if (!eventLoopSettings.equals(settings)) {
+		LOGGER.warn(String.format("gRPC server event loops already created with %s. Ignoring %s.",
+			eventLoopSettings, settings));
+	    }
+	    return;
+	}
+	eventLoopSettings = settings;
+	int boss = Math.max(1, grpc.getServerBossThreads());
+	int workers = Math.max(0, grpc.getServerWorkerThreads());
+	DefaultThreadFactory bossThreads = new DefaultThreadFactory("grpc-server-boss", true);
+	DefaultThreadFactory workerThreads = new DefaultThreadFactory("grpc-server-worker", true);
+	nativeTransport = grpc.isUseNativeTransport() && Epoll.isAvailable();
+	if (nativeTransport) {
+	    bossGroup = new EpollEventLoopGroup(boss, bossThreads);
+	    workerGroup = new EpollEventLoopGroup(workers, workerThreads);
+	} else {
+	    bossGroup = new NioEventLoopGroup(boss, bossThreads);
+	    workerGroup = new NioEventLoopGroup(workers, workerThreads);
+	}
+	LOGGER.info(String.format("gRPC servers using %s transport.", nativeTransport ? "epoll" : "NIO"));
+    }
+
+    /**
+     * Append executor type to metric labels.
+     * 
+     * @param metricLabels
+     * @param type
+     * @return
+     */
+    protected static String[] labels(String[] metricLabels, ServerExecutorType type) {
+	String[] all = new String[metricLabels.length + 1];
+	System.arraycopy(metricLabels, 0, all, 0, metricLabels.length);
+	all[metricLabels.length] = type.name();
+	return all;
+    }
+
+    /**
+     * Counts and rejects calls that arrive while the executor queue is full.
+     */
+    protected static class RejectedCallHandler implements RejectedExecutionHandler {
+
+	/** Labels for rejected call counter */
+	private String[] labels;
+
+	public RejectedCallHandler(String[] labels) {
+	    this.labels = labels;
+	}
+
+	/*
+	 * @see java.util.concurrent.RejectedExecutionHandler#rejectedExecution(java.
+	 * lang.Runnable, java.util.concurrent.ThreadPoolExecutor)
+	 */
+	@Override
+	public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+	    REJECTED_CALLS.labels(labels).inc();
+	    throw new RejectedExecutionException(String.format("gRPC server executor queue is full (%d calls waiting).",
+		    executor.getQueue().size()));
+	}
+    }
+
+    /** Used for naming gRPC server threads */
+    private static class ServerThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    Thread thread = new Thread(r, "gRPC Server " + counter.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
+}
\ No newline at end of file
@@ -15,8 +15,6 @@
  */
 package com.sitewhere.microservice.grpc;
 
-import java.util.List;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,7 +26,6 @@ import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
 import com.sitewhere.spi.microservice.multitenant.IMultitenantMicroservice;
 
 import io.grpc.stub.StreamObserver;
-import io.jsonwebtoken.Claims;
 
 /**
  * Uses context tenant token and JWT to execute a call in the user context
@@ -60,16 +57,11 @@ public class GrpcTenantEngineProvider<T extends IMicroserviceTenantEngine<?>> {
 	    String jwt = GrpcKeys.JWT_CONTEXT_KEY.get();
 	    String tenantToken = GrpcKeys.TENANT_CONTEXT_KEY.get();
 
-	    // Parse username and granted authorities.
-	    Claims claims = getMicroservice().getTokenManagement().getClaimsForToken(jwt);
-	    String username = getMicroservice().getTokenManagement().getUsernameFromClaims(claims);
-	    List<String> auths = getMicroservice().getTokenManagement().getGrantedAuthoritiesFromClaims(claims);
-
-	    // Set user context.
-	    SiteWhereAuthentication auth = new SiteWhereAuthentication(username, auths, jwt);
+	    // Verify JWT and set user context.
+	    SiteWhereAuthentication auth = getMicroservice().getTokenManagement().getAuthenticationFromToken(jwt);
 	    auth.setTenantToken(tenantToken);
 	    UserContext.setContext(auth);
-	    LOGGER.debug(String.format("Executing gRPC call in context of user '%s'.", username));
+	    LOGGER.debug(String.format("Executing gRPC call in context of user '%s'.", auth.getUsername()));
 
 	    // Execute callback on tenant engine within user context.
 	    T engine = getMicroservice().assureTenantEngineAvailable(tenantToken);
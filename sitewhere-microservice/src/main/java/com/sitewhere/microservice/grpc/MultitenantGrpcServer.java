@@ -27,6 +27,9 @@ public class MultitenantGrpcServer extends GrpcServer {
     /** Interceptor for tenant token */
     private TenantTokenServerInterceptor tenantTokenInterceptor;
 
+    /** Interceptor for per-tenant concurrency limits */
+    private TenantConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
     public MultitenantGrpcServer(BindableService serviceImplementation, int apiPort, int healthPort) {
 	super(serviceImplementation, apiPort, healthPort);
     }
@@ -38,9 +41,14 @@ public class MultitenantGrpcServer extends GrpcServer {
      */
     protected Server buildServer() {
 	this.tenantTokenInterceptor = new TenantTokenServerInterceptor(getMicroservice());
+	this.concurrencyLimitInterceptor = new TenantConcurrencyLimitInterceptor(getMicroservice());
 	NettyServerBuilder builder = NettyServerBuilder.forPort(getApiPort());
-	builder.addService(getServiceImplementation()).intercept(getTenantTokenInterceptor())
-		.intercept(getJwtInterceptor());
+	configureTransport(builder);
+
+	// Interceptors run in reverse order, so limits apply after header checks.
+	builder.addService(getServiceImplementation()).intercept(getConcurrencyLimitInterceptor())
+		.intercept(getTenantTokenInterceptor()).intercept(getJwtInterceptor())
+		.intercept(getMetricsInterceptor());
 	return builder.build();
     }
 
@@ -51,4 +59,12 @@ public class MultitenantGrpcServer extends GrpcServer {
     protected void setTenantTokenInterceptor(TenantTokenServerInterceptor tenantTokenInterceptor) {
 	this.tenantTokenInterceptor = tenantTokenInterceptor;
     }
+
+    protected TenantConcurrencyLimitInterceptor getConcurrencyLimitInterceptor() {
+	return concurrencyLimitInterceptor;
+    }
+
+    protected void setConcurrencyLimitInterceptor(TenantConcurrencyLimitInterceptor concurrencyLimitInterceptor) {
+	this.concurrencyLimitInterceptor = concurrencyLimitInterceptor;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,317 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.grpc;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.GrpcConfiguration;
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.IFunctionIdentifier;
+import com.sitewhere.spi.microservice.IMicroservice;
+import com.sitewhere.spi.microservice.IMicroserviceConfiguration;
+import com.sitewhere.spi.microservice.multitenant.IMultitenantMicroservice;
+
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+
+/**
+ * Limits the number of concurrent calls handled for each tenant so that a
+ * single tenant can not starve others. Limits adapt using additive increase and
+ * multiplicative decrease: each call that completes quickly raises the limit
+ * slightly, while a slow or overloaded call reduces it by a fixed ratio. The
+ * limit is reduced at most once per window, so only calls started after the
+ * last reduction can reduce it again. Calls over the limit are rejected
+ * immediately with RESOURCE_EXHAUSTED along with a retry pushback hint for
+ * clients.
+ * 
+ * Should run after the tenant token and JWT interceptors. Only tenants with an
+ * engine in this microservice get their own limit. Calls for any other token
+ * share a single limit, so callers can not create limiters or metrics at will.
+ */
+public class TenantConcurrencyLimitInterceptor implements ServerInterceptor {
+
+    /** Static logger instance */
+    private static Logger LOGGER = LoggerFactory.getLogger(TenantConcurrencyLimitInterceptor.class);
+
+    /** Trailer used by gRPC clients to delay retries */
+    private static final Metadata.Key<String> RETRY_PUSHBACK_KEY = Metadata.Key.of("grpc-retry-pushback-ms",
+	    Metadata.ASCII_STRING_MARSHALLER);
+
+    /** Gauge for current tenant limit */
+    private static final Gauge CONCURRENCY_LIMIT = TenantEngineLifecycleComponent
+	    .createGaugeMetric("grpc_server_tenant_concurrency_limit", "Concurrent gRPC call limit for tenant");
+
+    /** Gauge for calls in progress for tenant */
+    private static final Gauge CONCURRENT_CALLS = TenantEngineLifecycleComponent
+	    .createGaugeMetric("grpc_server_tenant_concurrent_calls", "Concurrent gRPC calls in progress for tenant");
+
+    /** Limiter key shared by tokens without a tenant engine */
+    private static final String UNKNOWN_TENANT = "_unknown_";
+
+    /** Counter for rejected calls */
+    private static final Counter REJECTED_CALLS = TenantEngineLifecycleComponent.createCounterMetric(
+	    "grpc_server_tenant_rejected_calls", "gRPC calls rejected by tenant concurrency limit");
+
+    /** Parent microservice */
+    private IMicroservice<? extends IFunctionIdentifier, ? extends IMicroserviceConfiguration> microservice;
+
+    /** gRPC configuration */
+    private GrpcConfiguration configuration;
+
+    /** Limiters indexed by tenant token */
+    private Map<String, TenantLimiter> limiters = new ConcurrentHashMap<>();
+
+    public TenantConcurrencyLimitInterceptor(
+	    IMicroservice<? extends IFunctionIdentifier, ? extends IMicroserviceConfiguration> microservice) {
+	this.microservice = microservice;
+	this.configuration = microservice.getInstanceConfiguration().getInfrastructure().getGrpc();
+    }
+
+    /*
+     * @see io.grpc.ServerInterceptor#interceptCall(io.grpc.ServerCall,
+     * io.grpc.Metadata, io.grpc.ServerCallHandler)
+     */
+    @Override
+    public <ReqT, RespT> Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+	    ServerCallHandler<ReqT, RespT> next) {
+	String tenantToken = headers.get(GrpcKeys.TENANT_KEY);
+	if (!getConfiguration().isTenantConcurrencyLimitEnabled() || (tenantToken == null)) {
+	    return next.startCall(call, headers);
+	}
+	String key = isKnownTenant(tenantToken) ? tenantToken : UNKNOWN_TENANT;
+	TenantLimiter limiter = getLimiters().computeIfAbsent(key, token -> new TenantLimiter(token));
+	long sequence = limiter.acquire();
+	if (sequence < 0) {
+	    limiter.getRejected().inc();
+	    LOGGER.debug(String.format("Rejected call to %s for tenant '%s' over concurrency limit of %d.",
+		    call.getMethodDescriptor().getFullMethodName(), tenantToken, limiter.getLimit()));
+	    Metadata trailers = new Metadata();
+	    if (getConfiguration().getRetryPushbackMs() > 0) {
+		trailers.put(RETRY_PUSHBACK_KEY, String.valueOf(getConfiguration().getRetryPushbackMs()));
+	    }
+	    call.close(Status.RESOURCE_EXHAUSTED.withDescription("Tenant concurrency limit exceeded."), trailers);
+	    return new ServerCall.Listener<ReqT>() {
+	    };
+	}
+	long started = System.nanoTime();
+	AtomicBoolean released = new AtomicBoolean();
+	ServerCall<ReqT, RespT> limited = new SimpleForwardingServerCall<ReqT, RespT>(call) {
+
+	    /*
+	     * @see io.grpc.ForwardingServerCall#close(io.grpc.Status,
+	     * io.grpc.Metadata)
+	     */
+	    @Override
+	    public void close(Status status, Metadata trailers) {
+		if (released.compareAndSet(false, true)) {
+		    limiter.release(sequence, started, isOverload(status.getCode()));
+		}
+		super.close(status, trailers);
+	    }
+	};
+	Listener<ReqT> listener;
+	try {
+	    listener = next.startCall(limited, headers);
+	} catch (RuntimeException e) {
+	    if (released.compareAndSet(false, true)) {
+		limiter.release(sequence, started, false);
+	    }
+	    throw e;
+	}
+	return new SimpleForwardingServerCallListener<ReqT>(listener) {
+
+	    /*
+	     * @see io.grpc.ForwardingServerCallListener#onCancel()
+	     */
+	    @Override
+	    public void onCancel() {
+		if (released.compareAndSet(false, true)) {
+		    limiter.release(sequence, started, false);
+		}
+		super.onCancel();
+	    }
+	};
+    }
+
+    /**
+     * Indicates whether a tenant engine exists for the token in this
+     * microservice.
+     * 
+     * @param tenantToken
+     * @return
+     */
+    protected boolean isKnownTenant(String tenantToken) {
+	if (!(getMicroservice() instanceof IMultitenantMicroservice)) {
+	    return false;
+	}
+	try {
+	    return ((IMultitenantMicroservice<?, ?, ?>) getMicroservice()).getTenantEngineManager()
+		    .getTenantEngineByToken(tenantToken) != null;
+	} catch (SiteWhereException e) {
+	    return false;
+	}
+    }
+
+    /**
+     * Indicates whether a status code signals that the service is overloaded.
+     * 
+     * @param code
+     * @return
+     */
+    protected boolean isOverload(Status.Code code) {
+	switch (code) {
+	case DEADLINE_EXCEEDED:
+	case RESOURCE_EXHAUSTED:
+	case UNAVAILABLE: {
+	    return true;
+	}
+	default: {
+	    return false;
+	}
+	}
+    }
+
+    protected IMicroservice<? extends IFunctionIdentifier, ? extends IMicroserviceConfiguration> getMicroservice() {
+	return microservice;
+    }
+
+    protected GrpcConfiguration getConfiguration() {
+	return configuration;
+    }
+
+    protected Map<String, TenantLimiter> getLimiters() {
+	return limiters;
+    }
+
+    /**
+     * Adaptive concurrency limit for a single tenant.
+     */
+    protected class TenantLimiter {
+
+	/** Current limit */
+	private double limit;
+
+	/** Calls in progress */
+	private int inFlight;
+
+	/** Sequence number of the last call admitted */
+	private long sequence;
+
+	/** Sequence number of the last call admitted when the limit was reduced */
+	private long lastDecreaseSequence = -1;
+
+	/** Limit gauge for tenant */
+	private Gauge.Child limitGauge;
+
+	/** In-flight gauge for tenant */
+	private Gauge.Child inFlightGauge;
+
+	/** Rejection counter for tenant */
+	private Counter.Child rejected;
+
+	public TenantLimiter(String tenantToken) {
+	    String path = getMicroservice().getIdentifier().getPath();
+	    String pod = getMicroservice().getInstanceSettings().getKubernetesPodAddress();
+	    int initial = getConfiguration().getTenantConcurrencyInitialLimit();
+	    this.limit = Math.max(getMinLimit(), Math.min(getMaxLimit(), initial));
+	    this.limitGauge = CONCURRENCY_LIMIT.labels(path, pod, tenantToken);
+	    this.inFlightGauge = CONCURRENT_CALLS.labels(path, pod, tenantToken);
+	    this.rejected = REJECTED_CALLS.labels(path, pod, tenantToken);
+	    getLimitGauge().set(getLimit());
+	}
+
+	/**
+	 * Attempt to reserve capacity for a call. Returns the sequence number of the
+	 * call or -1 if the limit has been reached.
+	 * 
+	 * @return
+	 */
+	public synchronized long acquire() {
+	    if (inFlight >= getLimit()) {
+		return -1;
+	    }
+	    inFlight++;
+	    getInFlightGauge().set(inFlight);
+	    return ++sequence;
+	}
+
+	/**
+	 * Release capacity held by a call and adjust the limit based on how the
+	 * call completed. The limit is only raised while the tenant is using at
+	 * least half of it, so idle tenants do not build up unused headroom. It is
+	 * only reduced by calls admitted after the last reduction, so a burst of
+	 * slow calls reduces it once rather than once per call.
+	 * 
+	 * @param callSequence
+	 * @param started
+	 * @param overload
+	 */
+	public synchronized void release(long callSequence, long started, boolean overload) {
+	    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+	    boolean slow = elapsedMs > getConfiguration().getTenantConcurrencyLatencyThresholdMs();
+	    if (overload || slow) {
+		if (callSequence > lastDecreaseSequence) {
+		    limit = Math.max(getMinLimit(), limit * getConfiguration().getTenantConcurrencyBackoffRatio());
+		    lastDecreaseSequence = sequence;
+		}
+	    } else if (inFlight * 2 >= limit) {
+		limit = Math.min(getMaxLimit(), limit + (1.0 / limit));
+	    }
+	    inFlight--;
+	    getInFlightGauge().set(inFlight);
+	    getLimitGauge().set(getLimit());
+	}
+
+	public synchronized int getLimit() {
+	    return (int) limit;
+	}
+
+	protected int getMinLimit() {
+	    return Math.max(1, getConfiguration().getTenantConcurrencyMinLimit());
+	}
+
+	protected int getMaxLimit() {
+	    return Math.max(getMinLimit(), getConfiguration().getTenantConcurrencyMaxLimit());
+	}
+
+	public Gauge.Child getLimitGauge() {
+	    return limitGauge;
+	}
+
+	public Gauge.Child getInFlightGauge() {
+	    return inFlightGauge;
+	}
+
+	public Counter.Child getRejected() {
+	    return rejected;
+	}
+    }
+}
\ No newline at end of file
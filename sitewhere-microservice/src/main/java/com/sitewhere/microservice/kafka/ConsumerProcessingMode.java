@@ -0,0 +1,31 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.kafka;
+
+/**
+ * Indicates how a consumer processes the records returned by a poll.
+ */
+public enum ConsumerProcessingMode {
+
+    /** Process all partitions one after another on the polling thread */
+    Serial,
+
+    /** Process partitions in parallel, in order within each partition */
+    PartitionParallel,
+
+    /** Process records with different keys in parallel, in order per key */
+    KeyParallel;
+}
\ No newline at end of file
@@ -16,17 +16,23 @@
 package com.sitewhere.microservice.kafka;
 
 import java.util.List;
-import java.util.Map;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.clients.consumer.OffsetAndMetadata;
-import org.apache.kafka.clients.consumer.OffsetCommitCallback;
 import org.apache.kafka.common.TopicPartition;
 
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.kafka.IOffsetCommitPolicy;
 
 public abstract class DirectKafkaConsumer extends MicroserviceKafkaConsumer {
 
+    /*
+     * @see com.sitewhere.microservice.kafka.KafkaRecordConsumer#createCommitPolicy()
+     */
+    @Override
+    protected IOffsetCommitPolicy createCommitPolicy() {
+	return new OffsetCommitPolicy(1000, 1000);
+    }
+
     /*
      * @see
      * com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#process(org.
@@ -36,13 +42,6 @@ public abstract class DirectKafkaConsumer extends MicroserviceKafkaConsumer {
     public void process(TopicPartition topicPartition, List<ConsumerRecord<String, byte[]>> records) {
 	try {
 	    attemptToProcess(topicPartition, records);
-	    getConsumer().commitAsync(new OffsetCommitCallback() {
-		public void onComplete(Map<TopicPartition, OffsetAndMetadata> offsets, Exception e) {
-		    if (e != null) {
-			getLogger().error("Commit failed for offsets " + offsets, e);
-		    }
-		}
-	    });
 	} catch (SiteWhereException e) {
 	    getLogger().error("Exception in consumer processing.", e);
 	} catch (Throwable e) {
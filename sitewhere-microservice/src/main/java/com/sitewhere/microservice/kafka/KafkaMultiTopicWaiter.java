@@ -16,14 +16,13 @@
 package com.sitewhere.microservice.kafka;
 
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
 
 import com.sitewhere.spi.microservice.lifecycle.ITenantEngineLifecycleComponent;
 
 /**
- * Waits on multiple Kafka topics to be found as available or created.
+ * Waits on multiple Kafka topics to be found as available or created. All
+ * topics are verified together by the microservice topic registry.
  */
 public class KafkaMultiTopicWaiter {
 
@@ -33,47 +32,21 @@ public class KafkaMultiTopicWaiter {
     /** Topic names to verify/create */
     private List<String> topicNames;
 
-    /** Latch for counting responses */
-    private CountDownLatch latch;
-
-    /** Threading */
-    private Executor executor = Executors.newSingleThreadExecutor();
-
     public KafkaMultiTopicWaiter(ITenantEngineLifecycleComponent component, List<String> topicNames) {
 	this.component = component;
 	this.topicNames = topicNames;
-	this.latch = new CountDownLatch(topicNames.size());
     }
 
     /**
      * Blocking function which waits for topics to be verified or created.
      */
     public void verify() {
-	for (String topicName : getTopicNames()) {
-	    executor.execute(new TopicWaiter(getComponent(), topicName));
-	}
 	try {
-	    getLatch().await();
+	    getComponent().getMicroservice().getKafkaTopicRegistry().ensureTopics(getTopicNames()).get();
 	} catch (InterruptedException e) {
 	    getComponent().getLogger().info("Interrupted while waiting for Kafka topic to be verified/created.");
-	}
-    }
-
-    /**
-     * Waits on topic and counts down latch after verification.
-     */
-    protected class TopicWaiter extends KafkaTopicWaiter {
-
-	public TopicWaiter(ITenantEngineLifecycleComponent component, String topicName) {
-	    super(component, topicName);
-	}
-
-	/*
-	 * @see com.sitewhere.microservice.kafka.KafkaTopicWaiter#onTopicAvailable()
-	 */
-	@Override
-	protected void onTopicAvailable() {
-	    getLatch().countDown();
+	} catch (ExecutionException e) {
+	    getComponent().getLogger().warn("Kafka topics could not be verified.", e.getCause());
 	}
     }
 
@@ -84,8 +57,4 @@ public class KafkaMultiTopicWaiter {
     protected List<String> getTopicNames() {
 	return topicNames;
     }
-
-    protected CountDownLatch getLatch() {
-	return latch;
-    }
 }
@@ -0,0 +1,135 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.kafka;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Tracks records of a partition that have been handed off for processing so
+ * that an offset is only committed once every record below it is done.
+ */
+public class KafkaOffsetTracker {
+
+    /** Offsets dispatched but not yet completed */
+    private ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+
+    /** Offset after the last dispatched record */
+    private volatile long nextOffset = -1;
+
+    /** Lowest offset handed back for reprocessing or -1 if none */
+    private volatile long returnedOffset = -1;
+
+    /** Last offset committed */
+    private long lastCommitted = -1;
+
+    /**
+     * Record that a record was dispatched for processing.
+     * 
+     * @param record
+     */
+    public void dispatched(ConsumerRecord<?, ?> record) {
+	getPending().add(record.offset());
+	this.nextOffset = record.offset() + 1;
+	if (record.offset() <= returnedOffset) {
+	    clearReturned(record.offset());
+	}
+    }
+
+    /**
+     * Record that a record was processed on the polling thread. Only valid when
+     * records are not dispatched to workers.
+     * 
+     * @param record
+     */
+    public void processed(ConsumerRecord<?, ?> record) {
+	this.nextOffset = record.offset() + 1;
+    }
+
+    /**
+     * Record that processing of a record has finished.
+     * 
+     * @param record
+     */
+    public void completed(ConsumerRecord<?, ?> record) {
+	getPending().remove(record.offset());
+    }
+
+    /**
+     * Record that dispatched records were handed back without being processed.
+     * Offsets are not committed past the first of them until it is dispatched
+     * again.
+     * 
+     * @param records
+     */
+    public synchronized void returned(List<? extends ConsumerRecord<?, ?>> records) {
+	long first = records.get(0).offset();
+	this.returnedOffset = (returnedOffset < 0) ? first : Math.min(returnedOffset, first);
+	for (ConsumerRecord<?, ?> record : records) {
+	    getPending().remove(record.offset());
+	}
+    }
+
+    /**
+     * Clear returned offset once records from it on are dispatched again.
+     * 
+     * @param offset
+     */
+    protected synchronized void clearReturned(long offset) {
+	if (offset <= returnedOffset) {
+	    this.returnedOffset = -1;
+	}
+    }
+
+    /**
+     * Get offset that may be committed, which is the lowest offset still being
+     * processed or the offset after the last dispatched record if none are.
+     * Never passes an offset that was handed back for reprocessing. Returns -1
+     * if nothing has been dispatched.
+     * 
+     * @return
+     */
+    public long getCommittableOffset() {
+	long returned = this.returnedOffset;
+	long next = this.nextOffset;
+	Long lowest = getPending().ceiling(Long.MIN_VALUE);
+	long committable = (lowest != null) ? lowest : next;
+	return (returned >= 0) ? Math.min(committable, returned) : committable;
+    }
+
+    /**
+     * Get number of records still being processed.
+     * 
+     * @return
+     */
+    public int getPendingCount() {
+	return getPending().size();
+    }
+
+    public long getLastCommitted() {
+	return lastCommitted;
+    }
+
+    public void setLastCommitted(long lastCommitted) {
+	this.lastCommitted = lastCommitted;
+    }
+
+    protected ConcurrentSkipListSet<Long> getPending() {
+	return pending;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,1195 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.microservice.metrics.KafkaClientMetricsCollector;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer;
+import com.sitewhere.spi.microservice.kafka.IOffsetCommitPolicy;
+import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+
+/**
+ * Base class for components that consume messages from a Kafka topic with
+ * values delivered as byte arrays.
+ * 
+ * By default all records returned by a poll are processed on the polling
+ * thread. Subclasses may choose a parallel {@link ConsumerProcessingMode}, in
+ * which case batches are handed to a worker pool while the polling thread keeps
+ * polling. Partitions with too many records in progress are paused until the
+ * workers catch up, and offsets are committed by this class once every record
+ * below them has been processed. In parallel modes
+ * {@link #process(TopicPartition, List)} is called on worker threads and must
+ * not use the consumer.
+ * 
+ * Records returned by each poll are limited by {@link #getMaxPollRecords()},
+ * which uses the Kafka default unless overridden. Serial consumers with slow
+ * batches may override it so a batch can not stretch the time between polls.
+ * In parallel modes the number of records in flight is bounded
+ * by {@link #getMaxInFlightRecords()}. All assigned partitions are paused once
+ * the budget is used up and resumed as workers complete records, so the
+ * consumer keeps polling and stays in the group while downstream calls are
+ * slow.
+ * 
+ * Offsets are committed by this class according to the policy returned from
+ * {@link #createCommitPolicy()}, and synchronously when partitions are revoked
+ * or the consumer shuts down.
+ * 
+ * Subclasses may hold partitions by overriding
+ * {@link #isPartitionHeld(TopicPartition)}. Held partitions are paused and
+ * records already fetched for them are fetched again once they are released.
+ * Batches that were already handed to {@link #process(TopicPartition, List)}
+ * may be given back by throwing {@link KafkaRecordsRetryException}, in which
+ * case their offsets are not committed and the partition is rewound. In
+ * parallel modes no further batches of the partition are started once a batch
+ * is handed back. Batches still queued are handed back as well, and the
+ * partition is rewound once batches already running have finished.
+ */
+public abstract class KafkaRecordConsumer extends TenantEngineLifecycleComponent
+	implements IMicroserviceKafkaConsumer {
+
+    /** Poll timeout used when processing in parallel */
+    private static final Duration PARALLEL_POLL_TIMEOUT = Duration.ofMillis(100);
+
+    /** Poll timeout used when processing serially */
+    private static final Duration SERIAL_POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    /** Interval at which consumer lag is refreshed */
+    private static final long LAG_UPDATE_INTERVAL_MS = 10 * 1000;
+
+    /** Kafka metric group holding per-partition fetch lag */
+    private static final String FETCH_METRICS_GROUP = "consumer-fetch-manager-metrics";
+
+    /** Kafka metric with records between position and end of a partition */
+    private static final String RECORDS_LAG_METRIC = "records-lag";
+
+    /** Tenant label value for consumers not bound to a tenant */
+    private static final String GLOBAL_TENANT = "_global_";
+
+    /** Metrics label for consumer id */
+    private static final String LABEL_CONSUMER = "consumer";
+
+    /** Gauge for records not yet consumed on assigned partitions */
+    private static final Gauge CONSUMER_LAG = TenantEngineLifecycleComponent.createGaugeMetric("kafka_consumer_lag",
+	    "Records not yet consumed on assigned partitions", LABEL_CONSUMER);
+
+    /** Gauge for records received but not yet processed */
+    private static final Gauge IN_FLIGHT_RECORDS = TenantEngineLifecycleComponent.createGaugeMetric(
+	    "kafka_consumer_in_flight_records", "Records received but not yet processed", LABEL_CONSUMER);
+
+    /** Gauge for time partitions have been paused due to backpressure */
+    private static final Gauge PAUSED_SECONDS = TenantEngineLifecycleComponent.createGaugeMetric(
+	    "kafka_consumer_paused_seconds", "Time partitions have been paused due to backpressure", LABEL_CONSUMER);
+
+    /** Histogram for time taken to commit offsets */
+    private static final Histogram COMMIT_LATENCY = TenantEngineLifecycleComponent.createHistogramMetric(
+	    "kafka_consumer_commit_latency", "Time taken to commit consumer offsets", LABEL_CONSUMER);
+
+    /** Counter for failed offset commits */
+    private static final Counter COMMIT_FAILURES = TenantEngineLifecycleComponent
+	    .createCounterMetric("kafka_consumer_commit_failures", "Count of failed offset commits", LABEL_CONSUMER);
+
+    /** Metrics label for topic */
+    private static final String LABEL_TOPIC = "topic";
+
+    /** Buckets for end-to-end latency in seconds */
+    private static final double[] LATENCY_BUCKETS = new double[] { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5,
+	    5, 10, 30, 60, 300 };
+
+    /** Counter for records processed */
+    private static final Counter RECORDS_CONSUMED = TenantEngineLifecycleComponent.createCounterMetric(
+	    "kafka_consumer_records", "Count of records processed", LABEL_CONSUMER, LABEL_TOPIC);
+
+    /** Counter for bytes processed */
+    private static final Counter BYTES_CONSUMED = TenantEngineLifecycleComponent.createCounterMetric(
+	    "kafka_consumer_bytes", "Serialized bytes of records processed", LABEL_CONSUMER, LABEL_TOPIC);
+
+    /** Histogram for time taken to process a batch */
+    private static final Histogram BATCH_PROCESSING_TIME = TenantEngineLifecycleComponent.createHistogramMetric(
+	    "kafka_consumer_batch_processing_time", "Time taken to process a batch of records", LABEL_CONSUMER,
+	    LABEL_TOPIC);
+
+    /** Histogram for time from record timestamp until processed */
+    private static final Histogram END_TO_END_LATENCY = TenantEngineLifecycleComponent.createHistogramMetric(
+	    "kafka_consumer_end_to_end_latency", "Time from record timestamp until record is processed",
+	    LATENCY_BUCKETS, LABEL_CONSUMER, LABEL_TOPIC);
+
+    /** Max time to wait for in-progress records when partitions are revoked */
+    private static final long REVOKE_WAIT_MS = 10 * 1000;
+
+    /** Consumer */
+    private KafkaConsumer<String, byte[]> consumer;
+
+    /** Executor service */
+    private ExecutorService executor;
+
+    /** Worker pool used in parallel processing modes */
+    private ExecutorService workers;
+
+    /** Processing state for each assigned partition */
+    private Map<TopicPartition, PartitionState> partitionStates = new ConcurrentHashMap<>();
+
+    /** Partitions paused because workers have fallen behind */
+    private Set<TopicPartition> pausedPartitions = new HashSet<>();
+
+    /** Partitions paused because they are held in serial mode */
+    private Set<TopicPartition> heldPartitions = new HashSet<>();
+
+    /** Indicates in-flight budget is used up and all partitions are paused */
+    private boolean budgetExhausted;
+
+    /** Time at which partitions were first paused or zero if none are */
+    private long pausedSince;
+
+    /** Time at which consumer lag was last refreshed */
+    private long lastLagUpdate;
+
+    /** Label values for consumer metrics */
+    private String[] metricLabels;
+
+    /** Label values for per-topic consumer metrics indexed by topic */
+    private Map<String, String[]> topicMetricLabels = new ConcurrentHashMap<>();
+
+    /** Policy deciding when offsets are committed */
+    private IOffsetCommitPolicy commitPolicy;
+
+    /** Records completed since offsets were last committed */
+    private AtomicLong uncommittedRecords = new AtomicLong();
+
+    /** Time at which offsets were last committed */
+    private long lastCommitTime;
+
+    /** Offsets partitions are rewound to before the next poll */
+    private Map<TopicPartition, Long> rewinds = new ConcurrentHashMap<>();
+
+    /** Commits completed work when partitions are revoked */
+    private ConsumerRebalanceListener rebalanceListener = new RebalanceListener();
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#start(com.sitewhere.spi
+     * .server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	getLogger().info("Consumer connecting to Kafka: " + KafkaUtils.getBootstrapServers(getMicroservice()));
+	getLogger().info("Will be consuming messages from: " + getSourceTopicNames());
+	this.consumer = new KafkaConsumer<>(buildConfiguration());
+	this.metricLabels = buildMetricLabels();
+	KafkaClientMetricsCollector.register(getComponentId().toString(), getMetricLabels(), consumer::metrics);
+	this.commitPolicy = createCommitPolicy();
+	this.lastCommitTime = System.currentTimeMillis();
+	if (isParallel()) {
+	    getLogger().info(String.format("Consumer processing records in %s mode with %d workers.",
+		    getProcessingMode(), getWorkerThreadCount()));
+	    this.workers = Executors.newFixedThreadPool(getWorkerThreadCount(), new WorkerThreadFactory());
+	}
+	this.executor = Executors.newSingleThreadExecutor(new MicroserviceConsumerThreadFactory());
+	executor.execute(new MessageConsumer());
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#stop(com.sitewhere.spi.
+     * server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (getConsumer() != null) {
+	    getConsumer().wakeup();
+	}
+	if (executor != null) {
+	    executor.shutdown();
+	}
+    }
+
+    /**
+     * Build configuration settings used by Kafka streams.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Properties buildConfiguration() throws SiteWhereException {
+	Properties config = new Properties();
+	config.put(ConsumerConfig.CLIENT_ID_CONFIG, getConsumerId());
+	config.put(ConsumerConfig.GROUP_ID_CONFIG, getConsumerGroupId());
+	config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, KafkaUtils.getBootstrapServers(getMicroservice()));
+	config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+	config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+	config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+	config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+	config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, getMaxPollRecords());
+	return config;
+    }
+
+    /**
+     * Build label values used for consumer metrics.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected String[] buildMetricLabels() throws SiteWhereException {
+	if (getTenantEngine() != null) {
+	    return buildLabels(getConsumerId());
+	}
+	return new String[] { getMicroservice().getIdentifier().getPath(),
+		getMicroservice().getInstanceSettings().getKubernetesPodAddress(), GLOBAL_TENANT, getConsumerId() };
+    }
+
+    /**
+     * Subscribe to source topics.
+     * 
+     * @throws SiteWhereException
+     */
+    protected void subscribe() throws SiteWhereException {
+	getLogger().debug(String.format("Kafka consumer subscribing to %s", getSourceTopicNames().toString()));
+	getConsumer().subscribe(getSourceTopicNames(), getRebalanceListener());
+    }
+
+    /**
+     * Called on the polling thread before each poll. Subclasses may use the
+     * consumer here.
+     */
+    protected void beforePoll() {
+    }
+
+    /**
+     * Indicates records for a partition should not be processed for now. Called
+     * on the polling thread.
+     * 
+     * @param topicPartition
+     * @return
+     */
+    protected boolean isPartitionHeld(TopicPartition topicPartition) {
+	return false;
+    }
+
+    /**
+     * Remove records of held partitions from a batch, rewinding those partitions
+     * so the records are fetched again once they are released.
+     * 
+     * @param records
+     * @return
+     */
+    protected ConsumerRecords<String, byte[]> removeHeldRecords(ConsumerRecords<String, byte[]> records) {
+	Map<TopicPartition, List<ConsumerRecord<String, byte[]>>> kept = null;
+	for (TopicPartition topicPartition : records.partitions()) {
+	    if (isPartitionHeld(topicPartition)) {
+		if (kept == null) {
+		    kept = new HashMap<>();
+		    for (TopicPartition other : records.partitions()) {
+			kept.put(other, records.records(other));
+		    }
+		}
+		kept.remove(topicPartition);
+		getConsumer().seek(topicPartition, records.records(topicPartition).get(0).offset());
+	    }
+	}
+	return (kept != null) ? new ConsumerRecords<>(kept) : records;
+    }
+
+    /**
+     * Rewind a partition so that records handed back from processing are
+     * fetched again on a later poll. May be called from worker threads.
+     * 
+     * @param topicPartition
+     * @param records
+     */
+    protected void rewind(TopicPartition topicPartition, List<ConsumerRecord<String, byte[]>> records) {
+	getRewinds().merge(topicPartition, records.get(0).offset(), Math::min);
+    }
+
+    /**
+     * Seek partitions with records handed back from processing. Called on the
+     * polling thread before each poll. A partition with batches still running is
+     * rewound on a later poll, so that they do not complete offsets that are
+     * dispatched again.
+     */
+    protected void applyRewinds() {
+	if (getRewinds().isEmpty()) {
+	    return;
+	}
+	Set<TopicPartition> assigned = getConsumer().assignment();
+	for (TopicPartition topicPartition : new ArrayList<>(getRewinds().keySet())) {
+	    PartitionState state = getPartitionStates().get(topicPartition);
+	    if ((state != null) && state.isRunning()) {
+		continue;
+	    }
+	    Long offset = getRewinds().remove(topicPartition);
+	    if ((offset != null) && assigned.contains(topicPartition)) {
+		getLogger().debug(String.format("Rewinding %s to offset %d.", topicPartition, offset));
+		getConsumer().seek(topicPartition, offset);
+	    }
+	    if (state != null) {
+		state.returnQueued();
+		state.setHandedBack(false);
+	    }
+	}
+    }
+
+    /**
+     * Build label values used for per-topic consumer metrics.
+     * 
+     * @param topic
+     * @return
+     */
+    protected String[] buildTopicMetricLabels(String topic) {
+	String[] labels = Arrays.copyOf(getMetricLabels(), getMetricLabels().length + 1);
+	labels[labels.length - 1] = topic;
+	return labels;
+    }
+
+    /**
+     * Get label values used for per-topic consumer metrics.
+     * 
+     * @param topic
+     * @return
+     */
+    protected String[] getTopicMetricLabels(String topic) {
+	return getTopicMetricLabelCache().computeIfAbsent(topic, t -> buildTopicMetricLabels(t));
+    }
+
+    /**
+     * Process a batch of records and record throughput and latency metrics.
+     * Metrics are only recorded for batches that were processed, so batches
+     * handed back are counted once when they are processed again.
+     * 
+     * @param topicPartition
+     * @param records
+     */
+    protected void processBatch(TopicPartition topicPartition, List<ConsumerRecord<String, byte[]>> records) {
+	long start = System.nanoTime();
+	process(topicPartition, records);
+
+	long now = System.currentTimeMillis();
+	String[] labels = getTopicMetricLabels(topicPartition.topic());
+	BATCH_PROCESSING_TIME.labels(labels).observe((System.nanoTime() - start) / 1e9);
+	Histogram.Child latency = END_TO_END_LATENCY.labels(labels);
+	long bytes = 0;
+	for (ConsumerRecord<String, byte[]> record : records) {
+	    bytes += Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+	    if (record.timestamp() >= 0) {
+		latency.observe(Math.max(0, now - record.timestamp()) / 1000.0);
+	    }
+	}
+	RECORDS_CONSUMED.labels(labels).inc(records.size());
+	BYTES_CONSUMED.labels(labels).inc(bytes);
+    }
+
+    /**
+     * Get mode used to process polled records. Override to process in parallel.
+     * 
+     * @return
+     */
+    protected ConsumerProcessingMode getProcessingMode() {
+	return ConsumerProcessingMode.Serial;
+    }
+
+    /**
+     * Get number of worker threads used in parallel processing modes.
+     * 
+     * @return
+     */
+    protected int getWorkerThreadCount() {
+	return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Get number of lanes records of a partition are spread over by key in
+     * {@link ConsumerProcessingMode#KeyParallel} mode.
+     * 
+     * @return
+     */
+    protected int getKeyLanesPerPartition() {
+	return 4;
+    }
+
+    /**
+     * Get number of records in progress for a partition at which it is paused.
+     * The partition is resumed once half of them have completed.
+     * 
+     * @return
+     */
+    protected int getMaxPendingRecordsPerPartition() {
+	return 1000;
+    }
+
+    /**
+     * Get maximum number of records returned by a single poll. Defaults to the
+     * Kafka default. Serial consumers process each batch on the polling thread,
+     * so those with slow batches may return a smaller value to keep the time
+     * between polls short.
+     * 
+     * @return
+     */
+    protected int getMaxPollRecords() {
+	return ConsumerConfig.DEFAULT_MAX_POLL_RECORDS;
+    }
+
+    /**
+     * Get maximum number of records received but not yet processed across all
+     * partitions in parallel modes.
+     * 
+     * @return
+     */
+    protected int getMaxInFlightRecords() {
+	return 5000;
+    }
+
+    /**
+     * Get number of records dispatched to workers that have not completed.
+     * 
+     * @return
+     */
+    protected int getInFlightCount() {
+	int count = 0;
+	for (PartitionState state : getPartitionStates().values()) {
+	    count += state.getTracker().getPendingCount();
+	}
+	return count;
+    }
+
+    /**
+     * Create policy that decides when completed offsets are committed. Parallel
+     * modes commit every 1000 records or every second by default. In serial mode
+     * the default is null, which leaves commits to the subclass.
+     * 
+     * @return
+     */
+    protected IOffsetCommitPolicy createCommitPolicy() {
+	return isParallel() ? new OffsetCommitPolicy(1000, 1000) : null;
+    }
+
+    /**
+     * Indicates whether this class tracks and commits offsets.
+     * 
+     * @return
+     */
+    protected boolean isCommittingOffsets() {
+	return isParallel() || (getCommitPolicy() != null);
+    }
+
+    /**
+     * Indicates whether records are processed on worker threads.
+     * 
+     * @return
+     */
+    protected boolean isParallel() {
+	return getProcessingMode() != ConsumerProcessingMode.Serial;
+    }
+
+    /**
+     * Process records on the polling thread.
+     * 
+     * @param records
+     */
+    protected void processSerially(ConsumerRecords<String, byte[]> records) {
+	IN_FLIGHT_RECORDS.labels(getMetricLabels()).set(records.count());
+	for (TopicPartition topicPartition : records.partitions()) {
+	    try {
+		List<ConsumerRecord<String, byte[]>> topicRecords = records.records(topicPartition);
+		getLogger().debug(String.format("Kafka consumer processing %d records for %s partition %s.",
+			topicRecords.size(), topicPartition.topic(), topicPartition.partition()));
+		processBatch(topicPartition, topicRecords);
+		if (isCommittingOffsets()) {
+		    getPartitionState(topicPartition).getTracker()
+			    .processed(topicRecords.get(topicRecords.size() - 1));
+		    getUncommittedRecords().addAndGet(topicRecords.size());
+		}
+	    } catch (KafkaRecordsRetryException e) {
+		getLogger().debug(String.format("Records for %s handed back. %s", topicPartition, e.getMessage()));
+		rewind(topicPartition, records.records(topicPartition));
+	    } catch (Throwable e) {
+		getLogger().error("Unhandled exception in consumer processing.", e);
+	    }
+	}
+	IN_FLIGHT_RECORDS.labels(getMetricLabels()).set(0);
+    }
+
+    /**
+     * Hand records off to worker lanes. Records of a partition stay in order
+     * within their lane.
+     * 
+     * @param records
+     */
+    protected void dispatch(ConsumerRecords<String, byte[]> records) {
+	for (TopicPartition topicPartition : records.partitions()) {
+	    List<ConsumerRecord<String, byte[]>> topicRecords = records.records(topicPartition);
+	    PartitionState state = getPartitionState(topicPartition);
+	    for (ConsumerRecord<String, byte[]> record : topicRecords) {
+		state.getTracker().dispatched(record);
+	    }
+	    if (state.getLanes().length == 1) {
+		state.getLanes()[0].submit(topicRecords);
+		continue;
+	    }
+	    Map<Integer, List<ConsumerRecord<String, byte[]>>> byLane = new HashMap<>();
+	    for (ConsumerRecord<String, byte[]> record : topicRecords) {
+		int lane = Math.floorMod(Objects.hashCode(record.key()), state.getLanes().length);
+		byLane.computeIfAbsent(lane, l -> new ArrayList<>()).add(record);
+	    }
+	    for (Map.Entry<Integer, List<ConsumerRecord<String, byte[]>>> entry : byLane.entrySet()) {
+		state.getLanes()[entry.getKey()].submit(entry.getValue());
+	    }
+	}
+    }
+
+    /**
+     * Get processing state for a partition, creating it if necessary.
+     * 
+     * @param topicPartition
+     * @return
+     */
+    protected PartitionState getPartitionState(TopicPartition topicPartition) {
+	return getPartitionStates().computeIfAbsent(topicPartition,
+		tp -> new PartitionState(tp, getProcessingMode() == ConsumerProcessingMode.KeyParallel
+			? Math.max(1, getKeyLanesPerPartition())
+			: 1));
+    }
+
+    /**
+     * Pause partitions that have too many records in progress and resume those
+     * that have caught up. All assigned partitions are paused while the in-flight
+     * budget is used up.
+     */
+    protected void applyBackpressure() {
+	int max = getMaxPendingRecordsPerPartition();
+	for (PartitionState state : getPartitionStates().values()) {
+	    int pending = state.getTracker().getPendingCount();
+	    if (pending >= max) {
+		getPausedPartitions().add(state.getTopicPartition());
+	    } else if (pending <= max / 2) {
+		getPausedPartitions().remove(state.getTopicPartition());
+	    }
+	}
+
+	int inFlight = getInFlightCount();
+	IN_FLIGHT_RECORDS.labels(getMetricLabels()).set(inFlight);
+	if (!budgetExhausted && (inFlight >= getMaxInFlightRecords())) {
+	    getLogger().debug(String.format("In-flight budget used up with %d records. Pausing consumer.", inFlight));
+	    this.budgetExhausted = true;
+	} else if (budgetExhausted && (inFlight <= getMaxInFlightRecords() / 2)) {
+	    getLogger().debug(String.format("In-flight records down to %d. Resuming consumer.", inFlight));
+	    this.budgetExhausted = false;
+	}
+
+	Set<TopicPartition> wanted = new HashSet<>(getConsumer().assignment());
+	if (!budgetExhausted) {
+	    wanted.retainAll(getPausedPartitions());
+	}
+	updatePausedPartitions(wanted);
+
+	if (wanted.isEmpty()) {
+	    this.pausedSince = 0;
+	} else if (pausedSince == 0) {
+	    this.pausedSince = System.currentTimeMillis();
+	}
+	PAUSED_SECONDS.labels(getMetricLabels())
+		.set(pausedSince == 0 ? 0 : (System.currentTimeMillis() - pausedSince) / 1000.0);
+    }
+
+    /**
+     * Pause the given partitions along with any held partitions and resume all
+     * others.
+     * 
+     * @param backpressure
+     */
+    protected void updatePausedPartitions(Set<TopicPartition> backpressure) {
+	Set<TopicPartition> wanted = new HashSet<>(backpressure);
+	for (TopicPartition topicPartition : getConsumer().assignment()) {
+	    if (isPartitionHeld(topicPartition)) {
+		wanted.add(topicPartition);
+	    }
+	}
+	Set<TopicPartition> paused = getConsumer().paused();
+	List<TopicPartition> pause = new ArrayList<>();
+	for (TopicPartition topicPartition : wanted) {
+	    if (!paused.contains(topicPartition)) {
+		pause.add(topicPartition);
+	    }
+	}
+	List<TopicPartition> resume = new ArrayList<>();
+	for (TopicPartition topicPartition : paused) {
+	    if (!wanted.contains(topicPartition)) {
+		resume.add(topicPartition);
+	    }
+	}
+	if (!pause.isEmpty()) {
+	    getLogger().debug(String.format("Pausing partitions %s.", pause));
+	    getConsumer().pause(pause);
+	}
+	if (!resume.isEmpty()) {
+	    getLogger().debug(String.format("Resuming partitions %s.", resume));
+	    getConsumer().resume(resume);
+	}
+    }
+
+    /**
+     * Pause held partitions and resume released ones in serial mode. Only
+     * partitions paused here are resumed, so pauses made by subclasses are left
+     * alone.
+     */
+    protected void updateHeldPartitions() {
+	Set<TopicPartition> assigned = getConsumer().assignment();
+	Set<TopicPartition> paused = getConsumer().paused();
+	getHeldPartitions().retainAll(assigned);
+	List<TopicPartition> pause = new ArrayList<>();
+	List<TopicPartition> resume = new ArrayList<>();
+	for (TopicPartition topicPartition : assigned) {
+	    if (isPartitionHeld(topicPartition)) {
+		getHeldPartitions().add(topicPartition);
+		if (!paused.contains(topicPartition)) {
+		    pause.add(topicPartition);
+		}
+	    } else if (getHeldPartitions().remove(topicPartition) && paused.contains(topicPartition)) {
+		resume.add(topicPartition);
+	    }
+	}
+	if (!pause.isEmpty()) {
+	    getLogger().debug(String.format("Pausing held partitions %s.", pause));
+	    getConsumer().pause(pause);
+	}
+	if (!resume.isEmpty()) {
+	    getLogger().debug(String.format("Resuming released partitions %s.", resume));
+	    getConsumer().resume(resume);
+	}
+    }
+
+    /**
+     * Periodically refresh lag between the consumer position and the end of each
+     * assigned partition. Lag is read from fetch metrics kept by the consumer, so
+     * no remote calls are made on the polling thread.
+     */
+    protected void updateLag() {
+	long now = System.currentTimeMillis();
+	if (now - lastLagUpdate < LAG_UPDATE_INTERVAL_MS) {
+	    return;
+	}
+	this.lastLagUpdate = now;
+	Set<TopicPartition> assigned = getConsumer().assignment();
+	if (assigned.isEmpty()) {
+	    CONSUMER_LAG.labels(getMetricLabels()).set(0);
+	    return;
+	}
+	try {
+	    double lag = 0;
+	    for (Map.Entry<MetricName, ? extends Metric> entry : getConsumer().metrics().entrySet()) {
+		MetricName name = entry.getKey();
+		if (!FETCH_METRICS_GROUP.equals(name.group()) || !RECORDS_LAG_METRIC.equals(name.name())) {
+		    continue;
+		}
+		String topic = name.tags().get("topic");
+		String partition = name.tags().get("partition");
+		if ((topic == null) || (partition == null)
+			|| !assigned.contains(new TopicPartition(topic, Integer.parseInt(partition)))) {
+		    continue;
+		}
+		Object value = entry.getValue().metricValue();
+		if ((value instanceof Number) && !Double.isNaN(((Number) value).doubleValue())) {
+		    lag += Math.max(0, ((Number) value).doubleValue());
+		}
+	    }
+	    CONSUMER_LAG.labels(getMetricLabels()).set(lag);
+	} catch (Throwable e) {
+	    getLogger().debug("Unable to compute consumer lag.", e);
+	}
+    }
+
+    /**
+     * Remove metrics for this consumer.
+     */
+    protected void removeMetrics() {
+	if (getMetricLabels() != null) {
+	    CONSUMER_LAG.remove(getMetricLabels());
+	    COMMIT_LATENCY.remove(getMetricLabels());
+	    COMMIT_FAILURES.remove(getMetricLabels());
+	    IN_FLIGHT_RECORDS.remove(getMetricLabels());
+	    PAUSED_SECONDS.remove(getMetricLabels());
+	}
+	for (String[] labels : getTopicMetricLabelCache().values()) {
+	    RECORDS_CONSUMED.remove(labels);
+	    BYTES_CONSUMED.remove(labels);
+	    BATCH_PROCESSING_TIME.remove(labels);
+	    END_TO_END_LATENCY.remove(labels);
+	}
+	getTopicMetricLabelCache().clear();
+    }
+
+    /**
+     * Get offsets that have advanced since they were last committed.
+     * 
+     * @param partitions
+     * @return
+     */
+    protected Map<TopicPartition, OffsetAndMetadata> getCommittableOffsets(Collection<TopicPartition> partitions) {
+	Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+	for (TopicPartition topicPartition : partitions) {
+	    PartitionState state = getPartitionStates().get(topicPartition);
+	    if (state == null) {
+		continue;
+	    }
+	    long committable = state.getTracker().getCommittableOffset();
+	    if (committable > state.getTracker().getLastCommitted()) {
+		offsets.put(topicPartition, new OffsetAndMetadata(committable));
+		state.getTracker().setLastCommitted(committable);
+	    }
+	}
+	return offsets;
+    }
+
+    /**
+     * Commit completed offsets if the commit policy says a commit is due.
+     */
+    protected void commitIfDue() {
+	if (getCommitPolicy() == null) {
+	    return;
+	}
+	long now = System.currentTimeMillis();
+	if (getCommitPolicy().isCommitDue(getUncommittedRecords().get(), now - lastCommitTime)) {
+	    commitCompleted();
+	}
+    }
+
+    /**
+     * Commit offsets of records that have completed processing.
+     */
+    protected void commitCompleted() {
+	getUncommittedRecords().set(0);
+	this.lastCommitTime = System.currentTimeMillis();
+	Map<TopicPartition, OffsetAndMetadata> offsets = getCommittableOffsets(getPartitionStates().keySet());
+	if (!offsets.isEmpty()) {
+	    long start = System.nanoTime();
+	    getConsumer().commitAsync(offsets, (committed, e) -> {
+		COMMIT_LATENCY.labels(getMetricLabels()).observe((System.nanoTime() - start) / 1e9);
+		if (e != null) {
+		    COMMIT_FAILURES.labels(getMetricLabels()).inc();
+		    getLogger().error("Commit failed for offsets " + committed, e);
+		}
+	    });
+	}
+    }
+
+    /**
+     * Wait for in-progress records of the given partitions, then commit their
+     * offsets and stop tracking them.
+     * 
+     * @param partitions
+     */
+    protected void releasePartitions(Collection<TopicPartition> partitions) {
+	long deadline = System.currentTimeMillis() + REVOKE_WAIT_MS;
+	for (TopicPartition topicPartition : partitions) {
+	    PartitionState state = getPartitionStates().get(topicPartition);
+	    if ((state != null) && state.isHandedBack()) {
+		state.returnQueued();
+	    }
+	    while ((state != null) && (state.getTracker().getPendingCount() > 0)
+		    && (System.currentTimeMillis() < deadline)) {
+		try {
+		    Thread.sleep(10);
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		    break;
+		}
+	    }
+	}
+	Map<TopicPartition, OffsetAndMetadata> offsets = getCommittableOffsets(partitions);
+	if (!offsets.isEmpty()) {
+	    long start = System.nanoTime();
+	    try {
+		getConsumer().commitSync(offsets);
+	    } catch (Throwable e) {
+		COMMIT_FAILURES.labels(getMetricLabels()).inc();
+		getLogger().error("Commit failed for offsets " + offsets, e);
+	    } finally {
+		COMMIT_LATENCY.labels(getMetricLabels()).observe((System.nanoTime() - start) / 1e9);
+	    }
+	}
+	for (TopicPartition topicPartition : partitions) {
+	    getPartitionStates().remove(topicPartition);
+	    getPausedPartitions().remove(topicPartition);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#getConsumer()
+     */
+    @Override
+    public KafkaConsumer<String, byte[]> getConsumer() {
+	return consumer;
+    }
+
+    protected void setConsumer(KafkaConsumer<String, byte[]> consumer) {
+	this.consumer = consumer;
+    }
+
+    protected ExecutorService getWorkers() {
+	return workers;
+    }
+
+    protected Map<TopicPartition, PartitionState> getPartitionStates() {
+	return partitionStates;
+    }
+
+    protected Set<TopicPartition> getPausedPartitions() {
+	return pausedPartitions;
+    }
+
+    protected Map<TopicPartition, Long> getRewinds() {
+	return rewinds;
+    }
+
+    protected Set<TopicPartition> getHeldPartitions() {
+	return heldPartitions;
+    }
+
+    protected String[] getMetricLabels() {
+	return metricLabels;
+    }
+
+    protected Map<String, String[]> getTopicMetricLabelCache() {
+	return topicMetricLabels;
+    }
+
+    protected IOffsetCommitPolicy getCommitPolicy() {
+	return commitPolicy;
+    }
+
+    protected AtomicLong getUncommittedRecords() {
+	return uncommittedRecords;
+    }
+
+    protected ConsumerRebalanceListener getRebalanceListener() {
+	return rebalanceListener;
+    }
+
+    /**
+     * Processing state of an assigned partition.
+     */
+    protected class PartitionState {
+
+	/** Partition */
+	private TopicPartition topicPartition;
+
+	/** Tracks offsets in progress */
+	private KafkaOffsetTracker tracker = new KafkaOffsetTracker();
+
+	/** Lanes records are processed in */
+	private Lane[] lanes;
+
+	/** Indicates a batch was handed back and partition is not rewound yet */
+	private volatile boolean handedBack;
+
+	public PartitionState(TopicPartition topicPartition, int laneCount) {
+	    this.topicPartition = topicPartition;
+	    this.lanes = new Lane[laneCount];
+	    for (int i = 0; i < laneCount; i++) {
+		lanes[i] = new Lane(this);
+	    }
+	}
+
+	public TopicPartition getTopicPartition() {
+	    return topicPartition;
+	}
+
+	public KafkaOffsetTracker getTracker() {
+	    return tracker;
+	}
+
+	/**
+	 * Indicates whether any lane is queued on or running in the worker pool.
+	 * 
+	 * @return
+	 */
+	public boolean isRunning() {
+	    for (Lane lane : getLanes()) {
+		if (lane.isScheduled()) {
+		    return true;
+		}
+	    }
+	    return false;
+	}
+
+	/**
+	 * Hand back all batches waiting in lanes and resume scheduling.
+	 */
+	public void returnQueued() {
+	    for (Lane lane : getLanes()) {
+		lane.returnQueued();
+	    }
+	}
+
+	public Lane[] getLanes() {
+	    return lanes;
+	}
+
+	public boolean isHandedBack() {
+	    return handedBack;
+	}
+
+	public void setHandedBack(boolean handedBack) {
+	    this.handedBack = handedBack;
+	}
+    }
+
+    /**
+     * Processes batches one at a time, in submission order, on the worker pool.
+     */
+    protected class Lane implements Runnable {
+
+	/** Owning partition */
+	private PartitionState partition;
+
+	/** Batches waiting to be processed */
+	private Queue<List<ConsumerRecord<String, byte[]>>> batches = new ConcurrentLinkedQueue<>();
+
+	/** Indicates lane is queued on or running in the worker pool */
+	private AtomicBoolean scheduled = new AtomicBoolean();
+
+	public Lane(PartitionState partition) {
+	    this.partition = partition;
+	}
+
+	/**
+	 * Add a batch and make sure the lane is scheduled.
+	 * 
+	 * @param records
+	 */
+	public void submit(List<ConsumerRecord<String, byte[]>> records) {
+	    batches.add(records);
+	    schedule();
+	}
+
+	/**
+	 * Schedule lane on worker pool if not already scheduled. Lanes of a
+	 * partition with a batch handed back are not scheduled until the partition
+	 * is rewound. If the pool was shut down, queued batches are handed back.
+	 */
+	protected void schedule() {
+	    if (!partition.isHandedBack() && !batches.isEmpty() && scheduled.compareAndSet(false, true)) {
+		try {
+		    getWorkers().execute(this);
+		} catch (RejectedExecutionException e) {
+		    returnQueued();
+		    scheduled.set(false);
+		}
+	    }
+	}
+
+	/**
+	 * Hand back all queued batches so their offsets are not committed.
+	 */
+	public void returnQueued() {
+	    List<ConsumerRecord<String, byte[]>> records;
+	    while ((records = batches.poll()) != null) {
+		partition.getTracker().returned(records);
+	    }
+	}
+
+	public boolean isScheduled() {
+	    return scheduled.get();
+	}
+
+	/*
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+	    List<ConsumerRecord<String, byte[]>> records = partition.isHandedBack() ? null : batches.poll();
+	    if (records != null) {
+		boolean returned = false;
+		try {
+		    processBatch(partition.getTopicPartition(), records);
+		} catch (KafkaRecordsRetryException e) {
+		    getLogger().debug(String.format("Records for %s handed back. %s", partition.getTopicPartition(),
+			    e.getMessage()));
+		    partition.setHandedBack(true);
+		    partition.getTracker().returned(records);
+		    rewind(partition.getTopicPartition(), records);
+		    returned = true;
+		} catch (Throwable e) {
+		    getLogger().error("Unhandled exception in consumer processing.", e);
+		} finally {
+		    if (!returned) {
+			for (ConsumerRecord<String, byte[]> record : records) {
+			    partition.getTracker().completed(record);
+			}
+			getUncommittedRecords().addAndGet(records.size());
+		    }
+		}
+	    }
+	    scheduled.set(false);
+	    schedule();
+	}
+    }
+
+    /**
+     * Thread that polls Kafka for records arriving on the specified topic.
+     */
+    private class MessageConsumer implements Runnable {
+
+	@Override
+	public void run() {
+	    // Attempt to subscribe
+	    while (true) {
+		try {
+		    subscribe();
+		    break;
+		} catch (SiteWhereException e) {
+		    getLogger().error("Unable to subscribe to topics.", e);
+		} catch (Throwable e) {
+		    getLogger().error("Unhandled exception while subscribing to topics.", e);
+		}
+		try {
+		    Thread.sleep(1000);
+		} catch (InterruptedException e) {
+		    return;
+		}
+	    }
+	    try {
+		while (true) {
+		    beforePoll();
+		    applyRewinds();
+		    ConsumerRecords<String, byte[]> records = getConsumer()
+			    .poll(isParallel() ? PARALLEL_POLL_TIMEOUT : SERIAL_POLL_TIMEOUT);
+		    if (!records.isEmpty()) {
+			getLogger()
+				.debug(String.format("Kafka consumer received %d records on poll.", records.count()));
+			records = removeHeldRecords(records);
+		    }
+		    if (isParallel()) {
+			dispatch(records);
+			applyBackpressure();
+		    } else {
+			processSerially(records);
+			updateHeldPartitions();
+		    }
+		    if (isCommittingOffsets()) {
+			commitIfDue();
+		    }
+		    updateLag();
+		}
+	    } catch (WakeupException e) {
+		getLogger().info("Consumer thread received shutdown request.");
+		if (isCommittingOffsets()) {
+		    releasePartitions(new ArrayList<>(getPartitionStates().keySet()));
+		}
+		if (isParallel()) {
+		    getWorkers().shutdown();
+		}
+		getConsumer().unsubscribe();
+	    } finally {
+		KafkaClientMetricsCollector.unregister(getComponentId().toString());
+		removeMetrics();
+		getConsumer().close();
+	    }
+	}
+    }
+
+    /**
+     * Commits completed work for partitions taken away in a rebalance.
+     */
+    private class RebalanceListener implements ConsumerRebalanceListener {
+
+	/*
+	 * @see org.apache.kafka.clients.consumer.ConsumerRebalanceListener#
+	 * onPartitionsRevoked(java.util.Collection)
+	 */
+	@Override
+	public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+	    for (TopicPartition topicPartition : partitions) {
+		getRewinds().remove(topicPartition);
+	    }
+	    if (isCommittingOffsets()) {
+		releasePartitions(partitions);
+	    }
+	}
+
+	/*
+	 * @see org.apache.kafka.clients.consumer.ConsumerRebalanceListener#
+	 * onPartitionsAssigned(java.util.Collection)
+	 */
+	@Override
+	public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+	}
+    }
+
+    /** Used for naming microservice consumer thread */
+    private class MicroserviceConsumerThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Kafka Consumer " + counter.incrementAndGet());
+	}
+    }
+
+    /** Used for naming consumer worker threads */
+    private class WorkerThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Kafka Worker " + counter.incrementAndGet());
+	}
+    }
+}
\ No newline at end of file
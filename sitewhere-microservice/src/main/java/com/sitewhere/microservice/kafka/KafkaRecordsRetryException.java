@@ -0,0 +1,33 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.kafka;
+
+/**
+ * Thrown from {@link KafkaRecordConsumer#process} to hand a batch back to the
+ * consumer without processing it. Offsets of the batch are not committed and
+ * the partition is rewound to the first record so the batch is fetched again.
+ * Subclasses should also hold the partition with
+ * {@link KafkaRecordConsumer#isPartitionHeld} until the records can be handled.
+ */
+public class KafkaRecordsRetryException extends RuntimeException {
+
+    /** Serial version UID */
+    private static final long serialVersionUID = -4520873125566129367L;
+
+    public KafkaRecordsRetryException(String message) {
+	super(message);
+    }
+}
\ No newline at end of file
@@ -15,7 +15,9 @@
  */
 package com.sitewhere.microservice.kafka;
 
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.KafkaStreams;
@@ -24,9 +26,13 @@ import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.StreamsConfig;
 import org.apache.kafka.streams.errors.LogAndContinueExceptionHandler;
 
+import com.sitewhere.microservice.configuration.model.tenant.KafkaStreamsConfiguration;
 import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.microservice.metrics.KafkaClientMetricsCollector;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.configuration.ITenantEngineConfiguration;
 import com.sitewhere.spi.microservice.kafka.IKafkaStreamPipeline;
+import com.sitewhere.spi.microservice.kafka.IKafkaStreamsTenantConfiguration;
 import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
 
 /**
@@ -38,6 +44,9 @@ public abstract class KafkaStreamPipeline extends TenantEngineLifecycleComponent
     /** Pipeline instance */
     private KafkaStreams pipeline;
 
+    /** Unique application id for pipeline */
+    private String applicationId;
+
     /**
      * Get unique name suffix for pipeline.
      * 
@@ -63,6 +72,60 @@ public abstract class KafkaStreamPipeline extends TenantEngineLifecycleComponent
 	return Serdes.String().getClass();
     }
 
+    /**
+     * Get runtime tuning for the pipeline. By default, settings are taken from the
+     * tenant engine configuration if it provides an entry for the pipeline name.
+     * Returns null if Kafka Streams defaults should be used.
+     * 
+     * @return
+     */
+    public KafkaStreamsConfiguration getStreamsConfiguration() {
+	ITenantEngineConfiguration config = getTenantEngine().getActiveConfiguration();
+	if (config instanceof IKafkaStreamsTenantConfiguration) {
+	    Map<String, KafkaStreamsConfiguration> pipelines = ((IKafkaStreamsTenantConfiguration) config)
+		    .getStreamPipelines();
+	    return pipelines != null ? pipelines.get(getPipelineName()) : null;
+	}
+	return null;
+    }
+
+    /**
+     * Apply runtime tuning to Kafka Streams properties.
+     * 
+     * @param props
+     * @param config
+     */
+    protected void applyStreamsConfiguration(Properties props, KafkaStreamsConfiguration config) {
+	if (config.getNumStreamThreads() != null) {
+	    props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, config.getNumStreamThreads());
+	}
+	if (config.getCacheMaxBytesBuffering() != null) {
+	    props.put(StreamsConfig.CACHE_MAX_BYTES_BUFFERING_CONFIG, config.getCacheMaxBytesBuffering());
+	}
+	if (config.getCommitIntervalMs() != null) {
+	    props.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, config.getCommitIntervalMs());
+	}
+	if (config.getNumStandbyReplicas() != null) {
+	    props.put(StreamsConfig.NUM_STANDBY_REPLICAS_CONFIG, config.getNumStandbyReplicas());
+	}
+	if (config.getProcessingGuarantee() != null) {
+	    props.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, config.getProcessingGuarantee());
+	}
+	if (config.getRocksDbBlockCacheBytes() != null || config.getRocksDbWriteBufferBytes() != null
+		|| config.getRocksDbMaxWriteBuffers() != null) {
+	    props.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, KafkaStreamsRocksDBConfigSetter.class);
+	    if (config.getRocksDbBlockCacheBytes() != null) {
+		props.put(KafkaStreamsRocksDBConfigSetter.BLOCK_CACHE_BYTES, config.getRocksDbBlockCacheBytes());
+	    }
+	    if (config.getRocksDbWriteBufferBytes() != null) {
+		props.put(KafkaStreamsRocksDBConfigSetter.WRITE_BUFFER_BYTES, config.getRocksDbWriteBufferBytes());
+	    }
+	    if (config.getRocksDbMaxWriteBuffers() != null) {
+		props.put(KafkaStreamsRocksDBConfigSetter.MAX_WRITE_BUFFERS, config.getRocksDbMaxWriteBuffers());
+	    }
+	}
+    }
+
     /*
      * @see com.sitewhere.microservice.lifecycle.LifecycleComponent#initialize(com.
      * sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor)
@@ -70,20 +133,30 @@ public abstract class KafkaStreamPipeline extends TenantEngineLifecycleComponent
     @Override
     public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	// Wait for source topics to be verified or created.
-	KafkaMultiTopicWaiter waiter = new KafkaMultiTopicWaiter(this, getSourceTopicNames());
-	waiter.verify();
+	try {
+	    getMicroservice().getKafkaTopicRegistry().ensureTopics(getSourceTopicNames()).get();
+	} catch (InterruptedException e) {
+	    throw new SiteWhereException("Interrupted while waiting for Kafka topics.", e);
+	} catch (ExecutionException e) {
+	    throw new SiteWhereException("Unable to verify Kafka topics.", e.getCause());
+	}
 
 	Properties props = new Properties();
 	String appId = String.format("%s-%s-%s-%s-%s", getMicroservice().getInstanceSettings().getProductId(),
 		getMicroservice().getInstanceSettings().getKubernetesNamespace(),
 		getTenantEngine().getTenantResource().getMetadata().getName(),
 		getMicroservice().getIdentifier().getPath(), getPipelineName());
+	this.applicationId = appId;
 	props.put(StreamsConfig.APPLICATION_ID_CONFIG, appId);
 	props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, KafkaUtils.getBootstrapServers(getMicroservice()));
 	props.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, getDefaultKeySerdeClass());
 	props.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, getDefaultValueSerdeClass());
 	props.put(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG,
 		LogAndContinueExceptionHandler.class);
+	KafkaStreamsConfiguration streams = getStreamsConfiguration();
+	if (streams != null) {
+	    applyStreamsConfiguration(props, streams);
+	}
 
 	final StreamsBuilder builder = new StreamsBuilder();
 	buildStreams(builder);
@@ -109,6 +182,10 @@ public abstract class KafkaStreamPipeline extends TenantEngineLifecycleComponent
 	    getPipeline().close();
 	}
 	getPipeline().start();
+
+	// Export Kafka Streams metrics while pipeline is running.
+	KafkaStreams running = getPipeline();
+	KafkaClientMetricsCollector.register(getApplicationId(), buildLabels(getPipelineName()), running::metrics);
     }
 
     /*
@@ -118,6 +195,9 @@ public abstract class KafkaStreamPipeline extends TenantEngineLifecycleComponent
      */
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (getApplicationId() != null) {
+	    KafkaClientMetricsCollector.unregister(getApplicationId());
+	}
 	if (getPipeline() != null) {
 	    getPipeline().close();
 	}
@@ -126,4 +206,8 @@ public abstract class KafkaStreamPipeline extends TenantEngineLifecycleComponent
     protected KafkaStreams getPipeline() {
 	return pipeline;
     }
+
+    protected String getApplicationId() {
+	return applicationId;
+    }
 }
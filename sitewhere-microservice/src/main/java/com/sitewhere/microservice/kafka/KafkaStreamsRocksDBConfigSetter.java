@@ -0,0 +1,81 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.kafka;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.streams.state.RocksDBConfigSetter;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.Cache;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+
+/**
+ * Applies RocksDB sizing from Kafka Streams configuration to each state store.
+ * Kafka Streams creates this class by name, so settings are passed as extra
+ * streams properties.
+ * 
+ * The block cache is shared by all stores configured with the same size, so
+ * memory used for caching does not grow with the number of stores. Shared
+ * caches live for the life of the process and are not closed with a store.
+ */
+public class KafkaStreamsRocksDBConfigSetter implements RocksDBConfigSetter {
+
+    /** Property with block cache size in bytes */
+    public static final String BLOCK_CACHE_BYTES = "sitewhere.rocksdb.block.cache.bytes";
+
+    /** Property with write buffer size in bytes */
+    public static final String WRITE_BUFFER_BYTES = "sitewhere.rocksdb.write.buffer.bytes";
+
+    /** Property with maximum number of write buffers */
+    public static final String MAX_WRITE_BUFFERS = "sitewhere.rocksdb.max.write.buffers";
+
+    /** Block caches shared by stores indexed by size in bytes */
+    private static final Map<Long, Cache> CACHES = new ConcurrentHashMap<>();
+
+    /*
+     * @see org.apache.kafka.streams.state.RocksDBConfigSetter#setConfig(java.lang.
+     * String, org.rocksdb.Options, java.util.Map)
+     */
+    @Override
+    public void setConfig(String storeName, Options options, Map<String, Object> configs) {
+	Object blockCache = configs.get(BLOCK_CACHE_BYTES);
+	if (blockCache != null) {
+	    BlockBasedTableConfig table = (BlockBasedTableConfig) options.tableFormatConfig();
+	    Cache cache = CACHES.computeIfAbsent(Long.parseLong(blockCache.toString()), size -> new LRUCache(size));
+	    table.setBlockCache(cache);
+	    options.setTableFormatConfig(table);
+	}
+	Object writeBuffer = configs.get(WRITE_BUFFER_BYTES);
+	if (writeBuffer != null) {
+	    options.setWriteBufferSize(Long.parseLong(writeBuffer.toString()));
+	}
+	Object maxWriteBuffers = configs.get(MAX_WRITE_BUFFERS);
+	if (maxWriteBuffers != null) {
+	    options.setMaxWriteBufferNumber(Integer.parseInt(maxWriteBuffers.toString()));
+	}
+    }
+
+    /*
+     * @see org.apache.kafka.streams.state.RocksDBConfigSetter#close(java.lang.
+     * String, org.rocksdb.Options)
+     */
+    @Override
+    public void close(String storeName, Options options) {
+	// Shared block caches stay open for other stores.
+    }
+}
\ No newline at end of file
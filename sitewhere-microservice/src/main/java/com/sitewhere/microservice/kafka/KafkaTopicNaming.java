@@ -89,6 +89,9 @@ public class KafkaTopicNaming implements IKafkaTopicNaming {
     /** Topic suffix for failed batch elements */
     protected static final String TENANT_TOPIC_FAILED_BATCH_ELEMENTS = "failed-batch-elements";
 
+    /** Topic suffix for records that could not be delivered */
+    protected static final String DEAD_LETTER_SUFFIX = "dead-letter";
+
     /*
      * (non-Javadoc)
      * 
@@ -108,6 +111,14 @@ public class KafkaTopicNaming implements IKafkaTopicNaming {
 	return getInstancePrefix() + SEPARATOR + GLOBAL_INDICATOR + SEPARATOR;
     }
 
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IKafkaTopicNaming#getTenantsPrefix()
+     */
+    @Override
+    public String getTenantsPrefix() {
+	return getInstancePrefix() + SEPARATOR + TENANT_INDICATOR + SEPARATOR;
+    }
+
     /*
      * @see
      * com.sitewhere.spi.microservice.kafka.IKafkaTopicNaming#getTenantPrefix(io.
@@ -115,8 +126,7 @@ public class KafkaTopicNaming implements IKafkaTopicNaming {
      */
     @Override
     public String getTenantPrefix(SiteWhereTenant tenant) {
-	return getInstancePrefix() + SEPARATOR + TENANT_INDICATOR + SEPARATOR + tenant.getMetadata().getName()
-		+ SEPARATOR;
+	return getTenantsPrefix() + tenant.getMetadata().getName() + SEPARATOR;
     }
 
     /*
@@ -270,6 +280,16 @@ public class KafkaTopicNaming implements IKafkaTopicNaming {
 	return getTenantPrefix(tenant) + TENANT_TOPIC_FAILED_BATCH_ELEMENTS;
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IKafkaTopicNaming#getDeadLetterTopic(
+     * java.lang.String)
+     */
+    @Override
+    public String getDeadLetterTopic(String topic) {
+	return topic + SEPARATOR + DEAD_LETTER_SUFFIX;
+    }
+
     protected IInstanceSettings getInstanceSettings() {
 	return instanceSettings;
     }
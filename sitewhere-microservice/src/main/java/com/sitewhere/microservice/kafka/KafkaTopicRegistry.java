@@ -0,0 +1,321 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.errors.InvalidReplicationFactorException;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.KafkaConfiguration;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.IMicroservice;
+import com.sitewhere.spi.microservice.kafka.IKafkaTopicRegistry;
+
+/**
+ * Verifies Kafka topics for all components of a microservice. Requests are
+ * queued and handled together by a single thread so that a tenant engine
+ * starting with a dozen topics results in one describe call and at most one
+ * create call. A single admin client is shared for the life of the
+ * microservice and verified topics are remembered, so later requests for the
+ * same topics return immediately.
+ */
+public class KafkaTopicRegistry implements IKafkaTopicRegistry {
+
+    /** Static logger instance */
+    private static Logger LOGGER = LoggerFactory.getLogger(KafkaTopicRegistry.class);
+
+    /** Kafka availability check interval */
+    private static final int KAFKA_RETRY_INTERVAL_MS = 5 * 1000;
+
+    /** Max time to wait for an admin request */
+    private static final int ADMIN_TIMEOUT_MS = 30 * 1000;
+
+    /** Microservice */
+    private IMicroservice<?, ?> microservice;
+
+    /** Topics known to exist */
+    private Set<String> verified = ConcurrentHashMap.newKeySet();
+
+    /** Futures for topics waiting to be verified */
+    private Map<String, CompletableFuture<Void>> waiting = new ConcurrentHashMap<>();
+
+    /** Indicates a verification pass is scheduled */
+    private AtomicBoolean scheduled = new AtomicBoolean();
+
+    /** Shared admin client */
+    private AdminClient kafkaAdmin;
+
+    /** Indicates registry was closed */
+    private volatile boolean closed;
+
+    /** Thread that verifies topics */
+    private ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new RegistryThreadFactory());
+
+    public KafkaTopicRegistry(IMicroservice<?, ?> microservice) {
+	this.microservice = microservice;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IKafkaTopicRegistry#ensureTopics(java.
+     * util.List)
+     */
+    @Override
+    public CompletableFuture<Void> ensureTopics(List<String> topicNames) {
+	List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+	// Check and add under the close lock so no future is left behind by close.
+	synchronized (this) {
+	    if (isClosed()) {
+		CompletableFuture<Void> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new SiteWhereException("Topic registry was closed."));
+		return failed;
+	    }
+	    for (String topicName : topicNames) {
+		if (!getVerified().contains(topicName)) {
+		    futures.add(getWaiting().computeIfAbsent(topicName, name -> new CompletableFuture<>()));
+		}
+	    }
+	}
+	if (futures.isEmpty()) {
+	    return CompletableFuture.completedFuture(null);
+	}
+	schedule(0);
+	return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]));
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IKafkaTopicRegistry#isVerified(java.
+     * lang.String)
+     */
+    @Override
+    public boolean isVerified(String topicName) {
+	return getVerified().contains(topicName);
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IKafkaTopicRegistry#close()
+     */
+    @Override
+    public synchronized void close() {
+	this.closed = true;
+	getExecutor().shutdownNow();
+	for (CompletableFuture<Void> future : getWaiting().values()) {
+	    future.completeExceptionally(new SiteWhereException("Topic registry was closed."));
+	}
+	getWaiting().clear();
+	if (getKafkaAdmin() != null) {
+	    getKafkaAdmin().close();
+	    this.kafkaAdmin = null;
+	}
+    }
+
+    /**
+     * Schedule a verification pass unless one is already pending.
+     * 
+     * @param delayMs
+     */
+    protected void schedule(long delayMs) {
+	if (getScheduled().compareAndSet(false, true)) {
+	    try {
+		getExecutor().schedule(() -> verifyWaiting(), delayMs, TimeUnit.MILLISECONDS);
+	    } catch (RejectedExecutionException e) {
+		getScheduled().set(false);
+	    }
+	}
+    }
+
+    /**
+     * Describe all waiting topics in one request and create any that are missing
+     * in another. Topics that could not be verified are retried after an
+     * interval.
+     */
+    protected void verifyWaiting() {
+	getScheduled().set(false);
+	List<String> topics = new ArrayList<>(getWaiting().keySet());
+	if (topics.isEmpty()) {
+	    return;
+	}
+	try {
+	    AdminClient admin = getOrCreateAdmin();
+	    Map<String, KafkaFuture<TopicDescription>> described = admin.describeTopics(topics).values();
+	    List<String> missing = new ArrayList<>();
+	    for (String topic : topics) {
+		try {
+		    described.get(topic).get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+		    markVerified(topic);
+		} catch (ExecutionException e) {
+		    if (e.getCause() instanceof UnknownTopicOrPartitionException) {
+			missing.add(topic);
+		    } else {
+			LOGGER.warn(String.format("Unable to describe Kafka topic '%s'. (%s)", topic, e.getMessage()));
+		    }
+		}
+	    }
+	    if (!missing.isEmpty()) {
+		createTopics(admin, missing);
+	    }
+	} catch (InterruptedException e) {
+	    LOGGER.warn("Interrupted while verifying Kafka topics.");
+	    return;
+	} catch (Throwable t) {
+	    LOGGER.warn("Exception while connecting to Kafka. Will continue attempting to connect.", t);
+	}
+	if (!getWaiting().isEmpty()) {
+	    schedule(KAFKA_RETRY_INTERVAL_MS);
+	}
+    }
+
+    /**
+     * Create missing topics in a single request.
+     * 
+     * @param admin
+     * @param topics
+     * @throws Exception
+     */
+    protected void createTopics(AdminClient admin, List<String> topics) throws Exception {
+	KafkaConfiguration kafka = getMicroservice().getInstanceConfiguration().getInfrastructure().getKafka();
+	List<NewTopic> newTopics = new ArrayList<>();
+	for (String topic : topics) {
+	    newTopics.add(new NewTopic(topic, kafka.getDefaultTopicPartitions(),
+		    (short) kafka.getDefaultTopicReplicationFactor()));
+	}
+	Map<String, KafkaFuture<Void>> created = admin.createTopics(newTopics).values();
+	for (String topic : topics) {
+	    try {
+		created.get(topic).get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+		LOGGER.info(String.format("Kafka topic '%s' created.", topic));
+		markVerified(topic);
+	    } catch (ExecutionException e) {
+		if (e.getCause() instanceof TopicExistsException) {
+		    markVerified(topic);
+		} else if (e.getCause() instanceof InvalidReplicationFactorException) {
+		    LOGGER.info(String.format("Not enough replicas available to create topic '%s'. Waiting.", topic));
+		} else {
+		    LOGGER.error(String.format("Kafka exception creating topic '%s'.", topic), e.getCause());
+		}
+	    }
+	}
+    }
+
+    /**
+     * Remember a topic as verified and complete anyone waiting on it.
+     * 
+     * @param topic
+     */
+    protected void markVerified(String topic) {
+	getVerified().add(topic);
+	CompletableFuture<Void> future = getWaiting().remove(topic);
+	if (future != null) {
+	    future.complete(null);
+	}
+    }
+
+    /**
+     * Get admin client, creating it on first use. Fails once the registry is
+     * closed so that a pass running during close does not leak a new client.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected synchronized AdminClient getOrCreateAdmin() throws SiteWhereException {
+	if (isClosed()) {
+	    throw new SiteWhereException("Topic registry was closed.");
+	}
+	if (getKafkaAdmin() == null) {
+	    LOGGER.info("Attempting to connect to Kafka...");
+	    this.kafkaAdmin = AdminClient.create(buildAdminConfiguration());
+	}
+	return getKafkaAdmin();
+    }
+
+    /**
+     * Build configuration settings used by admin client.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Properties buildAdminConfiguration() throws SiteWhereException {
+	Properties config = new Properties();
+	config.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, KafkaUtils.getBootstrapServers(getMicroservice()));
+	return config;
+    }
+
+    /** Used for naming topic registry thread */
+    private class RegistryThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    Thread thread = new Thread(r, "Kafka Topics " + counter.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
+
+    protected IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected Set<String> getVerified() {
+	return verified;
+    }
+
+    protected Map<String, CompletableFuture<Void>> getWaiting() {
+	return waiting;
+    }
+
+    protected AtomicBoolean getScheduled() {
+	return scheduled;
+    }
+
+    protected AdminClient getKafkaAdmin() {
+	return kafkaAdmin;
+    }
+
+    protected ScheduledExecutorService getExecutor() {
+	return executor;
+    }
+
+    protected boolean isClosed() {
+	return closed;
+    }
+}
\ No newline at end of file
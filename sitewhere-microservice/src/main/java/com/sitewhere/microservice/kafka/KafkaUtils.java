@@ -16,6 +16,8 @@
 package com.sitewhere.microservice.kafka;
 
 import com.sitewhere.microservice.configuration.model.instance.infrastructure.KafkaConfiguration;
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.ProducerProfile;
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.ProducerProfileType;
 import com.sitewhere.spi.microservice.IMicroservice;
 
 public class KafkaUtils {
@@ -31,4 +33,34 @@ public class KafkaUtils {
 	KafkaConfiguration kafka = microservice.getInstanceConfiguration().getInfrastructure().getKafka();
 	return String.format("%s.%s:%d", kafka.getHostname(), systemNamespace, kafka.getPort());
     }
+
+    /**
+     * Get producer settings for a profile from microservice configuration.
+     * 
+     * @param microservice
+     * @param type
+     * @return
+     */
+    public static ProducerProfile getProducerProfile(IMicroservice<?, ?> microservice, ProducerProfileType type) {
+	KafkaConfiguration kafka = microservice.getInstanceConfiguration().getInfrastructure().getKafka();
+	switch (type) {
+	case HighThroughput:
+	    return kafka.getHighThroughputProducer();
+	case Durable:
+	    return kafka.getDurableProducer();
+	case LowLatency:
+	default:
+	    return kafka.getLowLatencyProducer();
+	}
+    }
+
+    /**
+     * Indicates whether tenant consumers share one consumer per microservice.
+     * 
+     * @param microservice
+     * @return
+     */
+    public static boolean isMultiplexedConsumers(IMicroservice<?, ?> microservice) {
+	return microservice.getInstanceConfiguration().getInfrastructure().getKafka().isMultiplexedConsumers();
+    }
 }
@@ -15,33 +15,106 @@
  */
 package com.sitewhere.microservice.kafka;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.KafkaConfiguration;
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.ProducerProfile;
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.ProducerProfileType;
 import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.microservice.metrics.KafkaClientMetricsCollector;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaProducer;
 import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
-import com.sitewhere.spi.microservice.lifecycle.ITenantEngineLifecycleComponent;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
 
 /**
  * Base class for components that produce messages that are forwarded to a Kafka
  * topic.
+ * 
+ * Sends never block the calling thread waiting on Kafka. Records sent before
+ * the topic is available, or that fail with a retriable error, are retried from
+ * a background thread with exponential backoff. Records that still cannot be
+ * delivered are forwarded to a dead-letter topic. Sends made while too many
+ * are in flight fail right away rather than waiting for room. They are counted
+ * and also forwarded to the dead-letter topic.
  */
 public abstract class MicroserviceKafkaProducer<K, P> extends TenantEngineLifecycleComponent
 	implements IMicroserviceKafkaProducer<K, P> {
 
+    /** Header with topic a dead-lettered record was sent to */
+    private static final String HEADER_DEAD_LETTER_TOPIC = "sitewhere.dead-letter.topic";
+
+    /** Header with error that caused a record to be dead-lettered */
+    private static final String HEADER_DEAD_LETTER_ERROR = "sitewhere.dead-letter.error";
+
+    /** Interval at which producer batch size is sampled */
+    private static final long BATCH_SIZE_SAMPLE_INTERVAL_MS = 10 * 1000;
+
+    /** Tenant label value for producers not bound to a tenant */
+    private static final String GLOBAL_TENANT = "_global_";
+
+    /** Metrics label for topic */
+    private static final String LABEL_TOPIC = "topic";
+
+    /** Buckets for size histograms in bytes */
+    private static final double[] SIZE_BUCKETS = new double[] { 64, 256, 1024, 4096, 16384, 65536, 262144, 1048576,
+	    4194304 };
+
+    /** Histogram for serialized size of records sent */
+    private static final Histogram RECORD_SIZE = TenantEngineLifecycleComponent.createHistogramMetric(
+	    "kafka_producer_record_size_bytes", "Serialized size of records sent to Kafka", SIZE_BUCKETS, LABEL_TOPIC);
+
+    /** Histogram for average producer batch size sampled periodically */
+    private static final Histogram BATCH_SIZE = TenantEngineLifecycleComponent.createHistogramMetric(
+	    "kafka_producer_batch_size_bytes", "Average size of batches sent to Kafka per sample interval",
+	    SIZE_BUCKETS, LABEL_TOPIC);
+
+    /** Counter for records acknowledged by Kafka */
+    private static final Counter RECORDS_SENT = TenantEngineLifecycleComponent
+	    .createCounterMetric("kafka_producer_records", "Count of records acknowledged by Kafka", LABEL_TOPIC);
+
+    /** Counter for bytes acknowledged by Kafka */
+    private static final Counter BYTES_SENT = TenantEngineLifecycleComponent.createCounterMetric(
+	    "kafka_producer_bytes", "Serialized bytes of records acknowledged by Kafka", LABEL_TOPIC);
+
+    /** Counter for records rejected because too many sends were in flight */
+    private static final Counter RECORDS_REJECTED = TenantEngineLifecycleComponent.createCounterMetric(
+	    "kafka_producer_records_rejected", "Count of records rejected because too many sends were in flight",
+	    LABEL_TOPIC);
+
+    /** Histogram for time from send until acknowledgement */
+    private static final Histogram SEND_LATENCY = TenantEngineLifecycleComponent.createHistogramMetric(
+	    "kafka_producer_send_latency", "Time from send until record is acknowledged by Kafka", LABEL_TOPIC);
+
     /** Producer */
     private KafkaProducer<K, P> producer;
 
@@ -49,10 +122,25 @@ public abstract class MicroserviceKafkaProducer<K, P> extends TenantEngineLifecy
     private AckPolicy ackPolicy = AckPolicy.Leader;
 
     /** Indicator for whether Kafka is available */
-    private CountDownLatch kafkaAvailable;
+    private volatile boolean kafkaAvailable;
+
+    /** Error if target topic could not be verified */
+    private volatile Throwable topicFailure;
+
+    /** Limits number of sends not yet completed */
+    private Semaphore inFlight;
 
-    /** Executor service for waiter thread */
-    ExecutorService waiterService;
+    /** Indicates sends are currently being rejected */
+    private AtomicBoolean rejecting = new AtomicBoolean();
+
+    /** Sends waiting to be retried */
+    private Set<PendingSend> retrying = ConcurrentHashMap.newKeySet();
+
+    /** Executor service for retrying sends */
+    private ScheduledExecutorService retryService;
+
+    /** Label values for producer metrics */
+    private String[] metricLabels;
 
     /*
      * (non-Javadoc)
@@ -66,9 +154,28 @@ public abstract class MicroserviceKafkaProducer<K, P> extends TenantEngineLifecy
 	getLogger().info("Producer connecting to Kafka: " + KafkaUtils.getBootstrapServers(getMicroservice()));
 	getLogger().info("Will be producing messages for: " + getTargetTopicName());
 	getLogger().info("Keys will be encoded with: " + getKeySerializer().getName());
-	this.kafkaAvailable = new CountDownLatch(1);
-	this.waiterService = Executors.newSingleThreadExecutor();
-	getWaiterService().execute(new KafkaWaiter(this, getTargetTopicName()));
+	this.kafkaAvailable = false;
+	this.topicFailure = null;
+	getLogger().info("Producer using profile: " + getProducerProfile());
+	this.inFlight = new Semaphore(getMaxInFlightSends());
+	this.metricLabels = buildMetricLabels();
+	this.retryService = Executors.newSingleThreadScheduledExecutor(new ProducerRetryThreadFactory());
+	getRetryService().scheduleAtFixedRate(() -> sampleBatchSize(), BATCH_SIZE_SAMPLE_INTERVAL_MS,
+		BATCH_SIZE_SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	getMicroservice().getKafkaTopicRegistry().ensureTopics(Collections.singletonList(getTargetTopicName()))
+		.whenComplete((result, t) -> {
+		    if (t != null) {
+			getLogger().error("Unable to verify target topic. Records will not be sent.", t);
+			topicFailure = t;
+		    } else {
+			getLogger().info("Kafka detected as available.");
+			kafkaAvailable = true;
+		    }
+		});
+	String deadLetter = getDeadLetterTopicName();
+	if (deadLetter != null) {
+	    getMicroservice().getKafkaTopicRegistry().ensureTopics(Collections.singletonList(deadLetter));
+	}
     }
 
     /*
@@ -80,11 +187,24 @@ public abstract class MicroserviceKafkaProducer<K, P> extends TenantEngineLifecy
      */
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (getRetryService() != null) {
+	    getRetryService().shutdownNow();
+	}
+	for (PendingSend pending : getRetrying()) {
+	    pending.getFuture().completeExceptionally(new SiteWhereException("Producer was stopped."));
+	}
+	getRetrying().clear();
+	KafkaClientMetricsCollector.unregister(getComponentId().toString());
 	if (getProducer() != null) {
 	    getProducer().close();
 	}
-	if (getWaiterService() != null) {
-	    getWaiterService().shutdown();
+	if (getMetricLabels() != null) {
+	    RECORD_SIZE.remove(getMetricLabels());
+	    BATCH_SIZE.remove(getMetricLabels());
+	    RECORDS_SENT.remove(getMetricLabels());
+	    RECORDS_REJECTED.remove(getMetricLabels());
+	    BYTES_SENT.remove(getMetricLabels());
+	    SEND_LATENCY.remove(getMetricLabels());
 	}
     }
 
@@ -112,38 +232,251 @@ public abstract class MicroserviceKafkaProducer<K, P> extends TenantEngineLifecy
      * lang.Object, java.lang.Object)
      */
     @Override
-    public Future<RecordMetadata> send(K key, P message) throws SiteWhereException {
-	while (true) {
-	    ProducerRecord<K, P> record = new ProducerRecord<K, P>(getTargetTopicName(), key, message);
-	    try {
-		if (getKafkaAvailable().getCount() != 0) {
-		    getLogger().info("Producer waiting on Kafka to become available...");
-		    getKafkaAvailable().await();
+    public CompletableFuture<RecordMetadata> send(K key, P message) throws SiteWhereException {
+	ProducerRecord<K, P> record = new ProducerRecord<K, P>(getTargetTopicName(), key, message);
+	CompletableFuture<RecordMetadata> future = new CompletableFuture<>();
+	PendingSend pending = new PendingSend(record, future);
+	if (!getInFlight().tryAcquire()) {
+	    reject(pending);
+	    return future;
+	}
+	if (getRejecting().compareAndSet(true, false)) {
+	    getLogger().info(String.format("Producer for '%s' is accepting sends again.", record.topic()));
+	}
+	future.whenComplete((metadata, t) -> getInFlight().release());
+	attempt(pending);
+	return future;
+    }
+
+    /**
+     * Handle a send made while too many sends are in flight. The record is
+     * counted and forwarded to the dead-letter topic. A warning is logged once
+     * each time sends start being rejected.
+     * 
+     * @param pending
+     */
+    protected void reject(PendingSend pending) {
+	RECORDS_REJECTED.labels(getMetricLabels()).inc();
+	if (getRejecting().compareAndSet(false, true)) {
+	    getLogger().warn(String.format("Producer for '%s' has %d sends in flight. Rejecting records.",
+		    pending.getRecord().topic(), getMaxInFlightSends()));
+	}
+	SiteWhereException e = new SiteWhereException("Producer has too many sends in flight. Record was not sent.");
+	deadLetter(pending, e);
+	pending.getFuture().completeExceptionally(e);
+    }
+
+    /**
+     * Attempt to send a record. Failures are handed off so that the calling
+     * thread never waits on Kafka.
+     * 
+     * @param pending
+     */
+    protected void attempt(PendingSend pending) {
+	if (!isKafkaAvailable()) {
+	    if (getTopicFailure() != null) {
+		pending.getFuture().completeExceptionally(
+			new SiteWhereException("Target topic could not be verified.", getTopicFailure()));
+		return;
+	    }
+	    retryOrFail(pending, new SiteWhereException("Target topic has not been verified yet."), true);
+	    return;
+	}
+	try {
+	    getOrCreateProducer().send(pending.getRecord(), (metadata, e) -> {
+		if (e == null) {
+		    int size = Math.max(0, metadata.serializedKeySize()) + Math.max(0, metadata.serializedValueSize());
+		    RECORD_SIZE.labels(getMetricLabels()).observe(size);
+		    RECORDS_SENT.labels(getMetricLabels()).inc();
+		    BYTES_SENT.labels(getMetricLabels()).inc(size);
+		    SEND_LATENCY.labels(getMetricLabels()).observe((System.nanoTime() - pending.getCreated()) / 1e9);
+		    pending.getFuture().complete(metadata);
+		} else {
+		    handleSendFailure(pending, e);
 		}
-		if (getProducer() == null) {
-		    this.producer = new KafkaProducer<K, P>(buildConfiguration());
+	    });
+	} catch (Throwable e) {
+	    handleSendFailure(pending, e);
+	}
+    }
+
+    /**
+     * Retry a failed send with backoff or dead-letter it if it can not be sent.
+     * 
+     * @param pending
+     * @param e
+     */
+    protected void handleSendFailure(PendingSend pending, Throwable e) {
+	retryOrFail(pending, e, e instanceof RetriableException);
+    }
+
+    /**
+     * Retry a send with backoff until the retry limit is reached, then
+     * dead-letter it. Sends made before the target topic is verified use the
+     * same limit.
+     * 
+     * @param pending
+     * @param e
+     * @param retriable
+     */
+    protected void retryOrFail(PendingSend pending, Throwable e, boolean retriable) {
+	if (retriable && (pending.getAttempts() < getMaxSendRetries())) {
+	    int attempts = pending.incrementAttempts();
+	    long backoff = Math.min(getRetryBackoffMs() << Math.min(attempts - 1, 20), getMaxRetryBackoffMs());
+	    getLogger().info(String.format("Retriable exception [%s] while sending Kafka payload. Retry %d in %dms.",
+		    e.getMessage(), attempts, backoff));
+	    schedule(pending, backoff);
+	    return;
+	}
+	getLogger().error(String.format("Unable to send record to '%s'.", pending.getRecord().topic()), e);
+	deadLetter(pending, e);
+	pending.getFuture().completeExceptionally(new SiteWhereException("Unable to send Kafka record.", e));
+    }
+
+    /**
+     * Schedule a send to be attempted again after a delay.
+     * 
+     * @param pending
+     * @param delayMs
+     */
+    protected void schedule(PendingSend pending, long delayMs) {
+	getRetrying().add(pending);
+	try {
+	    getRetryService().schedule(() -> {
+		getRetrying().remove(pending);
+		attempt(pending);
+	    }, delayMs, TimeUnit.MILLISECONDS);
+	} catch (RejectedExecutionException e) {
+	    getRetrying().remove(pending);
+	    pending.getFuture().completeExceptionally(new SiteWhereException("Producer was stopped."));
+	}
+    }
+
+    /**
+     * Forward a record that could not be sent to the dead-letter topic.
+     * 
+     * @param pending
+     * @param cause
+     */
+    protected void deadLetter(PendingSend pending, Throwable cause) {
+	try {
+	    String topic = getDeadLetterTopicName();
+	    if ((topic == null) || (getProducer() == null)) {
+		return;
+	    }
+	    ProducerRecord<K, P> original = pending.getRecord();
+	    Header[] headers = new Header[] {
+		    new RecordHeader(HEADER_DEAD_LETTER_TOPIC, original.topic().getBytes(StandardCharsets.UTF_8)),
+		    new RecordHeader(HEADER_DEAD_LETTER_ERROR,
+			    String.valueOf(cause).getBytes(StandardCharsets.UTF_8)) };
+	    ProducerRecord<K, P> record = new ProducerRecord<K, P>(topic, null, original.key(), original.value(),
+		    Arrays.asList(headers));
+	    getProducer().send(record, (metadata, e) -> {
+		if (e != null) {
+		    getLogger().error(String.format("Unable to send record to dead-letter topic '%s'.", topic), e);
 		}
-		return getProducer().send(record);
-	    } catch (RetriableException e) {
-		// Wait before attempting to send again.
-		try {
-		    getLogger().info(
-			    String.format("Got retriable exception [%s] while sending Kafka payload. Waiting to retry.",
-				    e.getMessage()));
-		    Thread.sleep(5000);
-		} catch (InterruptedException e1) {
-		    getLogger().info("Interrupted while waiting to send Kafka payload.");
+	    });
+	} catch (Throwable e) {
+	    getLogger().error("Unable to send record to dead-letter topic.", e);
+	}
+    }
+
+    /**
+     * Get topic that receives records which could not be sent. Return null to
+     * discard them instead.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected String getDeadLetterTopicName() throws SiteWhereException {
+	return getMicroservice().getKafkaTopicNaming().getDeadLetterTopic(getTargetTopicName());
+    }
+
+    /**
+     * Get profile that determines batching, compression and delivery settings.
+     * Defaults to the profile chosen in instance configuration.
+     * 
+     * @return
+     */
+    protected ProducerProfileType getProducerProfile() {
+	KafkaConfiguration kafka = getMicroservice().getInstanceConfiguration().getInfrastructure().getKafka();
+	return kafka.getDefaultProducerProfile();
+    }
+
+    /**
+     * Build label values used for producer metrics.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected String[] buildMetricLabels() throws SiteWhereException {
+	if (getTenantEngine() != null) {
+	    return buildLabels(getTargetTopicName());
+	}
+	return new String[] { getMicroservice().getIdentifier().getPath(),
+		getMicroservice().getInstanceSettings().getKubernetesPodAddress(), GLOBAL_TENANT,
+		getTargetTopicName() };
+    }
+
+    /**
+     * Record average batch size reported by the Kafka client.
+     */
+    protected void sampleBatchSize() {
+	if (getProducer() == null) {
+	    return;
+	}
+	try {
+	    for (Map.Entry<MetricName, ? extends Metric> entry : getProducer().metrics().entrySet()) {
+		MetricName name = entry.getKey();
+		if ("producer-metrics".equals(name.group()) && "batch-size-avg".equals(name.name())) {
+		    Object value = entry.getValue().metricValue();
+		    if ((value instanceof Double) && ((Double) value > 0)) {
+			BATCH_SIZE.labels(getMetricLabels()).observe((Double) value);
+		    }
 		}
-	    } catch (InterruptedException e) {
-		throw new SiteWhereException("Producer interrupted while waiting for Kafka.", e);
-	    } catch (IllegalStateException e) {
-		throw new SiteWhereException("Producer unable to send record.", e);
-	    } catch (Throwable e) {
-		throw new SiteWhereException("Unhandled exception in producer while sending record.", e);
 	    }
+	} catch (Throwable e) {
+	    getLogger().debug("Unable to sample producer batch size.", e);
 	}
     }
 
+    /**
+     * Get maximum number of sends that may be in flight at once. Further sends
+     * fail until earlier ones complete.
+     * 
+     * @return
+     */
+    protected int getMaxInFlightSends() {
+	return 10000;
+    }
+
+    /**
+     * Get number of times a send failing with a retriable error is retried.
+     * 
+     * @return
+     */
+    protected int getMaxSendRetries() {
+	return 5;
+    }
+
+    /**
+     * Get delay before first retry. Doubles with each further attempt.
+     * 
+     * @return
+     */
+    protected long getRetryBackoffMs() {
+	return 200;
+    }
+
+    /**
+     * Get maximum delay between retries.
+     * 
+     * @return
+     */
+    protected long getMaxRetryBackoffMs() {
+	return 30 * 1000;
+    }
+
     /**
      * Build configuration settings used by producer.
      * 
@@ -156,24 +489,111 @@ public abstract class MicroserviceKafkaProducer<K, P> extends TenantEngineLifecy
 	config.put(ProducerConfig.ACKS_CONFIG, getAckPolicy().getConfig());
 	config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, getKeySerializer().getName());
 	config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, getValueSerializer().getName());
+	applyProducerProfile(config, KafkaUtils.getProducerProfile(getMicroservice(), getProducerProfile()));
 	return config;
     }
 
     /**
-     * Thread that waits for Kafka to become available.
+     * Apply settings from a producer profile. Idempotent producers require
+     * acknowledgement from all replicas, so the ack policy is overridden for
+     * them.
+     * 
+     * @param config
+     * @param profile
      */
-    private class KafkaWaiter extends KafkaTopicWaiter {
+    protected void applyProducerProfile(Properties config, ProducerProfile profile) {
+	if (profile == null) {
+	    return;
+	}
+	if (profile.getBatchSize() != null) {
+	    config.put(ProducerConfig.BATCH_SIZE_CONFIG, profile.getBatchSize());
+	}
+	if (profile.getLingerMs() != null) {
+	    config.put(ProducerConfig.LINGER_MS_CONFIG, profile.getLingerMs());
+	}
+	if (profile.getCompressionType() != null) {
+	    config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, profile.getCompressionType());
+	}
+	if (profile.getBufferMemory() != null) {
+	    config.put(ProducerConfig.BUFFER_MEMORY_CONFIG, profile.getBufferMemory());
+	}
+	if (profile.getMaxInFlightRequestsPerConnection() != null) {
+	    config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION,
+		    profile.getMaxInFlightRequestsPerConnection());
+	}
+	if (profile.getEnableIdempotence() != null) {
+	    config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, profile.getEnableIdempotence());
+	    if (profile.getEnableIdempotence()) {
+		config.put(ProducerConfig.ACKS_CONFIG, AckPolicy.All.getConfig());
+	    }
+	}
+    }
+
+    /**
+     * Get producer, creating it on first use.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected synchronized KafkaProducer<K, P> getOrCreateProducer() throws SiteWhereException {
+	if (getProducer() == null) {
+	    this.producer = new KafkaProducer<K, P>(buildConfiguration());
+	    KafkaClientMetricsCollector.register(getComponentId().toString(), getMetricLabels(), producer::metrics);
+	}
+	return getProducer();
+    }
+
+    /**
+     * Record waiting to be sent along with the future for its result.
+     */
+    protected class PendingSend {
+
+	/** Record to send */
+	private ProducerRecord<K, P> record;
+
+	/** Completed when record is acknowledged or can not be sent */
+	private CompletableFuture<RecordMetadata> future;
+
+	/** Number of retries attempted */
+	private AtomicInteger attempts = new AtomicInteger();
+
+	/** Time at which send was requested */
+	private long created = System.nanoTime();
+
+	public PendingSend(ProducerRecord<K, P> record, CompletableFuture<RecordMetadata> future) {
+	    this.record = record;
+	    this.future = future;
+	}
+
+	public ProducerRecord<K, P> getRecord() {
+	    return record;
+	}
 
-	public KafkaWaiter(ITenantEngineLifecycleComponent component, String topicName) {
-	    super(component, topicName);
+	public CompletableFuture<RecordMetadata> getFuture() {
+	    return future;
 	}
 
-	/*
-	 * @see com.sitewhere.microservice.kafka.KafkaTopicWaiter#onTopicAvailable()
-	 */
-	@Override
-	protected void onTopicAvailable() {
-	    getKafkaAvailable().countDown();
+	public int getAttempts() {
+	    return attempts.get();
+	}
+
+	public long getCreated() {
+	    return created;
+	}
+
+	public int incrementAttempts() {
+	    return attempts.incrementAndGet();
+	}
+    }
+
+    /** Used for naming producer retry thread */
+    private class ProducerRetryThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Kafka Producer Retry " + counter.incrementAndGet());
 	}
     }
 
@@ -189,11 +609,31 @@ public abstract class MicroserviceKafkaProducer<K, P> extends TenantEngineLifecy
 	return producer;
     }
 
-    protected CountDownLatch getKafkaAvailable() {
+    protected boolean isKafkaAvailable() {
 	return kafkaAvailable;
     }
 
-    protected ExecutorService getWaiterService() {
-	return waiterService;
+    protected Throwable getTopicFailure() {
+	return topicFailure;
+    }
+
+    protected Semaphore getInFlight() {
+	return inFlight;
+    }
+
+    protected AtomicBoolean getRejecting() {
+	return rejecting;
+    }
+
+    protected Set<PendingSend> getRetrying() {
+	return retrying;
+    }
+
+    protected ScheduledExecutorService getRetryService() {
+	return retryService;
+    }
+
+    protected String[] getMetricLabels() {
+	return metricLabels;
     }
 }
\ No newline at end of file
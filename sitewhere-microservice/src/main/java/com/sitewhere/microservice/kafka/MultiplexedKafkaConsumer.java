@@ -0,0 +1,330 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.kafka;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import com.sitewhere.microservice.multitenant.TenantEngineManager;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer;
+import com.sitewhere.spi.microservice.kafka.IMultiplexedKafkaConsumer;
+import com.sitewhere.spi.microservice.lifecycle.LifecycleStatus;
+import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
+
+/**
+ * Single consumer that reads tenant topics for every tenant engine of a
+ * microservice, so that the number of Kafka consumers, threads and group
+ * members does not grow with the number of tenants. The consumer subscribes by
+ * pattern to tenant topics ending with a suffix used by a registered tenant
+ * consumer, and picks up topics for new tenants as metadata is refreshed.
+ * 
+ * Records are routed by topic to registered tenant consumers. Partitions are
+ * held while no consumer is registered for their topic, while the tenant engine
+ * that registered it is not started, or while their tenant is paused. The
+ * engine is remembered by topic when a consumer registers, so no lookup is made
+ * per partition on each poll. Since every pod of a microservice runs an engine for each
+ * tenant, a held partition is released as soon as its engine starts. Batches
+ * already handed to workers when a tenant consumer unregisters are given back
+ * to the base consumer, so their offsets are not committed and they are fetched
+ * again once a consumer is registered.
+ * 
+ * Tenant consumers are called from worker threads and must not use their own
+ * Kafka consumer, which is not created in this mode. A tenant consumer that
+ * fails does not stop records from reaching other consumers of the topic. If a
+ * tenant consumer hands records back, they are handed back once all consumers
+ * have been called, so other consumers of the topic see them again. Per-topic metrics are
+ * labelled with the tenant that owns the topic.
+ */
+public class MultiplexedKafkaConsumer extends MicroserviceKafkaConsumer implements IMultiplexedKafkaConsumer {
+
+    /** Interval at which new tenant topics are discovered */
+    private static final int METADATA_MAX_AGE_MS = 30 * 1000;
+
+    /** Tenant consumers indexed by topic */
+    private Map<String, List<IMicroserviceKafkaConsumer>> routes = new ConcurrentHashMap<>();
+
+    /** Tenant tokens indexed by topic */
+    private Map<String, String> topicTenants = new ConcurrentHashMap<>();
+
+    /** Tenant engines indexed by topic */
+    private Map<String, IMicroserviceTenantEngine<?>> topicEngines = new ConcurrentHashMap<>();
+
+    /** Suffixes included in subscription indexed by topic */
+    private Map<String, String> topicSuffixes = new ConcurrentHashMap<>();
+
+    /** Tenants paused by request */
+    private Set<String> pausedTenants = ConcurrentHashMap.newKeySet();
+
+    /** Indicates subscription pattern needs to be updated */
+    private volatile boolean subscriptionChanged;
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#getConsumerId()
+     */
+    @Override
+    public String getConsumerId() throws SiteWhereException {
+	return getMicroservice().getIdentifier().getPath() + "-multiplexed-"
+		+ getMicroservice().getInstanceSettings().getKubernetesPodAddress();
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#getConsumerGroupId()
+     */
+    @Override
+    public String getConsumerGroupId() throws SiteWhereException {
+	return getMicroservice().getKafkaTopicNaming().getInstancePrefix() + "."
+		+ getMicroservice().getIdentifier().getPath() + ".multiplexed";
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#getSourceTopicNames()
+     */
+    @Override
+    public List<String> getSourceTopicNames() throws SiteWhereException {
+	return new ArrayList<>(getRoutes().keySet());
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMultiplexedKafkaConsumer#register(
+     * com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer)
+     */
+    @Override
+    public void register(IMicroserviceKafkaConsumer consumer) throws SiteWhereException {
+	IMicroserviceTenantEngine<?> engine = consumer.getTenantEngine();
+	if (engine == null) {
+	    throw new SiteWhereException("Only tenant consumers can be multiplexed.");
+	}
+	String token = TenantEngineManager.getTenantTokenForTenantEngine(engine.getTenantEngineResource());
+	String prefix = getMicroservice().getKafkaTopicNaming().getTenantPrefix(engine.getTenantResource());
+	List<String> topics = consumer.getSourceTopicNames();
+	for (String topic : topics) {
+	    if (!topic.startsWith(prefix)) {
+		throw new SiteWhereException(String.format("Topic '%s' is not a tenant topic.", topic));
+	    }
+	}
+	getMicroservice().getKafkaTopicRegistry().ensureTopics(topics);
+	for (String topic : topics) {
+	    getRoutes().computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(consumer);
+	    getTopicTenants().put(topic, token);
+	    getTopicEngines().put(topic, engine);
+	    String suffix = topic.substring(prefix.length());
+	    if (!getTopicSuffixes().containsValue(suffix)) {
+		this.subscriptionChanged = true;
+	    }
+	    getTopicSuffixes().put(topic, suffix);
+	}
+	getLogger().info(String.format("Routing records for %s to tenant '%s'.", topics, token));
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IMultiplexedKafkaConsumer#unregister(com
+     * .sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer)
+     */
+    @Override
+    public void unregister(IMicroserviceKafkaConsumer consumer) throws SiteWhereException {
+	for (String topic : consumer.getSourceTopicNames()) {
+	    List<IMicroserviceKafkaConsumer> consumers = getRoutes().get(topic);
+	    if (consumers != null) {
+		consumers.remove(consumer);
+		if (consumers.isEmpty()) {
+		    getRoutes().remove(topic);
+		    getTopicTenants().remove(topic);
+		    getTopicEngines().remove(topic);
+		    String suffix = getTopicSuffixes().remove(topic);
+		    if ((suffix != null) && !getTopicSuffixes().containsValue(suffix)) {
+			this.subscriptionChanged = true;
+		    }
+		}
+	    }
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IMultiplexedKafkaConsumer#pauseTenant(
+     * java.lang.String)
+     */
+    @Override
+    public void pauseTenant(String tenantToken) {
+	getLogger().info(String.format("Pausing consumption for tenant '%s'.", tenantToken));
+	getPausedTenants().add(tenantToken);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IMultiplexedKafkaConsumer#resumeTenant(
+     * java.lang.String)
+     */
+    @Override
+    public void resumeTenant(String tenantToken) {
+	getLogger().info(String.format("Resuming consumption for tenant '%s'.", tenantToken));
+	getPausedTenants().remove(tenantToken);
+    }
+
+    /*
+     * @see com.sitewhere.microservice.kafka.KafkaRecordConsumer#buildConfiguration()
+     */
+    @Override
+    protected Properties buildConfiguration() throws SiteWhereException {
+	Properties config = super.buildConfiguration();
+	config.put(ConsumerConfig.METADATA_MAX_AGE_CONFIG, METADATA_MAX_AGE_MS);
+	return config;
+    }
+
+    /*
+     * @see com.sitewhere.microservice.kafka.KafkaRecordConsumer#getProcessingMode()
+     */
+    @Override
+    protected ConsumerProcessingMode getProcessingMode() {
+	return ConsumerProcessingMode.PartitionParallel;
+    }
+
+    /*
+     * @see com.sitewhere.microservice.kafka.KafkaRecordConsumer#subscribe()
+     */
+    @Override
+    protected void subscribe() throws SiteWhereException {
+	this.subscriptionChanged = false;
+	Pattern pattern = buildSubscriptionPattern();
+	getLogger().debug(String.format("Kafka consumer subscribing to pattern %s", pattern));
+	getConsumer().subscribe(pattern, getRebalanceListener());
+    }
+
+    /*
+     * @see com.sitewhere.microservice.kafka.KafkaRecordConsumer#beforePoll()
+     */
+    @Override
+    protected void beforePoll() {
+	if (subscriptionChanged) {
+	    try {
+		subscribe();
+	    } catch (SiteWhereException e) {
+		getLogger().error("Unable to update subscription.", e);
+	    }
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.kafka.KafkaRecordConsumer#isPartitionHeld(org.
+     * apache.kafka.common.TopicPartition)
+     */
+    @Override
+    protected boolean isPartitionHeld(TopicPartition topicPartition) {
+	String token = getTopicTenants().get(topicPartition.topic());
+	if (token == null || getPausedTenants().contains(token)) {
+	    return true;
+	}
+	IMicroserviceTenantEngine<?> engine = getTopicEngines().get(topicPartition.topic());
+	return engine == null || engine.getLifecycleStatus() != LifecycleStatus.Started;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#process(org.apache.
+     * kafka.common.TopicPartition, java.util.List)
+     */
+    @Override
+    public void process(TopicPartition topicPartition, List<ConsumerRecord<String, byte[]>> records) {
+	List<IMicroserviceKafkaConsumer> consumers = getRoutes().get(topicPartition.topic());
+	if (consumers == null || consumers.isEmpty()) {
+	    throw new KafkaRecordsRetryException(
+		    String.format("No tenant consumer is registered for %s.", topicPartition.topic()));
+	}
+	KafkaRecordsRetryException retry = null;
+	for (IMicroserviceKafkaConsumer consumer : consumers) {
+	    try {
+		consumer.process(topicPartition, records);
+	    } catch (KafkaRecordsRetryException e) {
+		retry = e;
+	    } catch (Throwable e) {
+		getLogger().error(String.format("Unhandled exception in tenant consumer processing for %s.",
+			topicPartition.topic()), e);
+	    }
+	}
+	if (retry != null) {
+	    throw retry;
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.kafka.KafkaRecordConsumer#buildTopicMetricLabels(
+     * java.lang.String)
+     */
+    @Override
+    protected String[] buildTopicMetricLabels(String topic) {
+	String[] labels = super.buildTopicMetricLabels(topic);
+	String token = getTopicTenants().get(topic);
+	if (token != null) {
+	    // Tenant label follows microservice and pod labels.
+	    labels[2] = token;
+	}
+	return labels;
+    }
+
+    /**
+     * Build pattern matching tenant topics for all registered suffixes.
+     * 
+     * @return
+     */
+    protected Pattern buildSubscriptionPattern() {
+	if (getTopicSuffixes().isEmpty()) {
+	    return Pattern.compile("(?!)");
+	}
+	List<String> suffixes = new ArrayList<>();
+	for (String suffix : new HashSet<>(getTopicSuffixes().values())) {
+	    suffixes.add(Pattern.quote(suffix));
+	}
+	String tenants = getMicroservice().getKafkaTopicNaming().getTenantsPrefix();
+	return Pattern.compile(Pattern.quote(tenants) + ".+\\.(" + String.join("|", suffixes) + ")");
+    }
+
+    protected Map<String, List<IMicroserviceKafkaConsumer>> getRoutes() {
+	return routes;
+    }
+
+    protected Map<String, String> getTopicTenants() {
+	return topicTenants;
+    }
+
+    protected Map<String, IMicroserviceTenantEngine<?>> getTopicEngines() {
+	return topicEngines;
+    }
+
+    protected Map<String, String> getTopicSuffixes() {
+	return topicSuffixes;
+    }
+
+    protected Set<String> getPausedTenants() {
+	return pausedTenants;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.kafka;
+
+import com.sitewhere.spi.microservice.kafka.IOffsetCommitPolicy;
+
+/**
+ * Commits once a number of records have completed or a time interval has
+ * passed, whichever comes first. Either limit may be disabled by passing zero.
+ */
+public class OffsetCommitPolicy implements IOffsetCommitPolicy {
+
+    /** Number of completed records that triggers a commit */
+    private long maxRecords;
+
+    /** Time since last commit that triggers a commit */
+    private long maxIntervalMs;
+
+    public OffsetCommitPolicy(long maxRecords, long maxIntervalMs) {
+	this.maxRecords = maxRecords;
+	this.maxIntervalMs = maxIntervalMs;
+    }
+
+    /**
+     * Commit after every given number of completed records.
+     * 
+     * @param records
+     * @return
+     */
+    public static OffsetCommitPolicy everyRecords(long records) {
+	return new OffsetCommitPolicy(records, 0);
+    }
+
+    /**
+     * Commit at a fixed interval if any records have completed.
+     * 
+     * @param intervalMs
+     * @return
+     */
+    public static OffsetCommitPolicy everyInterval(long intervalMs) {
+	return new OffsetCommitPolicy(0, intervalMs);
+    }
+
+    /**
+     * Commit only when partitions are revoked or the consumer shuts down.
+     * 
+     * @return
+     */
+    public static OffsetCommitPolicy onRebalanceOnly() {
+	return new OffsetCommitPolicy(0, 0);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IOffsetCommitPolicy#isCommitDue(long,
+     * long)
+     */
+    @Override
+    public boolean isCommitDue(long uncommittedRecords, long millisSinceLastCommit) {
+	if (uncommittedRecords == 0) {
+	    return false;
+	}
+	if ((getMaxRecords() > 0) && (uncommittedRecords >= getMaxRecords())) {
+	    return true;
+	}
+	return (getMaxIntervalMs() > 0) && (millisSinceLastCommit >= getMaxIntervalMs());
+    }
+
+    public long getMaxRecords() {
+	return maxRecords;
+    }
+
+    public long getMaxIntervalMs() {
+	return maxIntervalMs;
+    }
+}
\ No newline at end of file
@@ -103,6 +103,22 @@ public abstract class TenantEngineLifecycleComponent extends LifecycleComponent
 		.register();
     }
 
+    /**
+     * Creates a histogram metric with custom buckets and labels for slicing by
+     * microservice and tenant.
+     * 
+     * @param name
+     * @param description
+     * @param buckets
+     * @param labelNames
+     * @return
+     */
+    public static Histogram createHistogramMetric(String name, String description, double[] buckets,
+	    String... labelNames) {
+	return Histogram.build().name(METRIC_PREFIX + name).help(description).buckets(buckets)
+		.labelNames(mergeLabels(labelNames)).register();
+    }
+
     /**
      * Get topic used for pub/sub on pipeline event log.
      * 
@@ -0,0 +1,160 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.GaugeMetricFamily;
+
+/**
+ * Exports metrics reported by Kafka clients (producers, consumers and Kafka
+ * Streams) to the default Prometheus registry served by {@link MetricsServer}.
+ * Client metrics are read when scraped, so no values are copied between
+ * scrapes. Each registered client contributes samples labelled with
+ * microservice, pod, tenant and client name in addition to the Kafka tags.
+ */
+public class KafkaClientMetricsCollector extends Collector {
+
+    /** Namespace prefix added for metrics */
+    private static final String METRIC_PREFIX = "sitewhere_kafka_";
+
+    /** Labels added ahead of Kafka metric tags */
+    private static final List<String> BASE_LABELS = Arrays.asList("microservice", "pod", "tenant", "client");
+
+    /** Shared collector instance */
+    private static KafkaClientMetricsCollector INSTANCE;
+
+    /** Registered clients indexed by unique key */
+    private Map<String, Source> sources = new ConcurrentHashMap<>();
+
+    /**
+     * Register a Kafka client whose metrics should be exported. Label values must
+     * match microservice, pod, tenant and client in that order.
+     * 
+     * @param key
+     * @param labelValues
+     * @param metrics
+     */
+    public static synchronized void register(String key, String[] labelValues,
+	    Supplier<Map<MetricName, ? extends Metric>> metrics) {
+	if (INSTANCE == null) {
+	    INSTANCE = new KafkaClientMetricsCollector().register();
+	}
+	INSTANCE.sources.put(key, new Source(Arrays.asList(labelValues), metrics));
+    }
+
+    /**
+     * Stop exporting metrics for a Kafka client.
+     * 
+     * @param key
+     */
+    public static synchronized void unregister(String key) {
+	if (INSTANCE != null) {
+	    INSTANCE.sources.remove(key);
+	}
+    }
+
+    /*
+     * @see io.prometheus.client.Collector#collect()
+     */
+    @Override
+    public List<MetricFamilySamples> collect() {
+	Map<String, GaugeMetricFamily> families = new TreeMap<>();
+	Map<String, List<String>> familyTags = new HashMap<>();
+	for (Source source : sources.values()) {
+	    Map<MetricName, ? extends Metric> metrics;
+	    try {
+		metrics = source.getMetrics().get();
+	    } catch (RuntimeException e) {
+		continue;
+	    }
+	    for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+		Object value = entry.getValue().metricValue();
+		if (!(value instanceof Number)) {
+		    continue;
+		}
+		MetricName name = entry.getKey();
+		String familyName = sanitize(METRIC_PREFIX + name.group() + "_" + name.name());
+		Map<String, String> tags = new TreeMap<>(name.tags());
+		List<String> tagNames = new ArrayList<>(tags.keySet());
+
+		// Samples in a family must share label names.
+		GaugeMetricFamily family = families.get(familyName);
+		if (family == null) {
+		    List<String> labelNames = new ArrayList<>(BASE_LABELS);
+		    for (String tag : tagNames) {
+			labelNames.add(sanitize(tag));
+		    }
+		    family = new GaugeMetricFamily(familyName, name.description(), labelNames);
+		    families.put(familyName, family);
+		    familyTags.put(familyName, tagNames);
+		} else if (!familyTags.get(familyName).equals(tagNames)) {
+		    continue;
+		}
+		List<String> labelValues = new ArrayList<>(source.getLabelValues());
+		labelValues.addAll(tags.values());
+		family.addMetric(labelValues, ((Number) value).doubleValue());
+	    }
+	}
+	return new ArrayList<>(families.values());
+    }
+
+    /**
+     * Convert a Kafka metric or tag name to a valid Prometheus name.
+     * 
+     * @param name
+     * @return
+     */
+    protected static String sanitize(String name) {
+	return name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
+    /**
+     * Kafka client registered for export.
+     */
+    private static class Source {
+
+	/** Values for base labels */
+	private List<String> labelValues;
+
+	/** Supplies current client metrics */
+	private Supplier<Map<MetricName, ? extends Metric>> metrics;
+
+	public Source(List<String> labelValues, Supplier<Map<MetricName, ? extends Metric>> metrics) {
+	    this.labelValues = labelValues;
+	    this.metrics = metrics;
+	}
+
+	public List<String> getLabelValues() {
+	    return labelValues;
+	}
+
+	public Supplier<Map<MetricName, ? extends Metric>> getMetrics() {
+	    return metrics;
+	}
+    }
+}
@@ -175,8 +175,7 @@ public abstract class MicroserviceTenantEngine<T extends ITenantEngineConfigurat
 	    throw new SiteWhereException("Tenant engine does not have a tenant label. Unable to resolve.");
 	}
 	String namespace = getMicroservice().getInstanceSettings().getKubernetesNamespace();
-	SiteWhereTenant tenant = getMicroservice().getSiteWhereKubernetesClient().getTenants().inNamespace(namespace)
-		.withName(tenantToken).get();
+	SiteWhereTenant tenant = getMicroservice().getTenantResourceCache().getTenant(tenantToken);
 	if (tenant == null) {
 	    throw new SiteWhereException(String.format(
 		    "Tenant engine label references a tenant '%s' which does not exist in namespace '%s'.", tenantToken,
@@ -18,6 +18,8 @@ package com.sitewhere.microservice.multitenant;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.sitewhere.microservice.configuration.ConfigurableMicroservice;
 import com.sitewhere.microservice.configuration.TenantEngineConfigurationMonitor;
+import com.sitewhere.microservice.kafka.KafkaUtils;
+import com.sitewhere.microservice.kafka.MultiplexedKafkaConsumer;
 import com.sitewhere.microservice.lifecycle.CompositeLifecycleStep;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.IFunctionIdentifier;
@@ -25,6 +27,7 @@ import com.sitewhere.spi.microservice.IMicroserviceConfiguration;
 import com.sitewhere.spi.microservice.configuration.IScriptSpecUpdates;
 import com.sitewhere.spi.microservice.configuration.IScriptVersionSpecUpdates;
 import com.sitewhere.spi.microservice.configuration.ITenantEngineConfigurationMonitor;
+import com.sitewhere.spi.microservice.kafka.IMultiplexedKafkaConsumer;
 import com.sitewhere.spi.microservice.lifecycle.ICompositeLifecycleStep;
 import com.sitewhere.spi.microservice.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.microservice.lifecycle.LifecycleStatus;
@@ -56,6 +59,9 @@ public abstract class MultitenantMicroservice<F extends IFunctionIdentifier, C e
     /** Tenant engine manager */
     private ITenantEngineManager<T> tenantEngineManager = new TenantEngineManager<>();
 
+    /** Consumer shared by tenant engines if enabled */
+    private IMultiplexedKafkaConsumer multiplexedKafkaConsumer;
+
     /*
      * (non-Javadoc)
      * 
@@ -69,6 +75,14 @@ public abstract class MultitenantMicroservice<F extends IFunctionIdentifier, C e
 	// Create step that will start components.
 	ICompositeLifecycleStep init = new CompositeLifecycleStep("Initialize " + getName());
 
+	// Initialize consumer shared by tenant engines.
+	if (KafkaUtils.isMultiplexedConsumers(this)) {
+	    this.multiplexedKafkaConsumer = new MultiplexedKafkaConsumer();
+	    init.addInitializeStep(this, getMultiplexedKafkaConsumer(), true);
+	} else {
+	    this.multiplexedKafkaConsumer = null;
+	}
+
 	// Initialize tenant engine manager.
 	init.addInitializeStep(this, getTenantEngineManager(), true);
 
@@ -90,6 +104,11 @@ public abstract class MultitenantMicroservice<F extends IFunctionIdentifier, C e
 	// Create step that will start components.
 	ICompositeLifecycleStep start = new CompositeLifecycleStep("Start " + getName());
 
+	// Start consumer shared by tenant engines.
+	if (getMultiplexedKafkaConsumer() != null) {
+	    start.addStartStep(this, getMultiplexedKafkaConsumer(), true);
+	}
+
 	// Start tenant engine manager.
 	start.addStartStep(this, getTenantEngineManager(), true);
 
@@ -114,6 +133,11 @@ public abstract class MultitenantMicroservice<F extends IFunctionIdentifier, C e
 	// Stop tenant engine manager.
 	stop.addStopStep(this, getTenantEngineManager());
 
+	// Stop consumer shared by tenant engines.
+	if (getMultiplexedKafkaConsumer() != null) {
+	    stop.addStopStep(this, getMultiplexedKafkaConsumer());
+	}
+
 	// Execute shutdown steps.
 	stop.execute(monitor);
     }
@@ -381,4 +405,13 @@ public abstract class MultitenantMicroservice<F extends IFunctionIdentifier, C e
     public ITenantEngineManager<T> getTenantEngineManager() {
 	return tenantEngineManager;
     }
+
+    /*
+     * @see com.sitewhere.spi.microservice.multitenant.IMultitenantMicroservice#
+     * getMultiplexedKafkaConsumer()
+     */
+    @Override
+    public IMultiplexedKafkaConsumer getMultiplexedKafkaConsumer() {
+	return multiplexedKafkaConsumer;
+    }
 }
\ No newline at end of file
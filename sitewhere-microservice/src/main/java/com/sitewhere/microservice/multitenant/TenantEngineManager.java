@@ -270,8 +270,7 @@ public class TenantEngineManager<F extends IFunctionIdentifier, C extends IMicro
 			// Load the latest tenant engine resource.
 			SiteWhereMicroservice k8sMicroservice = ((IMultitenantMicroservice<?, ?, ?>) getMicroservice())
 				.getLastMicroserviceResource();
-			SiteWhereTenant k8sTenant = getMicroservice().getSiteWhereKubernetesClient().getTenantForToken(
-				getMicroservice().getInstanceSettings().getKubernetesNamespace(), token);
+			SiteWhereTenant k8sTenant = getMicroservice().getTenantResourceCache().getTenant(token);
 			SiteWhereTenantEngine k8sTenantEngine = getMicroservice().getSiteWhereKubernetesClient()
 				.getTenantEngine(k8sMicroservice, k8sTenant);
 			startTenantEngine(k8sTenantEngine);
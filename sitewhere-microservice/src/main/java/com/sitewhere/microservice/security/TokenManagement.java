@@ -15,23 +15,33 @@
  */
 package com.sitewhere.microservice.security;
 
+import java.nio.charset.StandardCharsets;
 import java.security.KeyFactory;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
+import org.apache.commons.collections4.map.LRUMap;
 import org.keycloak.representations.AccessTokenResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.sitewhere.microservice.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.microservice.util.MarshalUtils;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.IMicroservice;
+import com.sitewhere.spi.microservice.instance.IInstanceSettings;
 import com.sitewhere.spi.microservice.security.ITokenManagement;
 import com.sitewhere.spi.microservice.user.IUserManagement;
 
@@ -39,43 +49,152 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureException;
 import io.jsonwebtoken.UnsupportedJwtException;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
 
 /**
  * Manages validation of JWT tokens.
+ * 
+ * Authentication details for verified tokens are cached by token digest, so a
+ * token presented repeatedly is only verified once. Entries expire no later
+ * than the token expiration and are cleared if the public key changes. The
+ * public key is reloaded periodically and after a signature check fails.
  */
 @ApplicationScoped
 public class TokenManagement implements ITokenManagement {
 
+    /** Static logger instance */
+    private static Logger LOGGER = LoggerFactory.getLogger(TokenManagement.class);
+
+    /** Max number of verified tokens cached */
+    private static final int MAX_VERIFIED_TOKENS = 10000;
+
+    /** Max time a verified token is cached */
+    private static final long MAX_VERIFIED_TOKEN_AGE_MS = 5 * 60 * 1000;
+
+    /** Interval at which public key is reloaded */
+    private static final long PUBLIC_KEY_REFRESH_MS = 5 * 60 * 1000;
+
+    /** Minimum interval between reloads caused by signature failures */
+    private static final long PUBLIC_KEY_RECHECK_MS = 30 * 1000;
+
+    /** Tenant label value for metrics not bound to a tenant */
+    private static final String GLOBAL_TENANT = "_global_";
+
+    /** Metrics label for cache lookup result */
+    private static final String LABEL_RESULT = "result";
+
+    /** Buckets for verification time in seconds */
+    private static final double[] VERIFICATION_BUCKETS = new double[] { 0.0001, 0.00025, 0.0005, 0.001, 0.0025,
+	    0.005, 0.01, 0.025, 0.05, 0.1 };
+
+    /** Counter for verified token cache lookups */
+    private static final Counter TOKEN_CACHE_REQUESTS = TenantEngineLifecycleComponent.createCounterMetric(
+	    "jwt_cache_requests", "Count of verified JWT cache lookups by result", LABEL_RESULT);
+
+    /** Histogram for time taken to verify a JWT */
+    private static final Histogram VERIFICATION_TIME = TenantEngineLifecycleComponent.createHistogramMetric(
+	    "jwt_verification_time", "Time taken to verify JWT signature and parse claims", VERIFICATION_BUCKETS);
+
     /** User management */
     @Inject
     private IUserManagement userManagement;
 
+    /** Instance settings */
+    @Inject
+    private IInstanceSettings instanceSettings;
+
     /** Public key */
     private PublicKey publicKey;
 
+    /** Time at which public key was last loaded */
+    private long publicKeyLoaded;
+
+    /** Verified tokens indexed by digest */
+    private LRUMap<String, VerifiedToken> verifiedTokens = new LRUMap<>(MAX_VERIFIED_TOKENS);
+
     /**
-     * Get or parse public key.
+     * Get public key, loading it if not loaded recently. Callers that do not
+     * claim the reload keep using the current key while it is fetched.
      * 
      * @return
      * @throws SiteWhereException
      */
     protected PublicKey getPublicKey() throws SiteWhereException {
-	if (this.publicKey == null) {
-	    try {
-		byte[] publicBytes = Base64.getDecoder().decode(getUserManagement().getPublicKey());
-		X509EncodedKeySpec keySpec = new X509EncodedKeySpec(publicBytes);
-		KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-		this.publicKey = keyFactory.generatePublic(keySpec);
-	    } catch (NoSuchAlgorithmException e) {
-		throw new SiteWhereException(e);
-	    } catch (InvalidKeySpecException e) {
-		throw new SiteWhereException(e);
+	if (claimPublicKeyRefresh(PUBLIC_KEY_REFRESH_MS)) {
+	    refreshPublicKey();
+	}
+	return getCurrentPublicKey();
+    }
+
+    /**
+     * Claim a reload of the public key if it is missing or older than the given
+     * age. Only one caller claims each reload of an existing key.
+     * 
+     * @param maxAgeMs
+     * @return
+     */
+    protected synchronized boolean claimPublicKeyRefresh(long maxAgeMs) {
+	long now = System.currentTimeMillis();
+	if ((this.publicKey != null) && (now - publicKeyLoaded < maxAgeMs)) {
+	    return false;
+	}
+	this.publicKeyLoaded = now;
+	return true;
+    }
+
+    /**
+     * Load public key. The key is fetched without holding the lock, which is only
+     * taken to swap in the new key. Verified tokens are cleared if the key has
+     * changed. If the key can not be loaded, the previous key is kept.
+     * 
+     * @throws SiteWhereException
+     */
+    protected void refreshPublicKey() throws SiteWhereException {
+	PublicKey loaded;
+	try {
+	    byte[] publicBytes = Base64.getDecoder().decode(getUserManagement().getPublicKey());
+	    X509EncodedKeySpec keySpec = new X509EncodedKeySpec(publicBytes);
+	    KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+	    loaded = keyFactory.generatePublic(keySpec);
+	} catch (NoSuchAlgorithmException | InvalidKeySpecException | SiteWhereException e) {
+	    if (getCurrentPublicKey() == null) {
+		throw (e instanceof SiteWhereException) ? (SiteWhereException) e : new SiteWhereException(e);
 	    }
+	    LOGGER.warn("Unable to reload JWT public key. Using previous key.", e);
+	    return;
+	}
+	PublicKey previous;
+	synchronized (this) {
+	    previous = this.publicKey;
+	    this.publicKey = loaded;
 	}
+	if ((previous != null) && !previous.equals(loaded)) {
+	    LOGGER.info("JWT public key has changed. Clearing verified tokens.");
+	    clearVerifiedTokens();
+	}
+    }
+
+    /**
+     * Get public key currently in use without loading it.
+     * 
+     * @return
+     */
+    protected synchronized PublicKey getCurrentPublicKey() {
 	return this.publicKey;
     }
 
+    /**
+     * Remove all verified tokens from the cache.
+     */
+    public void clearVerifiedTokens() {
+	synchronized (verifiedTokens) {
+	    verifiedTokens.clear();
+	}
+    }
+
     /*
      * @see com.sitewhere.spi.microservice.security.ITokenManagement#
      * getAuthenticationForUser(java.lang.String, java.lang.String)
@@ -95,9 +214,33 @@ public class TokenManagement implements ITokenManagement {
      */
     @Override
     public SiteWhereAuthentication getAuthenticationFromToken(String token) throws SiteWhereException {
+	String digest = getTokenDigest(token);
+	long now = System.currentTimeMillis();
+	VerifiedToken verified;
+	synchronized (verifiedTokens) {
+	    verified = verifiedTokens.get(digest);
+	    if ((verified != null) && (verified.getExpires() <= now)) {
+		verifiedTokens.remove(digest);
+		verified = null;
+	    }
+	}
+	if (verified != null) {
+	    TOKEN_CACHE_REQUESTS.labels(buildMetricLabels("hit")).inc();
+	    return new SiteWhereAuthentication(verified.getUsername(), verified.getGrantedAuthorities(), token);
+	}
+	TOKEN_CACHE_REQUESTS.labels(buildMetricLabels("miss")).inc();
+
 	Claims claims = getClaimsForToken(token);
 	String username = getUsernameFromClaims(claims);
-	List<String> auths = getGrantedAuthoritiesFromClaims(claims);
+	List<String> auths = Collections.unmodifiableList(getGrantedAuthoritiesFromClaims(claims));
+	long expires = now + MAX_VERIFIED_TOKEN_AGE_MS;
+	Date expiration = claims.getExpiration();
+	if (expiration != null) {
+	    expires = Math.min(expires, expiration.getTime());
+	}
+	synchronized (verifiedTokens) {
+	    verifiedTokens.put(digest, new VerifiedToken(username, auths, expires));
+	}
 	return new SiteWhereAuthentication(username, auths, token);
     }
 
@@ -108,19 +251,71 @@ public class TokenManagement implements ITokenManagement {
      * getClaimsForToken(java.lang.String)
      */
     public Claims getClaimsForToken(String token) throws SiteWhereException {
+	long start = System.nanoTime();
 	try {
-	    return Jwts.parser().setSigningKey(getPublicKey()).parseClaimsJws(token).getBody();
-	} catch (ExpiredJwtException e) {
-	    throw new JwtExpiredException("JWT has expired.", e);
-	} catch (UnsupportedJwtException e) {
-	    throw new InvalidJwtException("JWT not in supported format.", e);
-	} catch (MalformedJwtException e) {
-	    throw new InvalidJwtException("JWT not correctly formatted.", e);
+	    return parseClaims(token);
+	} catch (SignatureException e) {
+	    // Signature may have been made with a new key.
+	    if (!reloadPublicKeyAfterFailure()) {
+		throw convertParseException(e);
+	    }
+	    try {
+		return parseClaims(token);
+	    } catch (Throwable t) {
+		throw convertParseException(t);
+	    }
 	} catch (Throwable t) {
-	    throw new SiteWhereException("Error decoding JWT.", t);
+	    throw convertParseException(t);
+	} finally {
+	    VERIFICATION_TIME.labels(buildMetricLabels()).observe((System.nanoTime() - start) / 1e9);
+	}
+    }
+
+    /**
+     * Verify token signature and parse claims.
+     * 
+     * @param token
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Claims parseClaims(String token) throws SiteWhereException {
+	return Jwts.parser().setSigningKey(getPublicKey()).parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Reload public key after a signature failure unless it was loaded recently.
+     * 
+     * @return true if the key was reloaded
+     */
+    protected boolean reloadPublicKeyAfterFailure() {
+	if (!claimPublicKeyRefresh(PUBLIC_KEY_RECHECK_MS)) {
+	    return false;
+	}
+	try {
+	    refreshPublicKey();
+	    return true;
+	} catch (SiteWhereException e) {
+	    return false;
 	}
     }
 
+    /**
+     * Convert an exception thrown while parsing a JWT.
+     * 
+     * @param t
+     * @return
+     */
+    protected SiteWhereException convertParseException(Throwable t) {
+	if (t instanceof ExpiredJwtException) {
+	    return new JwtExpiredException("JWT has expired.", t);
+	} else if (t instanceof UnsupportedJwtException) {
+	    return new InvalidJwtException("JWT not in supported format.", t);
+	} else if (t instanceof MalformedJwtException) {
+	    return new InvalidJwtException("JWT not correctly formatted.", t);
+	}
+	return new SiteWhereException("Error decoding JWT.", t);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -168,7 +363,79 @@ public class TokenManagement implements ITokenManagement {
 	return auths;
     }
 
+    /**
+     * Compute digest used to index a verified token.
+     * 
+     * @param token
+     * @return
+     * @throws SiteWhereException
+     */
+    protected String getTokenDigest(String token) throws SiteWhereException {
+	try {
+	    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+	    return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+	} catch (NoSuchAlgorithmException e) {
+	    throw new SiteWhereException(e);
+	}
+    }
+
+    /**
+     * Build label values used for token metrics. The microservice label uses the
+     * identifier path like other component metrics, falling back to the
+     * Kubernetes name until user management has been initialized.
+     * 
+     * @param labels
+     * @return
+     */
+    protected String[] buildMetricLabels(String... labels) {
+	IMicroservice<?, ?> microservice = getUserManagement().getMicroservice();
+	String[] all = new String[labels.length + 3];
+	all[0] = (microservice != null) ? microservice.getIdentifier().getPath()
+		: getInstanceSettings().getKubernetesName();
+	all[1] = getInstanceSettings().getKubernetesPodAddress();
+	all[2] = GLOBAL_TENANT;
+	System.arraycopy(labels, 0, all, 3, labels.length);
+	return all;
+    }
+
     protected IUserManagement getUserManagement() {
 	return userManagement;
     }
+
+    protected IInstanceSettings getInstanceSettings() {
+	return instanceSettings;
+    }
+
+    /**
+     * Authentication details of a token whose signature has been verified.
+     */
+    private static class VerifiedToken {
+
+	/** Username */
+	private String username;
+
+	/** Granted authorities */
+	private List<String> grantedAuthorities;
+
+	/** Time at which entry expires */
+	private long expires;
+
+	public VerifiedToken(String username, List<String> grantedAuthorities, long expires) {
+	    this.username = username;
+	    this.grantedAuthorities = grantedAuthorities;
+	    this.expires = expires;
+	}
+
+	public String getUsername() {
+	    return username;
+	}
+
+	public List<String> getGrantedAuthorities() {
+	    return grantedAuthorities;
+	}
+
+	public long getExpires() {
+	    return expires;
+	}
+    }
 }
\ No newline at end of file
@@ -40,8 +40,7 @@ public class UserContext {
 	if (auth == null) {
 	    return null;
 	}
-	return microservice.getSiteWhereKubernetesClient()
-		.getTenantForToken(microservice.getInstanceSettings().getKubernetesNamespace(), auth.getTenantToken());
+	return microservice.getTenantResourceCache().getTenant(auth.getTenantToken());
     }
 
     public static String getCurrentTenantId() {
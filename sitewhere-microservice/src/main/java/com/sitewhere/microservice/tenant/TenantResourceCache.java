@@ -0,0 +1,220 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.tenant;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sitewhere.spi.microservice.IMicroservice;
+import com.sitewhere.spi.microservice.tenant.ITenantResourceCache;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.SharedInformerFactory;
+import io.sitewhere.k8s.crd.ResourceContexts;
+import io.sitewhere.k8s.crd.controller.ResourceChangeType;
+import io.sitewhere.k8s.crd.controller.SiteWhereResourceController;
+import io.sitewhere.k8s.crd.tenant.SiteWhereTenant;
+import io.sitewhere.k8s.crd.tenant.SiteWhereTenantList;
+
+/**
+ * Keeps tenant resources for the current instance in memory, indexed by
+ * token. Entries are updated from shared informer events. Lookups for tenants
+ * not yet delivered by the informer are loaded from the API server and added
+ * to the cache. A loaded tenant is only added if no informer event was applied
+ * while it was loading, so a delete can not be undone by an older load. Tokens
+ * not found on the API server are remembered for a short time.
+ */
+public class TenantResourceCache extends SiteWhereResourceController<SiteWhereTenant>
+	implements ITenantResourceCache {
+
+    /** Static logger instance */
+    private static Logger LOGGER = LoggerFactory.getLogger(TenantResourceCache.class);
+
+    /** Resync period in milliseconds */
+    private static final int RESYNC_PERIOD_MS = 10 * 60 * 1000;
+
+    /** Time in milliseconds that a missing tenant token is remembered */
+    private static final long MISSING_TENANT_TTL_MS = 5 * 1000;
+
+    /** Maximum number of missing tenant tokens remembered */
+    private static final int MAX_MISSING_TENANTS = 1000;
+
+    /** Parent microservice */
+    private IMicroservice<?, ?> microservice;
+
+    /** Tenant resources indexed by token */
+    private Map<String, SiteWhereTenant> tenantsByToken = new ConcurrentHashMap<>();
+
+    /** Expiry times for tokens not found on the API server */
+    private Map<String, Long> missingTenants = new ConcurrentHashMap<>();
+
+    /** Number of informer events applied */
+    private AtomicLong changeCount = new AtomicLong();
+
+    /** Handles processing of queued updates */
+    private ExecutorService queueProcessor = Executors.newSingleThreadExecutor(new CacheThreadFactory());
+
+    public TenantResourceCache(IMicroservice<?, ?> microservice, KubernetesClient client,
+	    SharedInformerFactory informerFactory) {
+	super(client, informerFactory);
+	this.microservice = microservice;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.tenant.ITenantResourceCache#start()
+     */
+    @Override
+    public void start() {
+	getQueueProcessor().execute(createEventLoop());
+    }
+
+    /*
+     * @see
+     * io.sitewhere.k8s.crd.controller.SiteWhereResourceController#createInformer()
+     */
+    @Override
+    public SharedIndexInformer<SiteWhereTenant> createInformer() {
+	return getInformerFactory().sharedIndexInformerForCustomResource(ResourceContexts.TENANT_CONTEXT,
+		SiteWhereTenant.class, SiteWhereTenantList.class, RESYNC_PERIOD_MS);
+    }
+
+    /*
+     * @see io.sitewhere.k8s.crd.controller.SiteWhereResourceController#
+     * reconcileResourceChange(io.sitewhere.k8s.crd.controller.ResourceChangeType,
+     * io.fabric8.kubernetes.client.CustomResource)
+     */
+    @Override
+    public void reconcileResourceChange(ResourceChangeType type, SiteWhereTenant tenant) {
+	if (!getMicroservice().getInstanceSettings().getKubernetesNamespace()
+		.equals(tenant.getMetadata().getNamespace())) {
+	    return;
+	}
+	String token = tenant.getMetadata().getName();
+	switch (type) {
+	case CREATE:
+	case UPDATE: {
+	    applyChange(token, tenant);
+	    break;
+	}
+	case DELETE: {
+	    applyChange(token, null);
+	    break;
+	}
+	}
+	LOGGER.debug(String.format("Applied %s for tenant '%s' to tenant cache.", type.name(), token));
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.tenant.ITenantResourceCache#getTenant(java.
+     * lang.String)
+     */
+    @Override
+    public SiteWhereTenant getTenant(String token) {
+	if (token == null) {
+	    return null;
+	}
+	SiteWhereTenant tenant = getTenantsByToken().get(token);
+	if (tenant != null) {
+	    return tenant;
+	}
+	Long missingUntil = getMissingTenants().get(token);
+	if ((missingUntil != null) && (missingUntil > System.currentTimeMillis())) {
+	    return null;
+	}
+	long changes = getChangeCount().get();
+	SiteWhereTenant loaded = getMicroservice().getSiteWhereKubernetesClient().getTenants()
+		.inNamespace(getMicroservice().getInstanceSettings().getKubernetesNamespace()).withName(token).get();
+	SiteWhereTenant current = getTenantsByToken().compute(token, (k, existing) -> {
+	    if ((existing != null) || (getChangeCount().get() != changes)) {
+		return existing;
+	    }
+	    if (loaded == null) {
+		addMissingTenant(k);
+	    }
+	    return loaded;
+	});
+	return (current != null) ? current : loaded;
+    }
+
+    /**
+     * Apply an informer event for a tenant. Changes are made while holding the
+     * entry for the token so they are ordered with respect to loads.
+     * 
+     * @param token
+     * @param tenant
+     */
+    protected void applyChange(String token, SiteWhereTenant tenant) {
+	getTenantsByToken().compute(token, (k, existing) -> {
+	    getChangeCount().incrementAndGet();
+	    getMissingTenants().remove(k);
+	    return tenant;
+	});
+    }
+
+    /**
+     * Remember that a tenant token was not found. Expired entries are purged
+     * when the limit is reached. If none have expired, the token is not added.
+     * 
+     * @param token
+     */
+    protected void addMissingTenant(String token) {
+	long now = System.currentTimeMillis();
+	if (getMissingTenants().size() >= MAX_MISSING_TENANTS) {
+	    getMissingTenants().values().removeIf((expires) -> expires <= now);
+	    if (getMissingTenants().size() >= MAX_MISSING_TENANTS) {
+		return;
+	    }
+	}
+	getMissingTenants().put(token, now + MISSING_TENANT_TTL_MS);
+    }
+
+    protected IMicroservice<?, ?> getMicroservice() {
+	return microservice;
+    }
+
+    protected Map<String, SiteWhereTenant> getTenantsByToken() {
+	return tenantsByToken;
+    }
+
+    protected Map<String, Long> getMissingTenants() {
+	return missingTenants;
+    }
+
+    protected AtomicLong getChangeCount() {
+	return changeCount;
+    }
+
+    protected ExecutorService getQueueProcessor() {
+	return queueProcessor;
+    }
+
+    /** Used for naming threads */
+    private class CacheThreadFactory implements ThreadFactory {
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Tenant Cache");
+	}
+    }
+}
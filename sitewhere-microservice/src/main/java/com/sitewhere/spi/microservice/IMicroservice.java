@@ -24,6 +24,7 @@ import com.sitewhere.spi.microservice.instance.IInstanceSettings;
 import com.sitewhere.spi.microservice.instance.IInstanceSpecUpdateOperation;
 import com.sitewhere.spi.microservice.instance.IInstanceStatusUpdateOperation;
 import com.sitewhere.spi.microservice.kafka.IKafkaTopicNaming;
+import com.sitewhere.spi.microservice.kafka.IKafkaTopicRegistry;
 import com.sitewhere.spi.microservice.lifecycle.ILifecycleComponent;
 import com.sitewhere.spi.microservice.metrics.IMetricsServer;
 import com.sitewhere.spi.microservice.scripting.IScriptManager;
@@ -31,6 +32,7 @@ import com.sitewhere.spi.microservice.scripting.IScriptTemplateManager;
 import com.sitewhere.spi.microservice.security.ISystemUser;
 import com.sitewhere.spi.microservice.security.ITokenManagement;
 import com.sitewhere.spi.microservice.tenant.ITenantManagement;
+import com.sitewhere.spi.microservice.tenant.ITenantResourceCache;
 import com.sitewhere.spi.microservice.user.IUserManagement;
 import com.sitewhere.spi.system.IVersion;
 
@@ -38,6 +40,7 @@ import io.fabric8.kubernetes.client.DefaultKubernetesClient;
 import io.fabric8.kubernetes.client.informers.SharedInformerFactory;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
 import io.sitewhere.k8s.api.ISiteWhereKubernetesClient;
 import io.sitewhere.k8s.crd.instance.SiteWhereInstance;
 import io.sitewhere.k8s.crd.instance.dataset.InstanceDatasetTemplate;
@@ -139,6 +142,13 @@ public interface IMicroservice<F extends IFunctionIdentifier, C extends IMicrose
      */
     IKafkaTopicNaming getKafkaTopicNaming();
 
+    /**
+     * Get registry used to verify or create Kafka topics.
+     * 
+     * @return
+     */
+    IKafkaTopicRegistry getKafkaTopicRegistry();
+
     /**
      * Get manager for lastest versions of scripts which may be executed by
      * components.
@@ -206,6 +216,13 @@ public interface IMicroservice<F extends IFunctionIdentifier, C extends IMicrose
      */
     void createKubernetesResourceControllers(SharedInformerFactory informers) throws SiteWhereException;
 
+    /**
+     * Get cache of tenant resources fed by shared informer.
+     * 
+     * @return
+     */
+    ITenantResourceCache getTenantResourceCache();
+
     /**
      * Get client for interacting with Redis cluster for caching.
      * 
@@ -214,11 +231,12 @@ public interface IMicroservice<F extends IFunctionIdentifier, C extends IMicrose
     RedisClient getRedisClient();
 
     /**
-     * Get stateful Redis connection for cache interactions.
+     * Get stateful Redis connection for cache interactions. Keys and values are
+     * passed as raw bytes.
      * 
      * @return
      */
-    StatefulRedisConnection<String, byte[]> getRedisCacheConnection();
+    StatefulRedisConnection<byte[], byte[]> getRedisCacheConnection();
 
     /**
      * Get stateful Redis connection for stream interactions.
@@ -227,6 +245,13 @@ public interface IMicroservice<F extends IFunctionIdentifier, C extends IMicrose
      */
     StatefulRedisConnection<String, byte[]> getRedisStreamConnection();
 
+    /**
+     * Get stateful Redis connection for pub/sub interactions.
+     * 
+     * @return
+     */
+    StatefulRedisPubSubConnection<String, byte[]> getRedisPubSubConnection();
+
     /**
      * Get metrics server.
      * 
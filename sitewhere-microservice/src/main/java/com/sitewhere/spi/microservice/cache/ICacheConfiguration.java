@@ -34,6 +34,21 @@ public interface ICacheConfiguration {
      */
     public void setTtlInSeconds(int value);
 
+    /**
+     * Get time to live in seconds for entries recording that no value exists.
+     * Zero disables negative caching.
+     * 
+     * @return
+     */
+    public int getNegativeTtlInSeconds();
+
+    /**
+     * Set time to live in seconds for entries recording that no value exists.
+     * 
+     * @param value
+     */
+    public void setNegativeTtlInSeconds(int value);
+
     /**
      * Indicates whether cache is enabled.
      * 
@@ -47,4 +62,76 @@ public interface ICacheConfiguration {
      * @param value
      */
     public void setEnabled(boolean value);
+
+    /**
+     * Indicates whether an in-process local cache is used in front of Redis.
+     * 
+     * @return
+     */
+    public boolean isLocalCacheEnabled();
+
+    /**
+     * Set local cache enablement.
+     * 
+     * @param value
+     */
+    public void setLocalCacheEnabled(boolean value);
+
+    /**
+     * Get maximum number of entries held in the local cache.
+     * 
+     * @return
+     */
+    public int getLocalCacheMaxEntries();
+
+    /**
+     * Set maximum number of entries held in the local cache.
+     * 
+     * @param value
+     */
+    public void setLocalCacheMaxEntries(int value);
+
+    /**
+     * Get time to live in seconds for local cache entries.
+     * 
+     * @return
+     */
+    public int getLocalCacheTtlInSeconds();
+
+    /**
+     * Set time to live in seconds for local cache entries.
+     * 
+     * @param value
+     */
+    public void setLocalCacheTtlInSeconds(int value);
+
+    /**
+     * Indicates whether cache writes are issued asynchronously without waiting
+     * for Redis to acknowledge them.
+     * 
+     * @return
+     */
+    public boolean isWriteBehind();
+
+    /**
+     * Set write-behind enablement.
+     * 
+     * @param value
+     */
+    public void setWriteBehind(boolean value);
+
+    /**
+     * Get factor used for probabilistic early refresh of entries nearing
+     * expiration. Larger values refresh earlier. Zero disables early refresh.
+     * 
+     * @return
+     */
+    public double getEarlyRefreshBeta();
+
+    /**
+     * Set factor used for probabilistic early refresh.
+     * 
+     * @param value
+     */
+    public void setEarlyRefreshBeta(double value);
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.spi.microservice.cache;
+
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Loads a value from the system of record when it is not found in a cache.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public interface ICacheLoader<K, V> {
+
+    /**
+     * Load value for the given key. Returns null if not found.
+     * 
+     * @param key
+     * @return
+     * @throws SiteWhereException
+     */
+    V load(K key) throws SiteWhereException;
+}
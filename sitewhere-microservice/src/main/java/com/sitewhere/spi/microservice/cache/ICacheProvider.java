@@ -15,6 +15,9 @@
  */
 package com.sitewhere.spi.microservice.cache;
 
+import java.util.Collection;
+import java.util.Map;
+
 import com.sitewhere.spi.SiteWhereException;
 
 /**
@@ -59,6 +62,40 @@ public interface ICacheProvider<K, V> {
      */
     V getCacheEntry(String tenantId, K key) throws SiteWhereException;
 
+    /**
+     * Get a cache entry, using the loader to fetch and cache the value on a miss.
+     * Concurrent misses for the same tenant and key share a single load.
+     * 
+     * @param tenantId
+     * @param key
+     * @param loader
+     * @return
+     * @throws SiteWhereException
+     */
+    V getCacheEntry(String tenantId, K key, ICacheLoader<K, V> loader) throws SiteWhereException;
+
+    /**
+     * Set multiple cache entries in a single batch. Keys mapped to null are
+     * recorded as not found if negative caching is enabled.
+     * 
+     * @param tenantId
+     * @param values
+     * @throws SiteWhereException
+     */
+    void setCacheEntries(String tenantId, Map<K, V> values) throws SiteWhereException;
+
+    /**
+     * Get multiple cache entries in a single batch. Keys that are not found are
+     * not included in the result. Keys recorded as not found by negative caching
+     * are included with a null value.
+     * 
+     * @param tenantId
+     * @param keys
+     * @return
+     * @throws SiteWhereException
+     */
+    Map<K, V> getCacheEntries(String tenantId, Collection<K> keys) throws SiteWhereException;
+
     /**
      * Remove an existing cache entry.
      * 
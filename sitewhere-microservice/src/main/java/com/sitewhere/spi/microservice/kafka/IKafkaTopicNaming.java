@@ -36,6 +36,13 @@ public interface IKafkaTopicNaming {
      */
     String getGlobalPrefix();
 
+    /**
+     * Get prefix shared by tenant-specific topics of all tenants.
+     * 
+     * @return
+     */
+    String getTenantsPrefix();
+
     /**
      * Get prefix used for tenant-specific topics.
      * 
@@ -175,4 +182,13 @@ public interface IKafkaTopicNaming {
      * @return
      */
     String getFailedBatchElementsTopic(SiteWhereTenant tenant);
+
+    /**
+     * Get topic that receives records which could not be delivered to the given
+     * topic.
+     * 
+     * @param topic
+     * @return
+     */
+    String getDeadLetterTopic(String topic);
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.spi.microservice.kafka;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Verifies that Kafka topics exist, creating them if necessary. Shared by all
+ * components of a microservice so that topics are checked in batches using a
+ * single admin connection and each topic is only verified once.
+ */
+public interface IKafkaTopicRegistry {
+
+    /**
+     * Ensure topics exist. The returned future completes once every topic has
+     * been found or created. Completes immediately if all topics were already
+     * verified.
+     * 
+     * @param topicNames
+     * @return
+     */
+    CompletableFuture<Void> ensureTopics(List<String> topicNames);
+
+    /**
+     * Indicates whether a topic has already been verified.
+     * 
+     * @param topicName
+     * @return
+     */
+    boolean isVerified(String topicName);
+
+    /**
+     * Release the admin connection, stop the verification thread and fail any
+     * outstanding requests. Requests made after the registry is closed fail
+     * immediately.
+     */
+    void close();
+}
\ No newline at end of file
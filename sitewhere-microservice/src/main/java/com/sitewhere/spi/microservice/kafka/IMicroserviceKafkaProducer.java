@@ -15,7 +15,7 @@
  */
 package com.sitewhere.spi.microservice.kafka;
 
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.kafka.clients.producer.RecordMetadata;
 
@@ -50,12 +50,15 @@ public interface IMicroserviceKafkaProducer<K, P> extends ILifecycleComponent {
     String getTargetTopicName() throws SiteWhereException;
 
     /**
-     * Send a message to the topic.
+     * Send a message to the topic without blocking on Kafka. The returned future
+     * completes once the record is acknowledged or fails once retries are
+     * exhausted. If the limit on in-flight sends is reached, the record is not
+     * sent and the future completes exceptionally right away.
      * 
      * @param key
      * @param message
      * @return
      * @throws SiteWhereException
      */
-    Future<RecordMetadata> send(K key, P message) throws SiteWhereException;
+    CompletableFuture<RecordMetadata> send(K key, P message) throws SiteWhereException;
 }
\ No newline at end of file
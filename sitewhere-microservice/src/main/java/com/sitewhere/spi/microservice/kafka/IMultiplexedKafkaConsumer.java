@@ -0,0 +1,56 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.spi.microservice.kafka;
+
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Consumer shared by all tenant engines of a microservice. Tenant consumers
+ * register with it rather than creating their own Kafka consumer, and records
+ * for their topics are routed to them.
+ */
+public interface IMultiplexedKafkaConsumer extends IMicroserviceKafkaConsumer {
+
+    /**
+     * Route records for the source topics of a tenant consumer to it.
+     * 
+     * @param consumer
+     * @throws SiteWhereException
+     */
+    void register(IMicroserviceKafkaConsumer consumer) throws SiteWhereException;
+
+    /**
+     * Stop routing records to a tenant consumer.
+     * 
+     * @param consumer
+     * @throws SiteWhereException
+     */
+    void unregister(IMicroserviceKafkaConsumer consumer) throws SiteWhereException;
+
+    /**
+     * Stop consuming records for a tenant until it is resumed.
+     * 
+     * @param tenantToken
+     */
+    void pauseTenant(String tenantToken);
+
+    /**
+     * Resume consuming records for a paused tenant.
+     * 
+     * @param tenantToken
+     */
+    void resumeTenant(String tenantToken);
+}
\ No newline at end of file
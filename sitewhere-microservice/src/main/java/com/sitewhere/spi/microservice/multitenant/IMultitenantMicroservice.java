@@ -21,6 +21,7 @@ import com.sitewhere.spi.microservice.IFunctionIdentifier;
 import com.sitewhere.spi.microservice.IMicroserviceConfiguration;
 import com.sitewhere.spi.microservice.configuration.IConfigurableMicroservice;
 import com.sitewhere.spi.microservice.configuration.ITenantEngineConfigurationMonitor;
+import com.sitewhere.spi.microservice.kafka.IMultiplexedKafkaConsumer;
 
 import io.sitewhere.k8s.crd.microservice.SiteWhereMicroservice;
 import io.sitewhere.k8s.crd.tenant.SiteWhereTenant;
@@ -46,6 +47,14 @@ public interface IMultitenantMicroservice<F extends IFunctionIdentifier, C exten
      */
     ITenantEngineManager<T> getTenantEngineManager();
 
+    /**
+     * Get consumer shared by tenant engines. Returns null if multiplexed
+     * consumers are not enabled.
+     * 
+     * @return
+     */
+    IMultiplexedKafkaConsumer getMultiplexedKafkaConsumer();
+
     /**
      * Create tenant engine based on k8s resource.
      * 
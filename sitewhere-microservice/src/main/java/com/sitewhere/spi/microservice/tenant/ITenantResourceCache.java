@@ -0,0 +1,40 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.spi.microservice.tenant;
+
+import io.sitewhere.k8s.crd.tenant.SiteWhereTenant;
+
+/**
+ * In-memory cache of tenant resources fed by a shared informer, so that tenant
+ * lookups do not require a request to the Kubernetes API server.
+ */
+public interface ITenantResourceCache {
+
+    /**
+     * Start event loop that applies resource changes to the cache.
+     */
+    void start();
+
+    /**
+     * Get tenant resource by token. Falls back to the API server if the tenant
+     * has not been seen by the informer yet. Tokens not found on the API server
+     * are remembered for a short time.
+     * 
+     * @param token
+     * @return
+     */
+    SiteWhereTenant getTenant(String token);
+}
\ No newline at end of file
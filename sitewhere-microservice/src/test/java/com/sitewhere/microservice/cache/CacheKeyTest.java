@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link CacheKey}.
+ */
+public class CacheKeyTest {
+
+    /** Prefix used for keys */
+    private static final byte[] PREFIX = "instance:tenant:cache:".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testUuidEncoding() {
+	UUID uuid = UUID.fromString("00112233-4455-6677-8899-aabbccddeeff");
+	CacheKey key = CacheKey.forUuid(PREFIX, uuid);
+	byte[] bytes = key.getBytes();
+	assertEquals(PREFIX.length + 16, bytes.length);
+	for (int i = 0; i < PREFIX.length; i++) {
+	    assertEquals(PREFIX[i], bytes[i]);
+	}
+	for (int i = 0; i < 16; i++) {
+	    assertEquals((byte) (i * 0x11), bytes[PREFIX.length + i]);
+	}
+	assertEquals("instance:tenant:cache:00112233445566778899AABBCCDDEEFF", key.toString());
+    }
+
+    @Test
+    public void testStringEncoding() {
+	CacheKey key = CacheKey.forString(PREFIX, "t\u00f6k");
+	assertArrayEquals("instance:tenant:cache:t\u00f6k".getBytes(StandardCharsets.UTF_8), key.getBytes());
+	assertEquals("instance:tenant:cache:t\u00f6k", key.toString());
+    }
+
+    @Test
+    public void testEquality() {
+	UUID uuid = UUID.randomUUID();
+	assertEquals(CacheKey.forUuid(PREFIX, uuid), CacheKey.forUuid(PREFIX, uuid));
+	assertEquals(CacheKey.forUuid(PREFIX, uuid).hashCode(), CacheKey.forUuid(PREFIX, uuid).hashCode());
+	assertEquals(CacheKey.forString(PREFIX, "token"), new CacheKey("instance:tenant:cache:token".getBytes(
+		StandardCharsets.UTF_8)));
+	assertNotEquals(CacheKey.forString(PREFIX, "a"), CacheKey.forString(PREFIX, "b"));
+	assertNotEquals(CacheKey.forUuid(PREFIX, uuid), CacheKey.forString(PREFIX, uuid.toString()));
+    }
+}
\ No newline at end of file
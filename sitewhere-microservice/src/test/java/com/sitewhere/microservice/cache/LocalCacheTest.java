@@ -0,0 +1,87 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.sitewhere.microservice.cache.LocalCache.LocalCacheEntry;
+
+/**
+ * Tests for {@link LocalCache}.
+ */
+public class LocalCacheTest {
+
+    /** Prefix used for keys */
+    private static final byte[] PREFIX = "instance:tenant:cache:".getBytes(StandardCharsets.UTF_8);
+
+    /** Key used for entries */
+    private static final CacheKey KEY = CacheKey.forString(PREFIX, "key");
+
+    @Test
+    public void testNegativeEntryExpires() throws InterruptedException {
+	LocalCache<String> cache = new LocalCache<>(10, 60, null);
+	cache.putNegative("tenant", KEY, 1);
+	LocalCacheEntry<String> entry = cache.get(KEY);
+	assertNotNull(entry);
+	assertTrue(entry.isNegative());
+	assertNull(entry.getValue());
+
+	Thread.sleep(1100);
+	assertNull(cache.get(KEY));
+	assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testNegativeEntryLimitedByCacheTtl() throws InterruptedException {
+	LocalCache<String> cache = new LocalCache<>(10, 1, null);
+	cache.putNegative("tenant", KEY, 60);
+	assertNotNull(cache.get(KEY));
+
+	Thread.sleep(1100);
+	assertNull(cache.get(KEY));
+    }
+
+    @Test
+    public void testValueReplacesNegativeEntry() {
+	LocalCache<String> cache = new LocalCache<>(10, 60, null);
+	cache.putNegative("tenant", KEY, 60);
+	cache.put("tenant", KEY, "value");
+	LocalCacheEntry<String> entry = cache.get(KEY);
+	assertFalse(entry.isNegative());
+	assertEquals("value", entry.getValue());
+    }
+
+    @Test
+    public void testEvictionNotifiesListener() {
+	List<String> evicted = new ArrayList<>();
+	LocalCache<String> cache = new LocalCache<>(1, 60, tenantId -> evicted.add(tenantId));
+	cache.put("first", CacheKey.forString(PREFIX, "a"), "a");
+	cache.put("second", CacheKey.forString(PREFIX, "b"), "b");
+	assertEquals(1, cache.size());
+	assertEquals(1, evicted.size());
+	assertEquals("first", evicted.get(0));
+    }
+}
\ No newline at end of file
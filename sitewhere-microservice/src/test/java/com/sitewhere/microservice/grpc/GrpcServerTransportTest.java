@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.grpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.GrpcConfiguration;
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.ServerExecutorType;
+
+/**
+ * Tests for {@link GrpcServerTransport}.
+ */
+public class GrpcServerTransportTest {
+
+    /** Labels used for executor metrics */
+    private static final String[] LABELS = { "test", "localhost", "_global_", ServerExecutorType.Shared.name() };
+
+    @Test
+    public void testDirectExecutor() {
+	GrpcConfiguration grpc = new GrpcConfiguration();
+	grpc.setServerExecutor(ServerExecutorType.Direct);
+	assertNull(GrpcServerTransport.getExecutor(grpc, "test", "localhost", "_global_"));
+    }
+
+    @Test
+    public void testSharedExecutorRejectsWhenQueueIsFull() throws InterruptedException {
+	ThreadPoolExecutor pool = GrpcServerTransport.createSharedExecutor(1, 1,
+		new GrpcServerTransport.RejectedCallHandler(LABELS));
+	CountDownLatch running = new CountDownLatch(1);
+	CountDownLatch release = new CountDownLatch(1);
+	try {
+	    pool.execute(() -> {
+		running.countDown();
+		try {
+		    release.await();
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		}
+	    });
+	    running.await();
+	    pool.execute(() -> {
+	    });
+	    assertEquals(1, pool.getQueue().size());
+	    try {
+		pool.execute(() -> {
+		});
+		fail("Expected call to be rejected.");
+	    } catch (RejectedExecutionException e) {
+		// Expected.
+	    }
+	} finally {
+	    release.countDown();
+	    pool.shutdownNow();
+	}
+    }
+
+    @Test
+    public void testSettingsDescriptions() {
+	GrpcConfiguration first = new GrpcConfiguration();
+	GrpcConfiguration second = new GrpcConfiguration();
+	assertEquals(GrpcServerTransport.describeExecutor(first), GrpcServerTransport.describeExecutor(second));
+	assertEquals(GrpcServerTransport.describeEventLoops(first), GrpcServerTransport.describeEventLoops(second));
+
+	second.setServerExecutorQueueCapacity(first.getServerExecutorQueueCapacity() + 1);
+	second.setServerBossThreads(first.getServerBossThreads() + 1);
+	assertNotEquals(GrpcServerTransport.describeExecutor(first), GrpcServerTransport.describeExecutor(second));
+	assertNotEquals(GrpcServerTransport.describeEventLoops(first),
+		GrpcServerTransport.describeEventLoops(second));
+    }
+}
\ No newline at end of file
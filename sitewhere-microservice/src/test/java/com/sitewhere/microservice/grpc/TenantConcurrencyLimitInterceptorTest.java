@@ -0,0 +1,139 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.grpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sitewhere.microservice.configuration.model.instance.InstanceConfiguration;
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.GrpcConfiguration;
+import com.sitewhere.microservice.configuration.model.instance.infrastructure.InfrastructureConfiguration;
+import com.sitewhere.spi.microservice.IFunctionIdentifier;
+import com.sitewhere.spi.microservice.IMicroservice;
+import com.sitewhere.spi.microservice.instance.IInstanceSettings;
+
+/**
+ * Tests for {@link TenantConcurrencyLimitInterceptor.TenantLimiter}.
+ */
+public class TenantConcurrencyLimitInterceptorTest {
+
+    /** gRPC settings used by interceptor */
+    private GrpcConfiguration grpc;
+
+    /** Interceptor under test */
+    private TenantConcurrencyLimitInterceptor interceptor;
+
+    @Before
+    public void setup() {
+	grpc = new GrpcConfiguration();
+	grpc.setTenantConcurrencyInitialLimit(20);
+	grpc.setTenantConcurrencyMinLimit(2);
+	grpc.setTenantConcurrencyMaxLimit(200);
+	grpc.setTenantConcurrencyBackoffRatio(0.5);
+	InfrastructureConfiguration infrastructure = new InfrastructureConfiguration();
+	infrastructure.setGrpc(grpc);
+	InstanceConfiguration instance = new InstanceConfiguration();
+	instance.setInfrastructure(infrastructure);
+	interceptor = new TenantConcurrencyLimitInterceptor(createMicroservice(instance));
+    }
+
+    /**
+     * Create a microservice that only supplies what limiters use.
+     * 
+     * @param instance
+     * @return
+     */
+    protected static IMicroservice<?, ?> createMicroservice(InstanceConfiguration instance) {
+	IFunctionIdentifier identifier = stub(IFunctionIdentifier.class, "getPath", "test");
+	IInstanceSettings settings = stub(IInstanceSettings.class, "getKubernetesPodAddress", "localhost");
+	return (IMicroservice<?, ?>) Proxy.newProxyInstance(IMicroservice.class.getClassLoader(),
+		new Class<?>[] { IMicroservice.class }, (proxy, method, args) -> {
+		    switch (method.getName()) {
+		    case "getIdentifier":
+			return identifier;
+		    case "getInstanceSettings":
+			return settings;
+		    case "getInstanceConfiguration":
+			return instance;
+		    default:
+			throw new UnsupportedOperationException(method.getName());
+		    }
+		});
+    }
+
+    /**
+     * Create an interface stub that returns a value for a single method.
+     * 
+     * @param type
+     * @param methodName
+     * @param value
+     * @return
+     */
+    protected static <T> T stub(Class<T> type, String methodName, Object value) {
+	return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+		(proxy, method, args) -> {
+		    if (method.getName().equals(methodName)) {
+			return value;
+		    }
+		    throw new UnsupportedOperationException(method.getName());
+		}));
+    }
+
+    @Test
+    public void testRejectsOverLimit() {
+	grpc.setTenantConcurrencyInitialLimit(2);
+	TenantConcurrencyLimitInterceptor.TenantLimiter limiter = interceptor.new TenantLimiter("reject");
+	assertTrue(limiter.acquire() > 0);
+	assertTrue(limiter.acquire() > 0);
+	assertEquals(-1, limiter.acquire());
+    }
+
+    @Test
+    public void testDecreasesOncePerWindow() {
+	TenantConcurrencyLimitInterceptor.TenantLimiter limiter = interceptor.new TenantLimiter("window");
+	assertEquals(20, limiter.getLimit());
+
+	// Burst of overloaded calls admitted together reduces limit once.
+	long[] burst = new long[5];
+	for (int i = 0; i < burst.length; i++) {
+	    burst[i] = limiter.acquire();
+	}
+	for (long sequence : burst) {
+	    limiter.release(sequence, System.nanoTime(), true);
+	}
+	assertEquals(10, limiter.getLimit());
+
+	// Call admitted after the reduction starts a new window.
+	long next = limiter.acquire();
+	limiter.release(next, System.nanoTime(), true);
+	assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    public void testDecreaseStopsAtMinimum() {
+	TenantConcurrencyLimitInterceptor.TenantLimiter limiter = interceptor.new TenantLimiter("minimum");
+	for (int i = 0; i < 10; i++) {
+	    long sequence = limiter.acquire();
+	    limiter.release(sequence, System.nanoTime(), true);
+	}
+	assertEquals(2, limiter.getLimit());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2014-2021 The SiteWhere Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sitewhere.microservice.kafka;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.Test;
+
+/**
+ * Tests for {@link KafkaOffsetTracker}.
+ */
+public class KafkaOffsetTrackerTest {
+
+    /**
+     * Create a record at the given offset.
+     * 
+     * @param offset
+     * @return
+     */
+    protected static ConsumerRecord<String, byte[]> record(long offset) {
+	return new ConsumerRecord<>("topic", 0, offset, "key", new byte[0]);
+    }
+
+    @Test
+    public void testNothingDispatched() {
+	assertEquals(-1, new KafkaOffsetTracker().getCommittableOffset());
+    }
+
+    @Test
+    public void testOutOfOrderCompletion() {
+	KafkaOffsetTracker tracker = new KafkaOffsetTracker();
+	for (long offset = 10; offset < 15; offset++) {
+	    tracker.dispatched(record(offset));
+	}
+	assertEquals(10, tracker.getCommittableOffset());
+
+	tracker.completed(record(12));
+	tracker.completed(record(14));
+	assertEquals(10, tracker.getCommittableOffset());
+
+	tracker.completed(record(10));
+	assertEquals(11, tracker.getCommittableOffset());
+
+	tracker.completed(record(11));
+	assertEquals(13, tracker.getCommittableOffset());
+
+	tracker.completed(record(13));
+	assertEquals(15, tracker.getCommittableOffset());
+	assertEquals(0, tracker.getPendingCount());
+    }
+
+    @Test
+    public void testReturnedHoldsCommitOffset() {
+	KafkaOffsetTracker tracker = new KafkaOffsetTracker();
+	for (long offset = 0; offset < 6; offset++) {
+	    tracker.dispatched(record(offset));
+	}
+	tracker.completed(record(0));
+	tracker.completed(record(1));
+	tracker.returned(Arrays.asList(record(2), record(3)));
+	tracker.completed(record(4));
+	tracker.completed(record(5));
+	assertEquals(0, tracker.getPendingCount());
+	assertEquals(2, tracker.getCommittableOffset());
+
+	// Returned offset holds until records are dispatched again.
+	tracker.dispatched(record(2));
+	assertEquals(2, tracker.getCommittableOffset());
+	tracker.dispatched(record(3));
+	tracker.completed(record(2));
+	tracker.completed(record(3));
+	assertEquals(4, tracker.getCommittableOffset());
+    }
+
+    @Test
+    public void testReturnedKeepsLowestOffset() {
+	KafkaOffsetTracker tracker = new KafkaOffsetTracker();
+	for (long offset = 0; offset < 6; offset++) {
+	    tracker.dispatched(record(offset));
+	}
+	tracker.returned(Arrays.asList(record(4), record(5)));
+	tracker.returned(Arrays.asList(record(1), record(2)));
+	tracker.completed(record(0));
+	tracker.completed(record(3));
+	assertEquals(1, tracker.getCommittableOffset());
+    }
+}
\ No newline at end of file